@@ -0,0 +1,13 @@
+package com.gourav.LedgerLens.Configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the job poller and lease sweeper.
+ * Worker threads are owned by the pipeline stages in DocumentPipelineServiceImp.
+ */
+@Configuration
+@EnableScheduling
+public class DocumentProcessingConfig {
+}
@@ -4,8 +4,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.multipart.MultipartConfiguration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
@@ -13,8 +18,10 @@ import software.amazon.awssdk.core.exception.SdkClientException;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
 
 @Configuration
+@Profile("!local-storage")
 @Slf4j
 public class S3Config {
 
@@ -29,6 +36,19 @@ public class S3Config {
 
     private final String region = "auto";
 
+    @Value("${s3.async.max-concurrency:64}")
+    private int asyncMaxConcurrency;
+
+    @Value("${s3.multipart.threshold-bytes:16777216}")
+    private long multipartThresholdBytes;
+
+    @Value("${s3.multipart.part-size-bytes:8388608}")
+    private long multipartPartSizeBytes;
+
+    // Caps how many part bytes are buffered in memory per transfer
+    @Value("${s3.multipart.buffer-bytes:33554432}")
+    private long multipartBufferBytes;
+
     @Bean
     public S3Client s3Client() throws URISyntaxException, SdkClientException {
 
@@ -60,4 +80,47 @@ public class S3Config {
             throw e;
         }
     }
+
+    /**
+     * Async client for large objects: bodies above the multipart threshold are split into parts
+     * sent in parallel over a pooled Netty connection set, and read from or written to disk
+     * without passing through the heap whole.
+     */
+    @Bean
+    public S3AsyncClient s3AsyncClient() throws URISyntaxException {
+
+        log.info("Initializing S3 (Cloudflare R2) async client maxConcurrency={} multipartThreshold={} partSize={}",
+                asyncMaxConcurrency, multipartThresholdBytes, multipartPartSizeBytes);
+
+        return S3AsyncClient.builder()
+                .region(Region.of(region))
+                .endpointOverride(new URI(endpoint))
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(accessKey, secretKey)))
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(asyncMaxConcurrency)
+                        .maxPendingConnectionAcquires(asyncMaxConcurrency * 4)
+                        .connectionAcquisitionTimeout(Duration.ofSeconds(30))
+                        .readTimeout(Duration.ofSeconds(60))
+                        .writeTimeout(Duration.ofSeconds(60)))
+                .multipartEnabled(true)
+                .multipartConfiguration(MultipartConfiguration.builder()
+                        .thresholdInBytes(multipartThresholdBytes)
+                        .minimumPartSizeInBytes(multipartPartSizeBytes)
+                        .apiCallBufferSizeInBytes(multipartBufferBytes)
+                        .build())
+                .build();
+    }
+
+    // Signs direct-to-R2 uploads locally; no request is made until the client uses the URL
+    @Bean
+    public S3Presigner s3Presigner() throws URISyntaxException {
+
+        return S3Presigner.builder()
+                .region(Region.of(region))
+                .endpointOverride(new URI(endpoint))
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(accessKey, secretKey)))
+                .build();
+    }
 }
@@ -0,0 +1,148 @@
+package com.gourav.LedgerLens.Configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.fork.ForkParser;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * One Tika configuration and parser for the whole application.
+ * TikaConfig discovery (service loading every parser and detector) is done once here
+ * instead of on every extraction; AutoDetectParser is thread-safe and shared.
+ * tika.config.profile picks the parser set: "invoices" (default) loads only the parsers in
+ * tika/tika-config-invoices.xml, "full" loads everything tika-parsers-standard-package ships.
+ */
+@Configuration
+@Slf4j
+public class TikaParserConfig {
+
+    @Value("${tika.warm-up.enabled:true}")
+    private boolean warmUpEnabled;
+
+    @Value("${tika.config.profile:invoices}")
+    private String profile;
+
+    @Value("classpath:tika/tika-config-invoices.xml")
+    private Resource invoiceProfile;
+
+    @Value("${tika.fork.pool-size:2}")
+    private int forkPoolSize;
+
+    @Value("${tika.fork.java-command:java -Xmx512m -XX:+ExitOnOutOfMemoryError}")
+    private String forkJavaCommand;
+
+    @Value("${tika.fork.max-files-per-worker:500}")
+    private int forkMaxFilesPerWorker;
+
+    @Value("${extraction.timeout-ms:60000}")
+    private long forkParseTimeoutMs;
+
+    @Bean
+    public TikaConfig tikaConfig() throws Exception {
+
+        long start = System.currentTimeMillis();
+        TikaConfig config;
+
+        if ("full".equalsIgnoreCase(profile)) {
+            config = TikaConfig.getDefaultConfig();
+        } else {
+            try (InputStream in = invoiceProfile.getInputStream()) {
+                config = new TikaConfig(in);
+            }
+        }
+
+        log.info("Tika configuration loaded profile={} in {} ms", profile, System.currentTimeMillis() - start);
+        return config;
+    }
+
+    @Bean
+    public AutoDetectParser autoDetectParser(TikaConfig tikaConfig) {
+
+        AutoDetectParser parser = new AutoDetectParser(tikaConfig);
+        log.info("Tika parser ready profile={} supportedTypes={} heapUsedMb={}",
+                profile,
+                parser.getSupportedTypes(new ParseContext()).size(),
+                usedHeapMb());
+
+        if (warmUpEnabled) {
+            warmUp(parser);
+        }
+        return parser;
+    }
+
+    /**
+     * Optional out-of-process parsing (tika.fork.enabled=true): documents are parsed by a pool
+     * of child JVMs with their own heap cap, so a parser blowing up its heap or hanging takes
+     * down a worker process instead of the API. A child that exits (OOM, crash, parse timeout)
+     * is replaced on the next parse; callers wait while all children are busy.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "tika.fork.enabled", havingValue = "true")
+    public ForkParser forkParser(AutoDetectParser autoDetectParser) {
+
+        ForkParser parser = new ForkParser(TikaParserConfig.class.getClassLoader(), autoDetectParser);
+        parser.setPoolSize(forkPoolSize);
+        parser.setJavaCommand(Arrays.asList(forkJavaCommand.trim().split("\\s+")));
+        parser.setMaxFilesProcessedPerServer(forkMaxFilesPerWorker);
+        parser.setServerParseTimeoutMillis(forkParseTimeoutMs);
+
+        log.info("Tika fork parser enabled poolSize={} javaCommand='{}' maxFilesPerWorker={}",
+                forkPoolSize, forkJavaCommand, forkMaxFilesPerWorker);
+        return parser;
+    }
+
+    /**
+     * Parses a tiny text file and a one-page PDF so class loading, PDFBox font setup and
+     * detector initialisation happen at startup rather than on the first real upload.
+     */
+    private void warmUp(AutoDetectParser parser) {
+
+        long start = System.currentTimeMillis();
+        try {
+            parse(parser, "LedgerLens warm-up".getBytes(StandardCharsets.UTF_8));
+            parse(parser, blankPdf());
+            log.info("Tika warm-up completed in {} ms", System.currentTimeMillis() - start);
+
+        } catch (Exception e) {
+            // Not fatal: the first real document just pays the cost instead
+            log.warn("Tika warm-up failed error={}", e.getMessage(), e);
+        }
+    }
+
+    private void parse(AutoDetectParser parser, byte[] content) throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, parser);
+        parser.parse(new ByteArrayInputStream(content), new BodyContentHandler(-1), new Metadata(), context);
+    }
+
+    private byte[] blankPdf() throws Exception {
+        try (PDDocument document = new PDDocument();
+             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            document.addPage(new PDPage());
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private long usedHeapMb() {
+        Runtime runtime = Runtime.getRuntime();
+        return (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+    }
+}
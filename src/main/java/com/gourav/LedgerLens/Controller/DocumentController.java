@@ -3,18 +3,27 @@ package com.gourav.LedgerLens.Controller;
 import com.gourav.LedgerLens.Domain.Dtos.ApiResponse;
 import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
 import com.gourav.LedgerLens.Domain.Dtos.DocumentResponseDto;
+import com.gourav.LedgerLens.Domain.Dtos.PresignUploadRequest;
+import com.gourav.LedgerLens.Domain.Dtos.PresignedUploadDto;
 import com.gourav.LedgerLens.Domain.Dtos.TransactionResponseDto;
 import com.gourav.LedgerLens.Domain.Entity.Document;
 import com.gourav.LedgerLens.Domain.Entity.Transaction;
 import com.gourav.LedgerLens.Domain.Entity.User;
+import com.gourav.LedgerLens.Exception.RangeNotSatisfiableException;
+import com.gourav.LedgerLens.Exception.StoredObjectNotFoundException;
+import com.gourav.LedgerLens.Helper.StoredObject;
 import com.gourav.LedgerLens.Mapper.DocumentMapper;
 import com.gourav.LedgerLens.Mapper.TransactionMapper;
 import com.gourav.LedgerLens.Service.DocumentService;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -22,10 +31,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/v1/documents")
@@ -36,21 +50,56 @@ public class DocumentController {
     private final TransactionMapper transactionMapper;
     private final DocumentMapper documentMapper;
 
+    private static final CacheControl IMMUTABLE =
+            CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable();
+
+    private static final Pattern SINGLE_RANGE = Pattern.compile("bytes=(\\d+-\\d*|-\\d+)");
+
     @PostMapping("/upload")
     public ResponseEntity<ApiResponse<?>> uploadDocuments(
             @RequestParam("files") List<MultipartFile> files,
             @AuthenticationPrincipal(expression = "user") User loggedInUser
     ) throws Exception {
+        List<DocumentResponseDto> accepted = new ArrayList<>();
         for (MultipartFile file : files) {
-            documentService.uploadFile(file, loggedInUser);
+            Document document = documentService.uploadFile(file, loggedInUser);
+            accepted.add(documentMapper.toDto(document));
         }
 
         return ResponseEntity
-                .status(HttpStatus.CREATED)
-                .body(ApiResponse.success("Documents uploaded successfully"));
+                .status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Documents accepted for processing", accepted));
     }
 
 
+    @PostMapping("/uploads")
+    public ResponseEntity<ApiResponse<PresignedUploadDto>> createDirectUpload(
+            @Valid @RequestBody PresignUploadRequest request,
+            @AuthenticationPrincipal(expression = "user") User loggedInUser
+    ) {
+        PresignedUploadDto upload = documentService.createDirectUpload(loggedInUser, request);
+        return ResponseEntity.ok(ApiResponse.success("Upload URL issued", upload));
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<ApiResponse<DocumentResponseDto>> completeDirectUpload(
+            @PathVariable UUID uploadId,
+            @AuthenticationPrincipal(expression = "user") User loggedInUser
+    ) throws IOException {
+        try {
+            Document document = documentService.completeDirectUpload(loggedInUser, uploadId);
+            return ResponseEntity
+                    .status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("Document accepted for processing", documentMapper.toDto(document)));
+
+        } catch (EntityNotFoundException ex) {
+            return new ResponseEntity<>(
+                    ApiResponse.failure("Upload not found"),
+                    HttpStatus.NOT_FOUND
+            );
+        }
+    }
+
     @GetMapping()
     public ResponseEntity<ApiResponse<List<DocumentResponseDto>>> getAllDocument(){
         List<Document> document = documentService.getAllDocument();
@@ -60,19 +109,50 @@ public class DocumentController {
         return ResponseEntity.ok(ApiResponse.success("Document fetched successfully", docs));
     }
 
+    /**
+     * Streams the file from the local object cache (or R2) without buffering it. Stored objects
+     * never change (keys are content-addressed), so the content hash is a strong ETag: revalidation
+     * is answered with 304 before touching storage, and single byte ranges are served as 206.
+     */
     @GetMapping("/{publicId}/view")
-    public ResponseEntity<?> viewDocument(@PathVariable String publicId){
+    public ResponseEntity<?> viewDocument(
+            @PathVariable String publicId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange
+    ) throws IOException {
         try {
-            byte[] documentData = documentService.viewDocument(publicId);
+            Document document = documentService.getDocument(publicId);
+            String eTag = document.getContentHash() != null ? "\"" + document.getContentHash() + "\"" : null;
+
+            if (eTag != null && ifNoneMatch != null
+                    && (ifNoneMatch.contains(eTag) || ifNoneMatch.trim().equals("*"))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(eTag)
+                        .cacheControl(IMMUTABLE)
+                        .build();
+            }
+
+            // Multi-range and malformed values get the whole file, as do ranges of a different version
+            if (range != null && (!SINGLE_RANGE.matcher(range.trim()).matches()
+                    || (ifRange != null && !ifRange.trim().equals(eTag)))) {
+                range = null;
+            }
+
+            StoredObject object = documentService.viewDocument(document, range);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"document.pdf\"");
+            // Until the body owns it, the object (a connection or a reader's link) is closed here
+            try {
+                return streamed(object, document, eTag);
+            } catch (RuntimeException ex) {
+                object.close();
+                throw ex;
+            }
 
-            // Success: Return the PDF
-            return new ResponseEntity<>(documentData, headers, HttpStatus.OK);
+        } catch (RangeNotSatisfiableException ex) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).build();
 
-        } catch (Exception ex) {
+        } catch (EntityNotFoundException | StoredObjectNotFoundException ex) {
 
             // Error: Return your JSON ApiResponse
             // Here, Spring's default Content-Type (application/json) will be used
@@ -83,5 +163,55 @@ public class DocumentController {
         }
     }
 
+    /**
+     * Headers and body for an open object; the body closes it once it has been written.
+     */
+    private ResponseEntity<StreamingResponseBody> streamed(StoredObject object, Document document, String eTag) {
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(object.getContentType() != null
+                ? MediaType.parseMediaType(object.getContentType())
+                : MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentLength(object.getContentLength());
+        headers.setContentDisposition(ContentDisposition.inline()
+                .filename(document.getOriginalFileName(), StandardCharsets.UTF_8)
+                .build());
+        headers.setETag(eTag != null ? eTag : object.getETag());
+        headers.setCacheControl(IMMUTABLE);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (object.isPartial()) {
+            headers.set(HttpHeaders.CONTENT_RANGE, object.getContentRange());
+        }
+
+        StreamingResponseBody body = out -> {
+            try (object) {
+                object.transferTo(out);
+            }
+        };
+
+        return new ResponseEntity<>(
+                body,
+                headers,
+                object.isPartial() ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK
+        );
+    }
+
+    @GetMapping("/{publicId}/status")
+    public ResponseEntity<ApiResponse<DocumentResponseDto>> getDocumentStatus(
+            @PathVariable String publicId,
+            @AuthenticationPrincipal(expression = "user") User loggedInUser
+    ) {
+        try {
+            Document document = documentService.getDocumentStatus(publicId, loggedInUser);
+            return ResponseEntity.ok(ApiResponse.success("Document status fetched successfully", documentMapper.toDto(document)));
+
+        } catch (EntityNotFoundException ex) {
+            return new ResponseEntity<>(
+                    ApiResponse.failure("Document not found"),
+                    HttpStatus.NOT_FOUND
+            );
+        }
+    }
+
 
 }
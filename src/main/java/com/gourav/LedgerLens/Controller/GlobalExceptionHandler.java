@@ -1,6 +1,8 @@
 package com.gourav.LedgerLens.Controller;
 
+import com.gourav.LedgerLens.Exception.DirectUploadNotSupportedException;
 import com.gourav.LedgerLens.Exception.InvalidGmailGrantException;
+import com.gourav.LedgerLens.Exception.UnsupportedDocumentTypeException;
 import io.jsonwebtoken.JwtException;
 import jakarta.mail.MessagingException;
 import org.springframework.http.HttpStatus;
@@ -30,6 +32,20 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(ApiResponse.failure(ex.getMessage()));
     }
 
+    @ExceptionHandler(UnsupportedDocumentTypeException.class)
+    public ResponseEntity<ApiResponse<Void>> handleUnsupportedDocumentType(UnsupportedDocumentTypeException ex) {
+        log.warn("Unsupported document type: {}", ex.getMediaType());
+        return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                .body(ApiResponse.failure(ex.getMessage()));
+    }
+
+    @ExceptionHandler(DirectUploadNotSupportedException.class)
+    public ResponseEntity<ApiResponse<Void>> handleDirectUploadNotSupported(DirectUploadNotSupportedException ex) {
+        log.warn("Direct upload not supported: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED)
+                .body(ApiResponse.failure(ex.getMessage()));
+    }
+
     @ExceptionHandler(MessagingException.class)
     public ResponseEntity<ApiResponse<Void>> handleMessagingException(MessagingException ex){
         log.error("Email sending error: ", ex);
@@ -0,0 +1,30 @@
+package com.gourav.LedgerLens.Domain.Dtos;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignUploadRequest {
+
+    @NotBlank(message = "fileName is mandatory")
+    private String fileName;
+
+    @NotBlank(message = "contentType is mandatory")
+    private String contentType;
+
+    @Positive(message = "size must be positive")
+    private long size;
+
+    // Computed by the client; R2 rejects the PUT if the bytes do not hash to it
+    @NotBlank(message = "contentHash is mandatory")
+    @Pattern(regexp = "[0-9a-fA-F]{64}", message = "contentHash must be a hex SHA-256")
+    private String contentHash;
+}
@@ -0,0 +1,26 @@
+package com.gourav.LedgerLens.Domain.Dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadDto {
+
+    private String uploadId;
+    private String url;
+    private String method;
+
+    // Must be sent with the PUT exactly as given, they are part of the signature
+    private Map<String, List<String>> headers;
+
+    private Instant expiresAt;
+}
@@ -0,0 +1,48 @@
+package com.gourav.LedgerLens.Domain.Entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A raw AI extraction response, keyed by a hash of the normalized document text, the user name
+ * in the prompt and the prompt version. Persistent tier of the extraction result cache.
+ */
+@Entity
+@Table(
+        name = "ai_extraction_results",
+        indexes = {
+                @Index(name = "idx_ai_extraction_results_expires_at", columnList = "expires_at"),
+                @Index(name = "idx_ai_extraction_results_created_at", columnList = "created_at")
+        }
+)
+@Builder
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiExtractionResult {
+
+    // SHA-256 hex
+    @Id
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
+    @Column(name = "prompt_version", nullable = false, length = 20)
+    private String promptVersion;
+
+    @Column(name = "response", nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String response;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -10,13 +10,19 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name="documents")
+@Table(
+        name="documents",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_documents_user_content_hash",
+                columnNames = {"user_id", "content_hash"}
+        )
+)
 @Builder
 @Setter
 @Getter
 @NoArgsConstructor
 @AllArgsConstructor
-@EqualsAndHashCode(exclude = {"transaction", "user"})
+@EqualsAndHashCode(exclude = {"transaction", "user", "minHashSignature"})
 public class Document {
 
     @Id
@@ -32,6 +38,18 @@ public class Document {
     @Column(nullable=false)
     private String originalFileName;
 
+    // SHA-256 of the file bytes, hex encoded; null for documents stored before hashing existed
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // MinHash of the extracted text, see Helper.MinHash
+    @Column(name = "minhash_signature", length = 512)
+    private byte[] minHashSignature;
+
+    // Set when status is DUPLICATE: the earlier document this one matched
+    @Column(name = "duplicate_of_id")
+    private UUID duplicateOfId;
+
     @Column(nullable=false)
     @Enumerated(EnumType.STRING)
     private processingStatus status; // PROCESSING, COMPLETED, FAILED, UPLOADED
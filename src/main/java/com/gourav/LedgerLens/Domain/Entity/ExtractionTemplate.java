@@ -0,0 +1,74 @@
+package com.gourav.LedgerLens.Domain.Entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A layout learned from an AI extraction: where the date, amounts and invoice number sit in one
+ * vendor's documents, plus the fields that never change between them. Keyed by a hash of the
+ * owner and the document's layout fingerprint.
+ */
+@Entity
+@Table(name = "extraction_templates")
+@Builder
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtractionTemplate {
+
+    // SHA-256 hex
+    @Id
+    @Column(name = "template_key", length = 64)
+    private String templateKey;
+
+    @Column(length = 150)
+    private String client;
+
+    @Column(length = 10)
+    private String currency;
+
+    @Column(length = 50)
+    private String category;
+
+    @Column(name = "transaction_type", length = 20)
+    private String transactionType;
+
+    @Column(name = "payment_method", length = 30)
+    private String paymentMethod;
+
+    // Field name to anchor text and value format, as JSON
+    @Column(name = "anchors", nullable = false, columnDefinition = "TEXT")
+    private String anchors;
+
+    // AI extractions of the same layout that this template reproduced, each from different text
+    @Column(nullable = false)
+    private int confirmations;
+
+    // SHA-256 hex of the normalized text the template was learned from
+    @Column(name = "source_hash", length = 64)
+    private String sourceHash;
+
+    // SHA-256 hex of the normalized text of the last confirmation
+    @Column(name = "confirmed_hash", length = 64)
+    private String confirmedHash;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
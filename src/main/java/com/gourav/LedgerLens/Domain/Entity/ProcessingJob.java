@@ -0,0 +1,81 @@
+package com.gourav.LedgerLens.Domain.Entity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.gourav.LedgerLens.Domain.Enum.jobStatus;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(
+        name = "processing_jobs",
+        indexes = {
+                @Index(name = "idx_processing_jobs_status_next_attempt", columnList = "status, next_attempt_at"),
+                @Index(name = "idx_processing_jobs_status_lease", columnList = "status, lease_expires_at")
+        }
+)
+@Builder
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessingJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "document_id", nullable = false)
+    private UUID documentId;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private jobStatus status; // QUEUED, RUNNING, SUCCEEDED, DEAD
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "max_attempts", nullable = false)
+    private int maxAttempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "lease_owner", length = 150)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "last_error", length = 1024)
+    private String lastError;
+
+    // Text already extracted from the local copy at upload time; cleared once the job succeeds
+    @Column(name = "extracted_text", columnDefinition = "MEDIUMTEXT")
+    private String extractedText;
+
+    // Set when the user re-uploads a document that was marked a near-duplicate: they disagree with the match
+    @Column(name = "skip_near_duplicate", nullable = false)
+    private boolean skipNearDuplicate;
+
+    @Version
+    private Long version;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,39 @@
+package com.gourav.LedgerLens.Domain.Entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Maps a key a document may have been stored under (full key, bare file name) to the
+ * object key that actually exists in the bucket.
+ */
+@Entity
+@Table(
+        name = "s3_key_aliases",
+        indexes = @Index(name = "idx_s3_key_aliases_canonical_key", columnList = "canonical_key")
+)
+@Builder
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class S3KeyAlias {
+
+    @Id
+    @Column(name = "alias_key", length = 512)
+    private String aliasKey;
+
+    // Null when the alias matches more than one object; such aliases never resolve
+    @Column(name = "canonical_key", length = 512)
+    private String canonicalKey;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,8 @@
+package com.gourav.LedgerLens.Domain.Enum;
+
+public enum jobStatus {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        DEAD
+}
@@ -4,5 +4,6 @@ public enum processingStatus {
         UPLOADED,
         PROCESSING,
         COMPLETED,
-        FAILED
+        FAILED,
+        DUPLICATE
 }
@@ -0,0 +1,11 @@
+package com.gourav.LedgerLens.Exception;
+
+/**
+ * The storage backend cannot accept uploads straight from the client; answered with 501.
+ */
+public class DirectUploadNotSupportedException extends RuntimeException {
+
+    public DirectUploadNotSupportedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package com.gourav.LedgerLens.Exception;
+
+import lombok.Getter;
+
+@Getter
+public class DocumentProcessingException extends RuntimeException {
+
+    // Transient failures (R2, Gemini, network) are worth another attempt
+    private final boolean retryable;
+
+    public DocumentProcessingException(String message, boolean retryable) {
+        super(message);
+        this.retryable = retryable;
+    }
+
+    public DocumentProcessingException(String message, Throwable cause, boolean retryable) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+}
@@ -0,0 +1,9 @@
+package com.gourav.LedgerLens.Exception;
+
+public class ExtractionTimeoutException extends DocumentProcessingException {
+
+    // A file that blew the time budget once will do it again, so no retry
+    public ExtractionTimeoutException(String message) {
+        super(message, false);
+    }
+}
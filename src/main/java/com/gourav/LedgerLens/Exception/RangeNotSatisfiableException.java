@@ -0,0 +1,8 @@
+package com.gourav.LedgerLens.Exception;
+
+public class RangeNotSatisfiableException extends RuntimeException {
+
+    public RangeNotSatisfiableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
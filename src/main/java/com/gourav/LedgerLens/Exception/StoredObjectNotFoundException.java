@@ -0,0 +1,19 @@
+package com.gourav.LedgerLens.Exception;
+
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * The storage backend has no object under the key. Callers use it to fall back to the alias index.
+ */
+@Getter
+public class StoredObjectNotFoundException extends IOException {
+
+    private final String key;
+
+    public StoredObjectNotFoundException(String key, Throwable cause) {
+        super("Object not found key=" + key, cause);
+        this.key = key;
+    }
+}
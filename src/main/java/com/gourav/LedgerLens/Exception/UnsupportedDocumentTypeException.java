@@ -0,0 +1,15 @@
+package com.gourav.LedgerLens.Exception;
+
+import lombok.Getter;
+
+@Getter
+public class UnsupportedDocumentTypeException extends DocumentProcessingException {
+
+    // Detected media type, e.g. "application/zip"
+    private final String mediaType;
+
+    public UnsupportedDocumentTypeException(String mediaType) {
+        super("Unsupported document type: " + mediaType, false);
+        this.mediaType = mediaType;
+    }
+}
@@ -0,0 +1,17 @@
+package com.gourav.LedgerLens.Helper;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * One document in a batched AI extraction call. The id only has to be unique within the batch;
+ * the model echoes it back so each result can be matched to its document.
+ */
+@Getter
+@Builder
+public class AiExtractionRequest {
+
+    private final String id;
+    private final String extractedText;
+    private final String userName;
+}
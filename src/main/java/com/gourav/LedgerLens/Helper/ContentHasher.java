@@ -0,0 +1,46 @@
+package com.gourav.LedgerLens.Helper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 fingerprints used to recognise the same file arriving twice.
+ */
+public final class ContentHasher {
+
+    private ContentHasher() {
+    }
+
+    public static String sha256Hex(byte[] content) {
+        return HexFormat.of().formatHex(newDigest().digest(content));
+    }
+
+    /**
+     * Reuses the digest taken while the content was read; otherwise hashes it in 8 KB chunks
+     * rather than loading it whole.
+     */
+    public static String sha256Hex(DocumentContent content) throws IOException {
+        if (content.getSha256() != null) {
+            return content.getSha256();
+        }
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(content.openStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE is required to ship SHA-256
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.gourav.LedgerLens.Helper;
+
+import com.gourav.LedgerLens.Exception.ExtractionTimeoutException;
+import org.apache.tika.sax.ContentHandlerDecorator;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Aborts a Tika parse once its wall-clock deadline has passed.
+ * Checked on every SAX event, so a parser that keeps producing output stops promptly
+ * instead of running on after the caller has given up on it.
+ */
+public class DeadlineContentHandler extends ContentHandlerDecorator {
+
+    private final long deadlineNanos;
+
+    public DeadlineContentHandler(ContentHandler handler, long deadlineNanos) {
+        super(handler);
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String name, Attributes atts) throws SAXException {
+        check();
+        super.startElement(uri, localName, name, atts);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        check();
+        super.characters(ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        check();
+        super.ignorableWhitespace(ch, start, length);
+    }
+
+    private void check() {
+        if (System.nanoTime() - deadlineNanos > 0 || Thread.currentThread().isInterrupted()) {
+            throw new ExtractionTimeoutException("Text extraction exceeded its time limit");
+        }
+    }
+}
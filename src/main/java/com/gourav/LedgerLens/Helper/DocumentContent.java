@@ -0,0 +1,160 @@
+package com.gourav.LedgerLens.Helper;
+
+import lombok.Getter;
+import org.apache.tika.io.TikaInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * The bytes of one document on their way through upload, extraction and storage.
+ * Small documents stay in a heap buffer; anything above the spool threshold lives in a
+ * temp file, so heap use per document is bounded by the threshold whatever the file size.
+ * Readers open fresh streams; nothing copies the whole content back onto the heap.
+ * Content read from a stream is hashed in the same pass, see getSha256.
+ * Close to delete the temp file (shared files, such as local storage objects, are left in place).
+ */
+@Getter
+public class DocumentContent implements AutoCloseable {
+
+    private final String fileName;
+    private final String contentType;
+    private final long size;
+
+    // Exactly one of these is set
+    private final byte[] buffer;
+    private final Path file;
+
+    // SHA-256 hex digest when it was computed while reading, otherwise null
+    private final String sha256;
+
+    // False when the file belongs to someone else (local storage, staging) and must survive close
+    private final boolean ownsFile;
+
+    private DocumentContent(
+            String fileName,
+            String contentType,
+            byte[] buffer,
+            Path file,
+            long size,
+            String sha256,
+            boolean ownsFile
+    ) {
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.buffer = buffer;
+        this.file = file;
+        this.size = size;
+        this.sha256 = sha256;
+        this.ownsFile = ownsFile;
+    }
+
+    public static DocumentContent inMemory(byte[] content, String fileName, String contentType) {
+        return new DocumentContent(fileName, contentType, content, null, content.length, null, false);
+    }
+
+    public static DocumentContent spooled(Path file, String fileName, String contentType) throws IOException {
+        return new DocumentContent(fileName, contentType, null, file, Files.size(file), null, true);
+    }
+
+    /**
+     * A file owned elsewhere; close does not delete it.
+     */
+    public static DocumentContent shared(Path file, long size, String fileName, String contentType) {
+        return new DocumentContent(fileName, contentType, null, file, size, null, false);
+    }
+
+    /**
+     * Reads the stream, keeping at most spoolThreshold bytes on the heap before switching to a temp file.
+     * The bytes pass through a SHA-256 digest on the way, so hashing needs no second read.
+     */
+    public static DocumentContent read(
+            InputStream in,
+            String fileName,
+            String contentType,
+            int spoolThreshold,
+            Path spoolDir
+    ) throws IOException {
+
+        MessageDigest digest = ContentHasher.newDigest();
+        InputStream digesting = new DigestInputStream(in, digest);
+
+        byte[] head = digesting.readNBytes(spoolThreshold + 1);
+        if (head.length <= spoolThreshold) {
+            return new DocumentContent(fileName, contentType, head, null, head.length, hex(digest), false);
+        }
+
+        Path file = Files.createTempFile(spoolDir, "ledgerlens-", ".spool");
+        long size;
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(head);
+            size = head.length + digesting.transferTo(out);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new DocumentContent(fileName, contentType, null, file, size, hex(digest), true);
+    }
+
+    public boolean isSpooled() {
+        return file != null;
+    }
+
+    public InputStream openStream() throws IOException {
+        return isSpooled() ? Files.newInputStream(file) : new ByteArrayInputStream(buffer);
+    }
+
+    /**
+     * File-backed for spooled content, so parsers that need random access (PDF, zip-based
+     * formats) read the temp file instead of buffering the stream.
+     */
+    public TikaInputStream openTikaStream() throws IOException {
+        return isSpooled() ? TikaInputStream.get(file) : TikaInputStream.get(buffer);
+    }
+
+    /**
+     * First bytes of the content, for magic-number checks.
+     */
+    public byte[] head(int length) throws IOException {
+        if (!isSpooled()) {
+            return Arrays.copyOf(buffer, Math.min(length, buffer.length));
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.readNBytes(length);
+        }
+    }
+
+    /**
+     * A second handle on the same bytes for work that continues after this one is closed.
+     * Spooled content gets its own hard link to the temp file, removed when the handle is closed;
+     * heap and shared content are not deleted by close, so they are returned as they are.
+     */
+    public DocumentContent retain() throws IOException {
+        if (!isSpooled() || !ownsFile) {
+            return this;
+        }
+        Path link = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + ".link");
+        Files.createLink(link, file);
+        return new DocumentContent(fileName, contentType, null, link, size, sha256, true);
+    }
+
+    private static String hex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null && ownsFile) {
+            Files.deleteIfExists(file);
+        }
+    }
+}
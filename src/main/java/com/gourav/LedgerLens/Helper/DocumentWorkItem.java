@@ -0,0 +1,29 @@
+package com.gourav.LedgerLens.Helper;
+
+import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
+import com.gourav.LedgerLens.Domain.Entity.Document;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A claimed processing job as it moves through the document pipeline.
+ */
+@Getter
+@Setter
+@RequiredArgsConstructor
+public class DocumentWorkItem {
+
+    private final UUID jobId;
+    private final UUID documentId;
+    private final String leaseOwner;
+
+    private Document document;
+    private String extractedText;
+    private boolean skipNearDuplicate;
+    private int[] signature;
+    private List<CreateTransactionDto> transactions;
+}
@@ -0,0 +1,93 @@
+package com.gourav.LedgerLens.Helper;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * Crash-safe file writes for the local storage and write-back staging directories: the bytes go
+ * to a temp file next to the target, are fsynced and renamed into place, so a crash leaves either
+ * the complete file or nothing under the final name. The rename itself is only durable once the
+ * directory is synced, see syncDirectory.
+ */
+@Slf4j
+public final class DurableFiles {
+
+    public static final String TMP_SUFFIX = ".tmp";
+
+    private DurableFiles() {
+    }
+
+    public static void write(InputStream in, Path target) throws IOException {
+        write(target, out -> in.transferTo(Channels.newOutputStream(out)));
+    }
+
+    /**
+     * Spooled content is copied file to file inside the kernel; heap content is written as is.
+     */
+    public static void write(DocumentContent content, Path target) throws IOException {
+
+        if (!content.isSpooled()) {
+            try (InputStream in = content.openStream()) {
+                write(in, target);
+            }
+            return;
+        }
+
+        write(target, out -> {
+            try (FileChannel in = FileChannel.open(content.getFile(), StandardOpenOption.READ)) {
+                long position = 0;
+                long size = in.size();
+                while (position < size) {
+                    position += in.transferTo(position, size - position, out);
+                }
+            }
+        });
+    }
+
+    /**
+     * Makes renames in the directory durable. Not every platform allows opening a directory;
+     * there the rename is as durable as the file system makes it.
+     */
+    public static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Directory fsync not supported dir={} error={}", dir, e.getMessage());
+        }
+    }
+
+    private interface Writer {
+        void writeTo(FileChannel out) throws IOException;
+    }
+
+    private static void write(Path target, Writer writer) throws IOException {
+
+        // Unique per write and in the target's directory, so concurrent writers never share a temp
+        // file and the rename never crosses file systems
+        Path tmp = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + TMP_SUFFIX);
+        try {
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                writer.writeTo(out);
+                out.force(true);
+            }
+
+            try {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
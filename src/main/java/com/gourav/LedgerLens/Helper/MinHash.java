@@ -0,0 +1,124 @@
+package com.gourav.LedgerLens.Helper;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * MinHash signatures over word 3-shingles of extracted document text.
+ * Two signatures agree in roughly the same fraction of positions as the Jaccard
+ * similarity of the underlying shingle sets, so re-exports of the same invoice
+ * (new timestamp, same lines and amounts) score close to 1.
+ */
+public final class MinHash {
+
+    public static final int NUM_HASHES = 128;
+    public static final int BANDS = 16;
+    public static final int ROWS_PER_BAND = NUM_HASHES / BANDS;
+
+    private static final int SHINGLE_WORDS = 3;
+    private static final long[] SEEDS = new long[NUM_HASHES];
+
+    static {
+        for (int i = 0; i < NUM_HASHES; i++) {
+            SEEDS[i] = mix64(0x9E3779B97F4A7C15L * (i + 1));
+        }
+    }
+
+    private MinHash() {
+    }
+
+    /**
+     * @return the signature, or null when the text has no words to compare
+     */
+    public static int[] signature(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+
+        String[] words = text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}.,]+");
+        int wordCount = 0;
+        for (String word : words) {
+            if (!word.isEmpty()) {
+                words[wordCount++] = word;
+            }
+        }
+        if (wordCount == 0) {
+            return null;
+        }
+
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+
+        int shingles = Math.max(1, wordCount - SHINGLE_WORDS + 1);
+        for (int s = 0; s < shingles; s++) {
+            long shingleHash = 0xCBF29CE484222325L;
+            for (int w = s; w < Math.min(wordCount, s + SHINGLE_WORDS); w++) {
+                shingleHash = fnv1a(shingleHash, words[w]);
+            }
+            for (int i = 0; i < NUM_HASHES; i++) {
+                int h = (int) (mix64(shingleHash ^ SEEDS[i]) >>> 32);
+                if (h < signature[i]) {
+                    signature[i] = h;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Estimated Jaccard similarity: the fraction of matching positions.
+     */
+    public static double similarity(int[] a, int[] b) {
+        int matches = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (a[i] == b[i]) {
+                matches++;
+            }
+        }
+        return (double) matches / NUM_HASHES;
+    }
+
+    /**
+     * LSH bucket key for one band; signatures sharing any band key are candidates.
+     */
+    public static long bandKey(int[] signature, int band) {
+        long h = band;
+        int from = band * ROWS_PER_BAND;
+        for (int i = from; i < from + ROWS_PER_BAND; i++) {
+            h = h * 31 + signature[i];
+        }
+        return mix64(h);
+    }
+
+    public static byte[] toBytes(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(NUM_HASHES * Integer.BYTES);
+        buffer.asIntBuffer().put(signature);
+        return buffer.array();
+    }
+
+    public static int[] fromBytes(byte[] bytes) {
+        int[] signature = new int[NUM_HASHES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(signature);
+        return signature;
+    }
+
+    private static long fnv1a(long hash, String word) {
+        for (byte b : word.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xFF);
+            hash *= 0x100000001B3L;
+        }
+        // Word separator so "ab c" and "a bc" differ
+        hash ^= 0x1F;
+        hash *= 0x100000001B3L;
+        return hash;
+    }
+
+    // MurmurHash3 finalizer
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+}
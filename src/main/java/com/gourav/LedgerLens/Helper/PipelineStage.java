@@ -0,0 +1,130 @@
+package com.gourav.LedgerLens.Helper;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * One stage of a processing pipeline: a fixed set of worker threads draining a bounded queue.
+ * Finished items are handed to the next stage with a blocking put, so a slow stage pushes back
+ * on everything upstream instead of buffering unbounded work.
+ */
+@Slf4j
+public class PipelineStage<T> {
+
+    @FunctionalInterface
+    public interface Handler<T> {
+        /**
+         * @return the item to forward to the next stage, or null when processing ends here
+         */
+        T handle(T item) throws Exception;
+    }
+
+    @Getter
+    private final String name;
+    @Getter
+    private final int workers;
+    @Getter
+    private final int capacity;
+
+    private final BlockingQueue<T> queue;
+    private final Handler<T> handler;
+    private final BiConsumer<T, Exception> onError;
+    private final AtomicInteger busyWorkers = new AtomicInteger();
+    private final List<Thread> threads = new ArrayList<>();
+
+    private PipelineStage<T> next;
+    private volatile boolean running;
+
+    public PipelineStage(String name, int workers, int capacity, Handler<T> handler, BiConsumer<T, Exception> onError) {
+        this.name = name;
+        this.workers = workers;
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.handler = handler;
+        this.onError = onError;
+    }
+
+    public PipelineStage<T> then(PipelineStage<T> next) {
+        this.next = next;
+        return next;
+    }
+
+    public synchronized void start() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(this::runWorker, "pipeline-" + name + "-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        log.info("Pipeline stage started name={} workers={} capacity={}", name, workers, capacity);
+    }
+
+    public synchronized void stop() {
+        running = false;
+        threads.forEach(Thread::interrupt);
+        threads.clear();
+        log.info("Pipeline stage stopped name={} dropped={}", name, queue.size());
+    }
+
+    /**
+     * Blocks while the stage is full.
+     */
+    public void put(T item) throws InterruptedException {
+        queue.put(item);
+    }
+
+    /**
+     * Non-blocking variant for producers that must not stall, returns false when full.
+     */
+    public boolean offer(T item) {
+        return queue.offer(item);
+    }
+
+    public int depth() {
+        return queue.size();
+    }
+
+    public int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    public int busyWorkers() {
+        return busyWorkers.get();
+    }
+
+    private void runWorker() {
+        while (running) {
+            T item;
+            try {
+                item = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            busyWorkers.incrementAndGet();
+            try {
+                T result = handler.handle(item);
+                if (result != null && next != null) {
+                    next.put(result);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Pipeline stage interrupted name={}", name);
+                return;
+            } catch (Exception e) {
+                onError.accept(item, e);
+            } finally {
+                busyWorkers.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.gourav.LedgerLens.Helper;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A signed URL the client can PUT the file to directly, bypassing the API.
+ */
+@Getter
+@Builder
+public class PresignedUpload {
+
+    private final String url;
+
+    // Part of the signature; the client must send them exactly as given
+    private final Map<String, List<String>> signedHeaders;
+
+    private final Instant expiresAt;
+}
@@ -0,0 +1,133 @@
+package com.gourav.LedgerLens.Helper;
+
+import com.gourav.LedgerLens.Exception.RangeNotSatisfiableException;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An open read of a stored object, either streamed from storage as the caller reads it or
+ * served from a local file. When a byte range was requested, contentLength is the length of
+ * that range and contentRange carries the matching "bytes start-end/total" header value.
+ * Close to release the connection or the local copy.
+ */
+@Getter
+@Builder
+public class StoredObject implements AutoCloseable {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    // Exactly one of body and file is set
+    private final InputStream body;
+    private final Path file;
+    private final long position;
+
+    private final String contentType;
+    private final long contentLength;
+    private final String eTag;
+
+    // Null for a full read
+    private final String contentRange;
+
+    // Local copy backing file, closed with this object
+    private final DocumentContent local;
+
+    /**
+     * Serves a single "bytes=" range (or the whole content when range is null) from a local copy.
+     */
+    public static StoredObject fromLocal(DocumentContent local, String range) {
+
+        long total = local.getSize();
+        long start = 0;
+        long end = total - 1;
+        String contentRange = null;
+
+        if (range != null) {
+            Matcher matcher = RANGE.matcher(range.trim());
+            if (matcher.matches() && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                try {
+                    if (matcher.group(1).isEmpty()) {
+                        // Suffix range: the last n bytes
+                        long suffix = Long.parseLong(matcher.group(2));
+                        start = suffix == 0 ? total : Math.max(0, total - suffix);
+                    } else {
+                        start = Long.parseLong(matcher.group(1));
+                        if (!matcher.group(2).isEmpty()) {
+                            end = Math.min(Long.parseLong(matcher.group(2)), total - 1);
+                        }
+                    }
+                } catch (NumberFormatException e) {
+                    throw new RangeNotSatisfiableException("Range not satisfiable: " + range, e);
+                }
+
+                if (start >= total || start > end) {
+                    throw new RangeNotSatisfiableException("Range not satisfiable: " + range, null);
+                }
+                contentRange = "bytes " + start + "-" + end + "/" + total;
+            }
+        }
+
+        long length = end - start + 1;
+        StoredObjectBuilder builder = StoredObject.builder()
+                .contentType(local.getContentType())
+                .contentLength(length)
+                .contentRange(contentRange)
+                .local(local);
+
+        if (local.isSpooled()) {
+            return builder.file(local.getFile()).position(start).build();
+        }
+        return builder.body(new ByteArrayInputStream(local.getBuffer(), (int) start, (int) length)).build();
+    }
+
+    public boolean isPartial() {
+        return contentRange != null;
+    }
+
+    /**
+     * Writes the content to out. Local files go through FileChannel.transferTo, so the bytes
+     * are moved by the kernel rather than read into a heap buffer first.
+     */
+    public void transferTo(OutputStream out) throws IOException {
+
+        if (file == null) {
+            body.transferTo(out);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long next = position;
+            long remaining = contentLength;
+            while (remaining > 0) {
+                long sent = channel.transferTo(next, remaining, target);
+                if (sent <= 0) {
+                    throw new IOException("Local copy is shorter than expected file=" + file);
+                }
+                next += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (body != null) {
+            body.close();
+        }
+        if (local != null) {
+            local.close();
+        }
+    }
+}
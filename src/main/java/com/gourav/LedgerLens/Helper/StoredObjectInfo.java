@@ -0,0 +1,19 @@
+package com.gourav.LedgerLens.Helper;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Metadata of a stored object, independent of the storage backend.
+ */
+@Getter
+@Builder
+public class StoredObjectInfo {
+
+    private final long contentLength;
+    private final Instant lastModified;
+    private final String contentType;
+    private final String eTag;
+}
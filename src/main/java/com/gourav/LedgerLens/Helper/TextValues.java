@@ -0,0 +1,90 @@
+package com.gourav.LedgerLens.Helper;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Finds extracted field values (amounts, dates, invoice numbers) in document text, in the ways
+ * invoices commonly print them.
+ */
+public final class TextValues {
+
+    // Ambiguous day/month layouts are both listed; callers that learn a layout verify it later
+    public static final List<String> DATE_FORMATS = List.of(
+            "uuuu-MM-dd", "dd/MM/uuuu", "MM/dd/uuuu", "dd-MM-uuuu", "dd.MM.uuuu",
+            "MMM d, uuuu", "MMMM d, uuuu", "d MMM uuuu", "d MMMM uuuu", "dd-MMM-uuuu", "MMM dd, uuuu"
+    );
+
+    private TextValues() {
+    }
+
+    /**
+     * "1,234.50" and "1234.50", plus "1,234" and "1234" for whole amounts.
+     */
+    public static List<String> amountRenderings(BigDecimal amount) {
+
+        BigDecimal value = amount.setScale(2, RoundingMode.HALF_UP);
+
+        List<String> renderings = new ArrayList<>(4);
+        renderings.add(new DecimalFormat("#,##0.00", DecimalFormatSymbols.getInstance(Locale.ENGLISH)).format(value));
+        renderings.add(value.toPlainString());
+        if (value.stripTrailingZeros().scale() <= 0) {
+            BigDecimal whole = value.setScale(0, RoundingMode.UNNECESSARY);
+            renderings.add(new DecimalFormat("#,##0", DecimalFormatSymbols.getInstance(Locale.ENGLISH)).format(whole));
+            renderings.add(whole.toPlainString());
+        }
+        return renderings;
+    }
+
+    public static List<String> dateRenderings(LocalDate date) {
+        List<String> renderings = new ArrayList<>(DATE_FORMATS.size());
+        for (String format : DATE_FORMATS) {
+            renderings.add(date.format(dateFormat(format)));
+        }
+        return renderings;
+    }
+
+    public static DateTimeFormatter dateFormat(String pattern) {
+        return new DateTimeFormatterBuilder()
+                .parseCaseInsensitive()
+                .appendPattern(pattern)
+                .toFormatter(Locale.ENGLISH);
+    }
+
+    /**
+     * Next occurrence of the value at or after from that is not part of a longer word or
+     * number, or -1. "500.00" inside "1,500.00" still matches; callers that care check the
+     * text before it.
+     */
+    public static int indexOfValue(String text, String value, int from) {
+        int at;
+        while ((at = text.indexOf(value, from)) >= 0) {
+            if (isBoundary(text, at - 1) && isBoundary(text, at + value.length())) {
+                return at;
+            }
+            from = at + 1;
+        }
+        return -1;
+    }
+
+    public static boolean containsAny(String text, List<String> values) {
+        for (String value : values) {
+            if (indexOfValue(text, value, 0) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBoundary(String text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+    }
+}
@@ -0,0 +1,44 @@
+package com.gourav.LedgerLens.Repository;
+
+import com.gourav.LedgerLens.Domain.Entity.AiExtractionResult;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface AiExtractionResultRepository extends JpaRepository<AiExtractionResult, String> {
+
+    @Query("SELECT r FROM AiExtractionResult r WHERE r.cacheKey = :cacheKey AND r.expiresAt > :now")
+    Optional<AiExtractionResult> findLive(@Param("cacheKey") String cacheKey, @Param("now") LocalDateTime now);
+
+    // Last writer wins; both wrote the response for the same input
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO ai_extraction_results (cache_key, prompt_version, response, expires_at, created_at) " +
+            "VALUES (:cacheKey, :promptVersion, :response, :expiresAt, NOW()) " +
+            "ON DUPLICATE KEY UPDATE prompt_version = VALUES(prompt_version), response = VALUES(response), " +
+            "expires_at = VALUES(expires_at), created_at = NOW()", nativeQuery = true)
+    int upsert(
+            @Param("cacheKey") String cacheKey,
+            @Param("promptVersion") String promptVersion,
+            @Param("response") String response,
+            @Param("expiresAt") LocalDateTime expiresAt
+    );
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AiExtractionResult r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    // Size bound: drops the oldest rows first
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM ai_extraction_results ORDER BY created_at LIMIT :count", nativeQuery = true)
+    int deleteOldest(@Param("count") int count);
+}
@@ -1,9 +1,21 @@
 package com.gourav.LedgerLens.Repository;
 
 import com.gourav.LedgerLens.Domain.Entity.Document;
+import com.gourav.LedgerLens.Domain.Entity.User;
+import com.gourav.LedgerLens.Domain.Enum.processingStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -11,5 +23,39 @@ import java.util.UUID;
 public interface DocumentRepository extends JpaRepository<Document, UUID> {
     Optional<Document> findByPublicId(String publicId);
 
+    Optional<Document> findByPublicIdAndUser(String publicId, User user);
+
     boolean existsByGmailMessageId(String messageId);
+
+    Optional<Document> findByUserAndContentHash(User user, String contentHash);
+
+    @Query("SELECT d.id, d.minHashSignature FROM Document d " +
+            "WHERE d.user.id = :userId AND d.status = :status AND d.minHashSignature IS NOT NULL")
+    List<Object[]> findSignaturesByUserId(@Param("userId") UUID userId, @Param("status") processingStatus status);
+
+    @Modifying
+    @Query("UPDATE Document d SET d.minHashSignature = :signature WHERE d.id = :id")
+    int updateMinHashSignature(@Param("id") UUID id, @Param("signature") byte[] signature);
+
+    @Query("SELECT d FROM Document d JOIN FETCH d.user WHERE d.id = :id")
+    Optional<Document> findWithUserById(@Param("id") UUID id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM Document d JOIN FETCH d.user WHERE d.id = :id")
+    Optional<Document> findByIdForUpdate(@Param("id") UUID id);
+
+    @Modifying
+    @Query("UPDATE Document d SET d.status = :status WHERE d.id IN :ids")
+    int updateStatusByIds(@Param("ids") Collection<UUID> ids, @Param("status") processingStatus status);
+
+    @Query("SELECT d.s3Key FROM Document d WHERE d.createdAt >= :since")
+    List<String> findS3KeysCreatedSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT d.id, d.s3Key FROM Document d ORDER BY d.id")
+    List<Object[]> findS3Keys(Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Document d SET d.s3Key = :s3Key WHERE d.id = :id")
+    int updateS3Key(@Param("id") UUID id, @Param("s3Key") String s3Key);
 }
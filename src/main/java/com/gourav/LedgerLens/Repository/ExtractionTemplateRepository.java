@@ -0,0 +1,9 @@
+package com.gourav.LedgerLens.Repository;
+
+import com.gourav.LedgerLens.Domain.Entity.ExtractionTemplate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ExtractionTemplateRepository extends JpaRepository<ExtractionTemplate, String> {
+}
@@ -0,0 +1,25 @@
+package com.gourav.LedgerLens.Repository;
+
+import com.gourav.LedgerLens.Domain.Entity.PendingUpload;
+import com.gourav.LedgerLens.Domain.Entity.User;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface PendingUploadRepository extends JpaRepository<PendingUpload, UUID> {
+
+    Optional<PendingUpload> findByIdAndUser(UUID id, User user);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PendingUpload p WHERE p.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,44 @@
+package com.gourav.LedgerLens.Repository;
+
+import com.gourav.LedgerLens.Domain.Entity.ProcessingJob;
+import com.gourav.LedgerLens.Domain.Enum.jobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ProcessingJobRepository extends JpaRepository<ProcessingJob, UUID> {
+
+    // Row locks are held until the claiming transaction commits; other nodes skip them instead of waiting
+    @Query(value = "SELECT * FROM processing_jobs WHERE status = 'QUEUED' AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ProcessingJob> lockDueJobs(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM processing_jobs WHERE status = 'RUNNING' AND lease_expires_at < :now " +
+            "LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ProcessingJob> lockExpiredLeases(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Heartbeat: only leases still held under these tokens are extended
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.leaseExpiresAt = :expiresAt " +
+            "WHERE j.status = :status AND j.leaseOwner IN :leaseOwners")
+    int renewLeases(@Param("leaseOwners") Collection<String> leaseOwners,
+                    @Param("expiresAt") LocalDateTime expiresAt,
+                    @Param("status") jobStatus status);
+
+    // A job that a worker already claimed extracts its own text
+    @Modifying
+    @Query("UPDATE ProcessingJob j SET j.extractedText = :text " +
+            "WHERE j.documentId = :documentId AND j.status = :status AND j.extractedText IS NULL")
+    int attachExtractedText(@Param("documentId") UUID documentId, @Param("text") String text, @Param("status") jobStatus status);
+
+    Optional<ProcessingJob> findFirstByDocumentIdOrderByCreatedAtDesc(UUID documentId);
+}
@@ -0,0 +1,22 @@
+package com.gourav.LedgerLens.Repository;
+
+import com.gourav.LedgerLens.Domain.Entity.S3KeyAlias;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface S3KeyAliasRepository extends JpaRepository<S3KeyAlias, String> {
+
+    // Never fails on an existing alias: same key is a no-op, a different key marks the alias ambiguous
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO s3_key_aliases (alias_key, canonical_key, created_at) " +
+            "VALUES (:aliasKey, :canonicalKey, NOW()) " +
+            "ON DUPLICATE KEY UPDATE canonical_key = " +
+            "IF(canonical_key <=> VALUES(canonical_key), canonical_key, NULL)", nativeQuery = true)
+    int upsert(@Param("aliasKey") String aliasKey, @Param("canonicalKey") String canonicalKey);
+}
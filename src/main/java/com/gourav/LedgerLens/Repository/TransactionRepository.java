@@ -24,4 +24,9 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
     Page<Transaction> findByCategoryKeywordAndUser(@Param("keyword") String keyword, @Param("user") User user, Pageable pageable);
 
     Page<Transaction> findByUserAndTransactionType(User loggedInUser, String expense, Pageable pageable);
+
+    // Transactions extracted from one document
+    @Query("SELECT t FROM Transaction t WHERE t.documentPublicId = " +
+            "(SELECT d.publicId FROM Document d WHERE d.id = :documentId)")
+    List<Transaction> findByDocumentId(@Param("documentId") UUID documentId);
 }
@@ -0,0 +1,16 @@
+package com.gourav.LedgerLens.Service;
+
+import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
+
+import java.util.List;
+
+public interface AiResponseParserService {
+
+    /**
+     * Binds a model response (one transaction object or an array of them, possibly wrapped in
+     * prose or a code fence) straight into DTOs in one pass. Complete array elements before a
+     * truncation point are kept. Empty when the response holds no usable JSON, or when a
+     * complete element fails to bind.
+     */
+    List<CreateTransactionDto> parseTransactions(String rawAiResponse);
+}
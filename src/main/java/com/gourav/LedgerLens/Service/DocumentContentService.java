@@ -0,0 +1,22 @@
+package com.gourav.LedgerLens.Service;
+
+import com.gourav.LedgerLens.Helper.DocumentContent;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+public interface DocumentContentService {
+
+    DocumentContent fromMultipart(MultipartFile file) throws IOException;
+
+    DocumentContent fromStream(InputStream in, String fileName, String contentType) throws IOException;
+
+    DocumentContent fromBytes(byte[] content, String fileName, String contentType) throws IOException;
+
+    /**
+     * Empty temp file in the spool directory, for writers that fill it themselves.
+     */
+    Path createSpoolFile() throws IOException;
+}
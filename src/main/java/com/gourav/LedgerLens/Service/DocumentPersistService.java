@@ -0,0 +1,29 @@
+package com.gourav.LedgerLens.Service;
+
+import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
+import com.gourav.LedgerLens.Domain.Entity.Document;
+import com.gourav.LedgerLens.Domain.Entity.User;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface DocumentPersistService {
+    /**
+     * @param extractedText text parsed from the upload, or null to have the worker extract it from R2
+     */
+    Document registerUpload(User user, String s3Key, String originalFileName, String contentHash, String extractedText);
+
+    void completeDocument(UUID documentId, List<CreateTransactionDto> transactions);
+
+    void markDuplicate(UUID documentId, UUID originalId);
+
+    /**
+     * Sends a FAILED document, or a DUPLICATE one when overrideDuplicate is set, back through
+     * processing. Other documents are returned unchanged.
+     */
+    Document reprocess(UUID documentId, boolean overrideDuplicate);
+
+    Document saveAttachmentDocument(User user, String s3Key, String attachmentName, String messageId, String contentHash, List<CreateTransactionDto> transactions);
+
+    Document saveDuplicateAttachment(User user, String s3Key, String attachmentName, String messageId, String contentHash, UUID originalId);
+}
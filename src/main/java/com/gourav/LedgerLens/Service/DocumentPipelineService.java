@@ -0,0 +1,24 @@
+package com.gourav.LedgerLens.Service;
+
+import com.gourav.LedgerLens.Domain.Entity.ProcessingJob;
+
+import java.util.Set;
+
+public interface DocumentPipelineService {
+
+    /**
+     * Number of jobs the first stage can accept right now without blocking.
+     */
+    int availableCapacity();
+
+    /**
+     * Hands a claimed job to the pipeline, returns false when the first stage is full.
+     * The job's leaseOwner is its lease token and travels with it through every stage.
+     */
+    boolean submit(ProcessingJob job);
+
+    /**
+     * Lease tokens of the jobs queued or running in any stage, for the lease heartbeat.
+     */
+    Set<String> inFlightLeases();
+}
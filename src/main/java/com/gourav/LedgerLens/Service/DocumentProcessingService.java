@@ -0,0 +1,7 @@
+package com.gourav.LedgerLens.Service;
+
+import java.util.UUID;
+
+public interface DocumentProcessingService {
+    void enqueue(UUID documentId);
+}
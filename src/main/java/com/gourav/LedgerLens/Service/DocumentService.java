@@ -1,5 +1,7 @@
 package com.gourav.LedgerLens.Service;
 
+import com.gourav.LedgerLens.Domain.Dtos.PresignUploadRequest;
+import com.gourav.LedgerLens.Domain.Dtos.PresignedUploadDto;
 import com.gourav.LedgerLens.Domain.Entity.Document;
 import com.gourav.LedgerLens.Domain.Entity.Transaction;
 import org.springframework.data.domain.Page;
@@ -7,16 +9,35 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.gourav.LedgerLens.Domain.Entity.User;
+import com.gourav.LedgerLens.Helper.StoredObject;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.UUID;
 
 
 public interface DocumentService {
 
-    void uploadFile(MultipartFile file, User loggedInUser) throws Exception;
+    Document uploadFile(MultipartFile file, User loggedInUser) throws Exception;
 
     List<Document> getAllDocument();
 
-    byte[] viewDocument(String publicId) throws IOException;
+    /**
+     * Issues a presigned PUT straight to R2; the file bytes never pass through this server.
+     */
+    PresignedUploadDto createDirectUpload(User loggedInUser, PresignUploadRequest request);
+
+    /**
+     * Checks the object now in R2 against the issued upload, then registers and queues the document.
+     */
+    Document completeDirectUpload(User loggedInUser, UUID uploadId) throws IOException;
+
+    Document getDocument(String publicId);
+
+    /**
+     * Streams the stored file; range is the request's Range header or null.
+     */
+    StoredObject viewDocument(Document document, String range) throws IOException;
+
+    Document getDocumentStatus(String publicId, User loggedInUser);
 }
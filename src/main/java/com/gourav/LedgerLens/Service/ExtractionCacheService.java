@@ -0,0 +1,23 @@
+package com.gourav.LedgerLens.Service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ExtractionCacheService {
+
+    /**
+     * Cache key for a model input: SHA-256 of the prompt version, the owner's id and the text with
+     * whitespace normalized, so re-extractions of the same document map to the same entry. The id,
+     * not the name, scopes entries: names are neither unique nor stable.
+     */
+    String key(String promptVersion, UUID ownerId, String extractedText);
+
+    /**
+     * Raw AI response for the key, from memory or the database tier.
+     */
+    Optional<String> get(String key);
+
+    void put(String key, String promptVersion, String response);
+
+    void evict(String key);
+}
@@ -1,9 +1,35 @@
 package com.gourav.LedgerLens.Service;
 
 import com.gourav.LedgerLens.Domain.Entity.User;
+import com.gourav.LedgerLens.Helper.AiExtractionRequest;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public interface GeminiAiService {
     String extractTextToTransaction(String extractedText, User loggedInUser) throws IOException;
+
+    /**
+     * The response a previous extraction of the same text for this user got, if still cached.
+     */
+    Optional<String> findCached(String extractedText, User owner);
+
+    /**
+     * Caches a response for the text. Callers only do this once the response has been parsed
+     * and validated, so a malformed answer is never replayed to retries or reprocessing.
+     */
+    void cacheResult(String extractedText, User owner, String rawAiResponse);
+
+    /**
+     * Drops a cached response that turned out to be unusable, so the next attempt asks the model.
+     */
+    void evictCached(String extractedText, User owner);
+
+    /**
+     * Extracts several documents in one model call; callers check findCached first. Returns each document's JSON by request id;
+     * documents the model skipped or returned malformed are missing from the map.
+     */
+    Map<String, String> extractTransactionsBatch(List<AiExtractionRequest> requests) throws IOException;
 }
@@ -0,0 +1,14 @@
+package com.gourav.LedgerLens.Service;
+
+import com.gourav.LedgerLens.Domain.Entity.User;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface GeminiBatchService {
+
+    /**
+     * Queues the document for the owner's next batched model call and completes with its raw AI response,
+     * the same as a single-document call would return. Blocks while too many documents are waiting.
+     */
+    CompletableFuture<String> submit(String extractedText, User owner) throws InterruptedException;
+}
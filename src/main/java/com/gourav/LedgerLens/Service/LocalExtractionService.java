@@ -0,0 +1,21 @@
+package com.gourav.LedgerLens.Service;
+
+import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
+import com.gourav.LedgerLens.Domain.Entity.User;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface LocalExtractionService {
+
+    /**
+     * Runs the extractor chain over the text. Empty when no extractor is confident, in which
+     * case the caller goes to the AI model as before.
+     */
+    Optional<List<CreateTransactionDto>> extract(String extractedText, User owner);
+
+    /**
+     * Hands an AI extraction result to every extractor that learns from the model.
+     */
+    void learn(String extractedText, User owner, List<CreateTransactionDto> transactions);
+}
@@ -0,0 +1,23 @@
+package com.gourav.LedgerLens.Service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface NearDuplicateService {
+
+    /**
+     * @return the MinHash signature of the text, or null when there is nothing to compare
+     */
+    int[] fingerprint(String extractedText);
+
+    /**
+     * Looks up the user's completed documents for one whose text is near-identical and whose
+     * transactions (total, date, invoice number) all appear in this text.
+     */
+    Optional<UUID> findNearDuplicate(UUID userId, int[] signature, String extractedText);
+
+    /**
+     * Stores the signature of a completed document and makes it matchable.
+     */
+    void register(UUID userId, UUID documentId, int[] signature);
+}
@@ -0,0 +1,24 @@
+package com.gourav.LedgerLens.Service;
+
+import com.gourav.LedgerLens.Helper.DocumentContent;
+
+import java.io.IOException;
+import java.util.Optional;
+
+public interface ObjectCacheService {
+
+    boolean isEnabled();
+
+    /**
+     * Local copy of the object: from write-back staging, from the disk cache, or downloaded from storage on a miss and
+     * admitted to the cache. Concurrent misses on the same key share one download.
+     * Close the result when done; cached files stay on disk.
+     */
+    DocumentContent open(String key, String fileName) throws IOException;
+
+    /**
+     * Local copy if the object is staged or cached, without downloading it. On a miss the
+     * cache is filled in the background and the caller streams from storage meanwhile.
+     */
+    Optional<DocumentContent> openIfCached(String key, String fileName) throws IOException;
+}
@@ -0,0 +1,19 @@
+package com.gourav.LedgerLens.Service;
+
+import com.gourav.LedgerLens.Helper.DocumentContent;
+
+import java.io.IOException;
+
+public interface PdfTextExtractService {
+
+    /**
+     * True when the fast path is enabled and the content starts with the PDF magic bytes.
+     */
+    boolean isPdf(DocumentContent content) throws IOException;
+
+    /**
+     * Text layer of the PDF, page by page, capped at maxChars.
+     * Throws ExtractionTimeoutException when deadlineNanos (System.nanoTime based) passes.
+     */
+    String extractText(DocumentContent content, int maxChars, long deadlineNanos) throws IOException;
+}
@@ -1,11 +1,24 @@
 package com.gourav.LedgerLens.Service;
 
+import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
+import com.gourav.LedgerLens.Domain.Entity.Document;
 import com.gourav.LedgerLens.Domain.Entity.User;
+import com.gourav.LedgerLens.Helper.DocumentContent;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public interface ProcessDocumentService {
-    void processDocument(UUID id, User loggedInUser);
-    void processAttachment(byte[] filesBytes, String userEmail, String attachName, String contentType, String messageId) throws Exception;
+    Document loadForProcessing(UUID documentId);
+    String extractText(Document document) throws IOException;
+    int[] fingerprint(String extractedText);
+    boolean markIfNearDuplicate(Document document, int[] signature, String extractedText);
+    List<CreateTransactionDto> extractTransactions(String extractedText, User owner) throws IOException;
+    CompletableFuture<List<CreateTransactionDto>> extractTransactionsBatched(String extractedText, User owner) throws InterruptedException;
+    void persistResult(Document document, List<CreateTransactionDto> transactions, int[] signature) throws IOException;
+
+    void processDocument(UUID documentId);
+    void processAttachment(DocumentContent content, String userEmail, String messageId) throws Exception;
 }
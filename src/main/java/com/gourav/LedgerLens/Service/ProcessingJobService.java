@@ -0,0 +1,45 @@
+package com.gourav.LedgerLens.Service;
+
+import com.gourav.LedgerLens.Domain.Entity.ProcessingJob;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ProcessingJobService {
+    ProcessingJob enqueue(UUID documentId);
+
+    /**
+     * Queues a job whose text has already been extracted, so the worker skips the R2 download.
+     */
+    ProcessingJob enqueue(UUID documentId, String extractedText);
+
+    /**
+     * Hands text parsed after the job was queued to the worker, if no worker has claimed the job yet.
+     */
+    void attachExtractedText(UUID documentId, String extractedText);
+
+    /**
+     * Puts a finished or dead document back in the queue with a fresh attempt budget.
+     */
+    ProcessingJob requeue(UUID documentId, boolean skipNearDuplicate);
+
+    /**
+     * Claims due jobs for this node. Each claimed job gets its own lease token in leaseOwner
+     * (the node id plus a random suffix); later calls for the job must pass that token.
+     */
+    List<ProcessingJob> claim(String nodeId, int limit);
+
+    /**
+     * Pushes the lease expiry of the given claims forward, returns how many are still held.
+     */
+    int renewLeases(Collection<String> leaseOwners);
+
+    void markSucceeded(UUID jobId, String leaseOwner);
+
+    void markFailed(UUID jobId, String leaseOwner, Exception error);
+
+    void release(UUID jobId, String leaseOwner);
+
+    int requeueExpiredLeases();
+}
@@ -0,0 +1,30 @@
+package com.gourav.LedgerLens.Service;
+
+import java.io.IOException;
+import java.util.Optional;
+
+public interface S3KeyResolverService {
+
+    /**
+     * Trims, converts backslashes, strips leading slashes, reduces a stored URL to its last
+     * path segment and URL-decodes, so keys saved in older formats compare equal.
+     */
+    String normalize(String key);
+
+    /**
+     * Canonical object key for a key that was not found as-is, from the alias index.
+     */
+    Optional<String> resolve(String key);
+
+    /**
+     * Indexes an object key that exists in the bucket under its own name and its file name, and
+     * a legacy "<uuid>-<name>" key also under the original name.
+     */
+    void register(String canonicalKey);
+
+    /**
+     * One-off: indexes every object in the bucket, then rewrites document keys that only
+     * resolve through an alias. Returns the number of documents updated.
+     */
+    int backfill() throws IOException;
+}
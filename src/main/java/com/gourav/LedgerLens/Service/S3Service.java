@@ -1,11 +1,60 @@
 package com.gourav.LedgerLens.Service;
 
-import org.springframework.web.multipart.MultipartFile;
+import com.gourav.LedgerLens.Helper.DocumentContent;
+import com.gourav.LedgerLens.Helper.PresignedUpload;
+import com.gourav.LedgerLens.Helper.StoredObject;
+import com.gourav.LedgerLens.Helper.StoredObjectInfo;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Consumer;
 
+/**
+ * Object storage SPI. The R2 implementation is the default; the local-storage profile swaps in
+ * a file-system one. Keys mean the same in both, so data can move between them as-is.
+ * Reads of a missing key throw StoredObjectNotFoundException.
+ */
 public interface S3Service {
 
-    String uploadFile(MultipartFile file) throws IOException;
-    byte[] viewFile(String fileName) throws IOException;
+    /**
+     * Stores the file under a key derived from its SHA-256, skipping the upload when that object already exists.
+     */
+    String uploadFile(DocumentContent content, String contentHash) throws IOException;
+
+    /**
+     * Opens the object for streaming. range is an HTTP Range value ("bytes=0-1023") or null for
+     * the whole object; the returned body is read straight from storage, never buffered whole.
+     */
+    StoredObject openFile(String fileName, String range) throws IOException;
+
+    /**
+     * Downloads the whole object to a spool file over the async client, for callers that need a
+     * large object on disk (random access, several passes). Close the result to delete the file.
+     */
+    DocumentContent downloadFile(String key, String fileName) throws IOException;
+
+    /**
+     * Content-addressed key for a SHA-256 hex digest.
+     */
+    default String keyFor(String contentHash) {
+        // Two-character prefix keeps listings of the bucket browsable
+        return "sha256/" + contentHash.substring(0, 2) + "/" + contentHash;
+    }
+
+    /**
+     * Presigned PUT for exactly this key, type, length and SHA-256; storage rejects anything else.
+     * Throws DirectUploadNotSupportedException on backends clients cannot write to directly.
+     */
+    PresignedUpload presignUpload(String key, String contentType, long size, String contentHash, Duration ttl);
+
+    /**
+     * Object metadata, or empty when the key does not exist.
+     */
+    Optional<StoredObjectInfo> headFile(String key) throws IOException;
+
+    /**
+     * Calls action with every stored key, paging through the listing.
+     */
+    void forEachKey(Consumer<String> action) throws IOException;
 }
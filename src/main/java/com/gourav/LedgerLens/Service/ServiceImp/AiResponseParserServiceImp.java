@@ -0,0 +1,114 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
+import com.gourav.LedgerLens.Service.AiResponseParserService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass parser for model responses. Instead of locating the JSON with regexes and then
+ * parsing it twice (tree, string, DTO), it skips to the first '{' or '[' and binds tokens
+ * straight into CreateTransactionDto with the streaming parser. Trailing prose or a closing
+ * code fence is never read, and a response cut off mid-array keeps every element that closed.
+ * Only a real end of input counts as a cut: an element that is complete but does not bind
+ * (a bad date, a string where a number belongs) fails the whole response, as it always did.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AiResponseParserServiceImp implements AiResponseParserService {
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public List<CreateTransactionDto> parseTransactions(String rawAiResponse) {
+
+        if (rawAiResponse == null || rawAiResponse.isBlank()) {
+            log.warn("Empty or null AI response");
+            return count(List.of(), "empty");
+        }
+
+        int start = jsonStart(rawAiResponse);
+        if (start < 0) {
+            log.warn("No JSON found in AI response: {}", rawAiResponse.substring(0, Math.min(100, rawAiResponse.length())));
+            return count(List.of(), "empty");
+        }
+
+        List<CreateTransactionDto> transactions = new ArrayList<>();
+        char[] chars = rawAiResponse.toCharArray();
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(chars, start, chars.length - start)) {
+
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                transactions.add(objectMapper.readValue(parser, CreateTransactionDto.class));
+                return count(transactions, "complete");
+            }
+
+            // Array: bind element by element so a truncation only loses the unfinished one
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    log.warn("AI response array truncated, salvaged={} elements", transactions.size());
+                    return count(transactions, "salvaged");
+                }
+                if (token == JsonToken.START_OBJECT) {
+                    transactions.add(objectMapper.readValue(parser, CreateTransactionDto.class));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return count(transactions, "complete");
+
+        } catch (IOException e) {
+            if (transactions.isEmpty() || !endOfInput(e)) {
+                // Keeping the elements before a bad one would complete the document without the rest
+                log.warn("Unparseable AI response parsed={} error={}", transactions.size(), e.getMessage());
+                return count(List.of(), "failed");
+            }
+            log.warn("AI response cut off mid-element, salvaged={} elements error={}", transactions.size(), e.getMessage());
+            return count(transactions, "salvaged");
+        }
+    }
+
+    /**
+     * True when the parser ran out of input. Databind wraps the parser's exception when the cut
+     * falls inside an element, so the cause chain is checked too.
+     */
+    private boolean endOfInput(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof JsonEOFException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int jsonStart(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '{' || c == '[') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private List<CreateTransactionDto> count(List<CreateTransactionDto> transactions, String result) {
+        meterRegistry.counter("ledgerlens.ai_response.parses", "result", result).increment();
+        return transactions;
+    }
+}
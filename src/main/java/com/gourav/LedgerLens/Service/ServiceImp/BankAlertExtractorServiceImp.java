@@ -0,0 +1,227 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
+import com.gourav.LedgerLens.Domain.Entity.User;
+import com.gourav.LedgerLens.Service.TransactionExtractorService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads bank and UPI alert messages ("Rs 500 debited via UPI to X on 12-09-25") with
+ * precompiled pattern packs, one per issuer. Alerts are short and rigidly worded, so a full
+ * match of amount, direction, counterparty and date is trusted as is; anything longer than
+ * max-chars, matched more than once, or with a field that does not parse goes to the model.
+ */
+@Service
+@Order(1)
+@RequiredArgsConstructor
+@Slf4j
+public class BankAlertExtractorServiceImp implements TransactionExtractorService {
+
+    private static final String AMOUNT = "(?:Rs\\.?|INR|₹) ?(?<amount>\\d[\\d,]*(?:\\.\\d{1,2})?)";
+    private static final String BARE_AMOUNT = "(?<amount>\\d[\\d,]*(?:\\.\\d{1,2})?)";
+    private static final String DATE = "(?<date>\\d{1,2}[-/]\\d{1,2}[-/]\\d{2,4}|\\d{1,2}[- ]?[A-Za-z]{3}[- ]?\\d{2,4})";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            dateFormat("d-M-uu"), dateFormat("d-M-uuuu"),
+            dateFormat("d/M/uu"), dateFormat("d/M/uuuu"),
+            dateFormat("d-MMM-uu"), dateFormat("d-MMM-uuuu"),
+            dateFormat("dMMMuu"), dateFormat("dMMMuuuu"),
+            dateFormat("d MMM uu"), dateFormat("d MMM uuuu")
+    );
+
+    /**
+     * One issuer: the marker must appear somewhere in the alert before its rules are tried.
+     */
+    private record Pack(String issuer, Pattern marker, List<Rule> rules) {
+    }
+
+    /**
+     * Named groups: amount, date and party are required; direction (debited/credited), vpa and
+     * ref are optional. Without a direction group the rule's fixed type applies.
+     */
+    private record Rule(Pattern pattern, String transactionType) {
+    }
+
+    private static final List<Pack> PACKS = List.of(
+            new Pack("HDFC", marker("HDFC"), List.of(
+                    new Rule(rule(AMOUNT + " has been debited from (?:account|a/c) \\S+ to VPA (?<vpa>\\S+) (?<party>.*?) ?on "
+                            + DATE + "\\.(?:.*?reference number is (?<ref>\\d+))?"), "EXPENSE"),
+                    new Rule(rule(AMOUNT + " is successfully credited to your account \\S+ by VPA (?<vpa>\\S+) (?<party>.*?) ?on "
+                            + DATE + "\\.(?:.*?reference number is (?<ref>\\d+))?"), "INCOME")
+            )),
+            new Pack("ICICI", marker("ICICI"), List.of(
+                    new Rule(rule("Acc(?:oun)?t \\S+ debited (?:for|with) " + AMOUNT + " on " + DATE
+                            + ";? (?<party>.+?) credited\\.(?: UPI: ?(?<ref>\\d+))?"), "EXPENSE"),
+                    new Rule(rule("Acc(?:oun)?t \\S+ is credited with " + AMOUNT + " on " + DATE
+                            + " from (?<party>.+?)\\.(?: UPI: ?(?<ref>\\d+))?"), "INCOME")
+            )),
+            new Pack("SBI", marker("SBI"), List.of(
+                    new Rule(rule("A/C \\S+ debited by " + BARE_AMOUNT + " on date " + DATE
+                            + " trf to (?<party>.+?) Ref ?no (?<ref>\\d+)"), "EXPENSE"),
+                    new Rule(rule("A/c \\S+?-? ?credited by " + AMOUNT + " on " + DATE
+                            + " transfer from (?<party>.+?) Ref No (?<ref>\\d+)"), "INCOME")
+            )),
+            new Pack("AXIS", marker("Axis"), List.of(
+                    new Rule(rule(AMOUNT + " (?<direction>debited|credited) (?:to )?A/c no\\. \\S+ " + DATE
+                            + "(?:, [\\d:]+)? UPI/P2[AM]/(?<ref>\\d+)/(?<party>[^/]+?)(?:/| Not you|$)"), "EXPENSE")
+            )),
+            // Issuer-neutral wording used by many smaller banks and payment apps
+            new Pack("UPI", marker("UPI"), List.of(
+                    new Rule(rule(AMOUNT + " (?:has been |is )?(?<direction>debited|credited)(?: (?:from|to) [^.]*?)? (?:via|by|through) UPI"
+                            + " (?:to|from) (?<party>.+?) on " + DATE + "(?:.*?Ref(?:erence)?(?: No\\.?| number)?:? ?(?<ref>\\d{6,}))?"), "EXPENSE")
+            ))
+    );
+
+    private final MeterRegistry meterRegistry;
+
+    // Real alerts are a few hundred characters; anything longer is a statement or an invoice
+    @Value("${local-extraction.bank-alerts.max-chars:1500}")
+    private int maxChars;
+
+    @Override
+    public String name() {
+        return "bank-alert";
+    }
+
+    @Override
+    public Optional<List<CreateTransactionDto>> extract(String extractedText, User owner) {
+
+        if (extractedText.length() > maxChars) {
+            return Optional.empty();
+        }
+
+        String text = WHITESPACE.matcher(extractedText).replaceAll(" ").trim();
+
+        for (Pack pack : PACKS) {
+            if (!pack.marker().matcher(text).find()) {
+                continue;
+            }
+            for (Rule rule : pack.rules()) {
+                Matcher matcher = rule.pattern().matcher(text);
+                if (!matcher.find()) {
+                    continue;
+                }
+
+                Optional<CreateTransactionDto> transaction = toTransaction(pack, rule, matcher);
+
+                // A second match means a digest or statement, which the model handles better
+                if (transaction.isEmpty() || matcher.find()) {
+                    meterRegistry.counter("ledgerlens.bank_alert.matches", "issuer", pack.issuer(), "result", "rejected").increment();
+                    log.info("Bank alert match rejected issuer={} userId={}", pack.issuer(), owner.getId());
+                    return Optional.empty();
+                }
+
+                meterRegistry.counter("ledgerlens.bank_alert.matches", "issuer", pack.issuer(), "result", "accepted").increment();
+                return Optional.of(List.of(transaction.get()));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private Optional<CreateTransactionDto> toTransaction(Pack pack, Rule rule, Matcher matcher) {
+
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(matcher.group("amount").replace(",", ""));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+        if (amount.signum() <= 0) {
+            return Optional.empty();
+        }
+
+        LocalDate date = parseDate(matcher.group("date"));
+        if (date == null || date.isAfter(LocalDate.now().plusDays(1))) {
+            return Optional.empty();
+        }
+
+        String party = clean(matcher.group("party"));
+        if (party.isEmpty()) {
+            party = clean(group(matcher, "vpa"));
+        }
+        if (party.isEmpty() || party.length() > 80) {
+            return Optional.empty();
+        }
+
+        String direction = group(matcher, "direction");
+        String transactionType = direction == null
+                ? rule.transactionType()
+                : direction.equalsIgnoreCase("credited") ? "INCOME" : "EXPENSE";
+
+        CreateTransactionDto transaction = new CreateTransactionDto();
+        transaction.setClient(party);
+        transaction.setTxnDate(date);
+        transaction.setAmountAfterTax(amount);
+        transaction.setCurrency("INR");
+        transaction.setCategory("OTHER");
+        transaction.setTransactionType(transactionType);
+        transaction.setPaymentMethod("UPI");
+        transaction.setInvoiceNumber(group(matcher, "ref"));
+        transaction.setNotes("Read from " + pack.issuer() + " alert");
+        return Optional.of(transaction);
+    }
+
+    private LocalDate parseDate(String value) {
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(value, format);
+            } catch (DateTimeParseException ignored) {
+                // try the next layout
+            }
+        }
+        return null;
+    }
+
+    private String clean(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replaceAll("[\\s.,;:-]+$", "").trim();
+    }
+
+    // Optional groups are not declared by every rule
+    private String group(Matcher matcher, String name) {
+        try {
+            return matcher.group(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Pattern marker(String issuer) {
+        return Pattern.compile("\\b" + issuer + "\\b", Pattern.CASE_INSENSITIVE);
+    }
+
+    private static Pattern rule(String regex) {
+        return Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+    }
+
+    private static DateTimeFormatter dateFormat(String pattern) {
+        return new DateTimeFormatterBuilder()
+                .parseCaseInsensitive()
+                .appendPattern(pattern)
+                .toFormatter(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,67 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Helper.DocumentContent;
+import com.gourav.LedgerLens.Service.DocumentContentService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@Service
+@Slf4j
+public class DocumentContentServiceImp implements DocumentContentService {
+
+    // Documents at or below this size stay on the heap, larger ones go to a temp file
+    @Value("${document.content.spool-threshold-bytes:1048576}")
+    private int spoolThreshold;
+
+    @Value("${document.content.spool-dir:${java.io.tmpdir}}")
+    private Path spoolDir;
+
+    @Override
+    public DocumentContent fromMultipart(MultipartFile file) throws IOException {
+
+        if (file.getSize() <= spoolThreshold) {
+            return DocumentContent.inMemory(file.getBytes(), file.getOriginalFilename(), file.getContentType());
+        }
+
+        // Copied rather than moved with transferTo: the one pass over the part also yields its SHA-256
+        DocumentContent content;
+        try (InputStream in = file.getInputStream()) {
+            content = DocumentContent.read(in, file.getOriginalFilename(), file.getContentType(), spoolThreshold, spoolDir);
+        }
+
+        log.debug("Upload spooled to disk name={} size={} bytes", file.getOriginalFilename(), content.getSize());
+        return content;
+    }
+
+    @Override
+    public DocumentContent fromStream(InputStream in, String fileName, String contentType) throws IOException {
+        return DocumentContent.read(in, fileName, contentType, spoolThreshold, spoolDir);
+    }
+
+    @Override
+    public DocumentContent fromBytes(byte[] content, String fileName, String contentType) throws IOException {
+
+        if (content.length <= spoolThreshold) {
+            return DocumentContent.inMemory(content, fileName, contentType);
+        }
+
+        // Caller drops its array after this, so the document's lifetime on the heap ends here
+        Path target = createSpoolFile();
+        Files.write(target, content);
+        return DocumentContent.spooled(target, fileName, contentType);
+    }
+
+    @Override
+    public Path createSpoolFile() throws IOException {
+        return Files.createTempFile(spoolDir, "ledgerlens-", ".spool");
+    }
+}
@@ -0,0 +1,203 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
+import com.gourav.LedgerLens.Domain.Entity.Document;
+import com.gourav.LedgerLens.Domain.Entity.User;
+import com.gourav.LedgerLens.Domain.Enum.processingStatus;
+import com.gourav.LedgerLens.Repository.DocumentRepository;
+import com.gourav.LedgerLens.Service.DocumentPersistService;
+import com.gourav.LedgerLens.Service.ProcessingJobService;
+import com.gourav.LedgerLens.Service.TransactionService;
+
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Short write transactions for the document pipeline.
+ * Callers do all remote work (R2, Tika, Gemini) before calling in here,
+ * so a pooled connection is only held for the inserts themselves.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentPersistServiceImp implements DocumentPersistService {
+
+    private final DocumentRepository documentRepository;
+    private final TransactionService transactionService;
+    private final ProcessingJobService processingJobService;
+
+    @Override
+    @Transactional
+    public Document registerUpload(
+            User user,
+            String s3Key,
+            String originalFileName,
+            String contentHash,
+            String extractedText
+    ) {
+
+        Document document = Document.builder()
+                .s3Key(s3Key)
+                .originalFileName(originalFileName)
+                .contentHash(contentHash)
+                .user(user)
+                .status(processingStatus.UPLOADED)
+                .build();
+
+        // Flush now so a concurrent duplicate fails on the (user, content_hash) key before a job is queued
+        Document saved = documentRepository.saveAndFlush(document);
+
+        // Same transaction: a document is never visible without its processing job
+        processingJobService.enqueue(saved.getId(), extractedText);
+
+        log.info(
+                "Document saved id={} publicId={} status={}",
+                saved.getId(),
+                saved.getPublicId(),
+                saved.getStatus()
+        );
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public void completeDocument(UUID documentId, List<CreateTransactionDto> transactions) {
+
+        // Row lock so two workers finishing the same document cannot both insert transactions
+        Document document = documentRepository.findByIdForUpdate(documentId)
+                .orElseThrow(() ->
+                        new EntityNotFoundException(
+                                "Document not found with ID: " + documentId
+                        )
+                );
+
+        if (document.getStatus() == processingStatus.COMPLETED) {
+            log.info("Document already completed, skipping persist documentId={}", documentId);
+            return;
+        }
+
+        transactionService.createExtractedTransactions(
+                transactions,
+                document.getUser(),
+                document
+        );
+
+        document.setStatus(processingStatus.COMPLETED);
+        documentRepository.save(document);
+
+        log.info("Document results persisted documentId={}", documentId);
+    }
+
+    @Override
+    @Transactional
+    public void markDuplicate(UUID documentId, UUID originalId) {
+
+        Document document = documentRepository.findById(documentId)
+                .orElseThrow(() ->
+                        new EntityNotFoundException(
+                                "Document not found with ID: " + documentId
+                        )
+                );
+
+        document.setStatus(processingStatus.DUPLICATE);
+        document.setDuplicateOfId(originalId);
+        documentRepository.save(document);
+
+        log.info("Document marked duplicate documentId={} originalId={}", documentId, originalId);
+    }
+
+    @Override
+    @Transactional
+    public Document reprocess(UUID documentId, boolean overrideDuplicate) {
+
+        // Row lock so two concurrent re-uploads requeue the document once
+        Document document = documentRepository.findByIdForUpdate(documentId)
+                .orElseThrow(() ->
+                        new EntityNotFoundException(
+                                "Document not found with ID: " + documentId
+                        )
+                );
+
+        boolean duplicate = document.getStatus() == processingStatus.DUPLICATE;
+        if (document.getStatus() != processingStatus.FAILED && !(duplicate && overrideDuplicate)) {
+            return document;
+        }
+
+        log.info("Reprocessing document documentId={} previousStatus={}", documentId, document.getStatus());
+
+        document.setStatus(processingStatus.UPLOADED);
+        document.setDuplicateOfId(null);
+        Document saved = documentRepository.save(document);
+
+        processingJobService.requeue(documentId, duplicate);
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public Document saveAttachmentDocument(
+            User user,
+            String s3Key,
+            String attachmentName,
+            String messageId,
+            String contentHash,
+            List<CreateTransactionDto> transactions
+    ) {
+
+        Document document = Document.builder()
+                .s3Key(s3Key)
+                .originalFileName(attachmentName)
+                .contentHash(contentHash)
+                .user(user)
+                .status(processingStatus.COMPLETED)
+                .gmailMessageId(messageId)
+                .build();
+
+        Document saved = documentRepository.saveAndFlush(document);
+
+        transactionService.createExtractedTransactions(
+                transactions,
+                user,
+                saved
+        );
+
+        log.info("Attachment document persisted publicId={} messageId={}", saved.getPublicId(), messageId);
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public Document saveDuplicateAttachment(
+            User user,
+            String s3Key,
+            String attachmentName,
+            String messageId,
+            String contentHash,
+            UUID originalId
+    ) {
+
+        // Kept so the user can see the email was received, but no transactions are created
+        Document document = Document.builder()
+                .s3Key(s3Key)
+                .originalFileName(attachmentName)
+                .contentHash(contentHash)
+                .user(user)
+                .status(processingStatus.DUPLICATE)
+                .duplicateOfId(originalId)
+                .gmailMessageId(messageId)
+                .build();
+
+        Document saved = documentRepository.saveAndFlush(document);
+
+        log.info("Duplicate attachment recorded publicId={} originalId={}", saved.getPublicId(), originalId);
+        return saved;
+    }
+}
@@ -0,0 +1,256 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
+import com.gourav.LedgerLens.Domain.Entity.Document;
+import com.gourav.LedgerLens.Domain.Entity.ProcessingJob;
+import com.gourav.LedgerLens.Helper.DocumentWorkItem;
+import com.gourav.LedgerLens.Helper.PipelineStage;
+import com.gourav.LedgerLens.Service.DocumentPipelineService;
+import com.gourav.LedgerLens.Service.ProcessDocumentService;
+import com.gourav.LedgerLens.Service.ProcessingJobService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs claimed jobs through three stages, each with its own workers and bounded queue:
+ * extract (R2 download + Tika, unless the upload already carried the text), ai (Gemini,
+ * batched across documents unless gemini.batch.enabled=false) and persist (DB write).
+ * Stages are sized independently so slow Gemini calls do not hold extraction threads idle,
+ * and a full downstream queue blocks the stage feeding it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentPipelineServiceImp implements DocumentPipelineService {
+
+    private final ProcessDocumentService processDocumentService;
+    private final ProcessingJobService processingJobService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${document.pipeline.extract.workers:2}")
+    private int extractWorkers;
+
+    @Value("${document.pipeline.extract.queue-capacity:20}")
+    private int extractCapacity;
+
+    @Value("${document.pipeline.ai.workers:4}")
+    private int aiWorkers;
+
+    @Value("${document.pipeline.ai.queue-capacity:20}")
+    private int aiCapacity;
+
+    // AI workers hand documents to the batcher and move on; results reach persist as batches return
+    @Value("${gemini.batch.enabled:true}")
+    private boolean batchingEnabled;
+
+    @Value("${document.pipeline.persist.workers:2}")
+    private int persistWorkers;
+
+    @Value("${document.pipeline.persist.queue-capacity:50}")
+    private int persistCapacity;
+
+    private PipelineStage<DocumentWorkItem> extractStage;
+    private PipelineStage<DocumentWorkItem> aiStage;
+    private PipelineStage<DocumentWorkItem> persistStage;
+
+    // Lease tokens of jobs anywhere between submit and their final ack, including the batch queue
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void start() {
+
+        extractStage = stage("extract", extractWorkers, extractCapacity, this::extract);
+        aiStage = stage("ai", aiWorkers, aiCapacity, this::infer);
+        persistStage = stage("persist", persistWorkers, persistCapacity, this::persist);
+
+        extractStage.then(aiStage).then(persistStage);
+
+        // Start downstream first so the first hand-off never waits on an idle stage
+        persistStage.start();
+        aiStage.start();
+        extractStage.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        // In-flight jobs keep their lease and are re-queued by the sweeper
+        extractStage.stop();
+        aiStage.stop();
+        persistStage.stop();
+    }
+
+    @Override
+    public int availableCapacity() {
+        return extractStage.remainingCapacity();
+    }
+
+    @Override
+    public boolean submit(ProcessingJob job) {
+        DocumentWorkItem item = new DocumentWorkItem(job.getId(), job.getDocumentId(), job.getLeaseOwner());
+        item.setExtractedText(job.getExtractedText());
+        item.setSkipNearDuplicate(job.isSkipNearDuplicate());
+
+        inFlight.add(item.getLeaseOwner());
+        if (!extractStage.offer(item)) {
+            inFlight.remove(item.getLeaseOwner());
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Set<String> inFlightLeases() {
+        return Set.copyOf(inFlight);
+    }
+
+    private DocumentWorkItem extract(DocumentWorkItem item) throws Exception {
+
+        Document document = processDocumentService.loadForProcessing(item.getDocumentId());
+        if (document == null) {
+            succeeded(item);
+            return null;
+        }
+
+        item.setDocument(document);
+
+        // Fresh uploads were parsed from the local copy while they were stored; only the rest go to R2
+        if (item.getExtractedText() == null) {
+            item.setExtractedText(processDocumentService.extractText(document));
+        } else {
+            log.info("Using text extracted at upload documentId={} chars={}",
+                    document.getId(), item.getExtractedText().length());
+        }
+
+        // Near-duplicates of a completed document never reach the AI stage, unless the user re-uploaded
+        // one to dispute the match
+        item.setSignature(processDocumentService.fingerprint(item.getExtractedText()));
+        if (!item.isSkipNearDuplicate() && processDocumentService.markIfNearDuplicate(document, item.getSignature(), item.getExtractedText())) {
+            succeeded(item);
+            return null;
+        }
+        return item;
+    }
+
+    private DocumentWorkItem infer(DocumentWorkItem item) throws Exception {
+
+        if (batchingEnabled) {
+            processDocumentService.extractTransactionsBatched(item.getExtractedText(), item.getDocument().getUser())
+                    .whenComplete((transactions, error) -> inferred(item, transactions, error));
+            return null;
+        }
+
+        item.setTransactions(
+                processDocumentService.extractTransactions(
+                        item.getExtractedText(),
+                        item.getDocument().getUser()
+                )
+        );
+
+        // Text is not needed past this point, drop it before the item waits in the persist queue
+        item.setExtractedText(null);
+        return item;
+    }
+
+    // Runs on a batch thread; the blocking put keeps persist back-pressure on the batcher
+    private void inferred(DocumentWorkItem item, List<CreateTransactionDto> transactions, Throwable error) {
+
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            fail("ai", item, cause instanceof Exception e ? e : new RuntimeException(cause));
+            return;
+        }
+
+        item.setTransactions(transactions);
+        item.setExtractedText(null);
+        try {
+            persistStage.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail("ai", item, e);
+        }
+    }
+
+    private DocumentWorkItem persist(DocumentWorkItem item) throws Exception {
+
+        processDocumentService.persistResult(item.getDocument(), item.getTransactions(), item.getSignature());
+        succeeded(item);
+        return null;
+    }
+
+    private void succeeded(DocumentWorkItem item) {
+        try {
+            processingJobService.markSucceeded(item.getJobId(), item.getLeaseOwner());
+        } finally {
+            inFlight.remove(item.getLeaseOwner());
+        }
+    }
+
+    private void fail(String stageName, DocumentWorkItem item, Exception e) {
+
+        log.error("Pipeline stage={} failed jobId={} documentId={}",
+                stageName, item.getJobId(), item.getDocumentId(), e);
+        meterRegistry.counter("ledgerlens.pipeline.failures", "stage", stageName).increment();
+
+        try {
+            processingJobService.markFailed(item.getJobId(), item.getLeaseOwner(), e);
+        } catch (Exception markEx) {
+            log.error("Failed to record failure jobId={}, lease will expire", item.getJobId(), markEx);
+        } finally {
+            inFlight.remove(item.getLeaseOwner());
+        }
+    }
+
+    private PipelineStage<DocumentWorkItem> stage(
+            String name,
+            int workers,
+            int capacity,
+            PipelineStage.Handler<DocumentWorkItem> handler
+    ) {
+
+        // Times the stage's own work only, hand-off waits show up as queue depth upstream
+        Timer timer = Timer.builder("ledgerlens.pipeline.stage.duration")
+                .tag("stage", name)
+                .register(meterRegistry);
+
+        PipelineStage<DocumentWorkItem> stage = new PipelineStage<>(
+                name,
+                workers,
+                capacity,
+                item -> {
+                    long start = System.nanoTime();
+                    try {
+                        return handler.handle(item);
+                    } finally {
+                        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                },
+                (item, e) -> fail(name, item, e)
+        );
+
+        Gauge.builder("ledgerlens.pipeline.queue.depth", stage, PipelineStage::depth)
+                .tag("stage", name)
+                .register(meterRegistry);
+        Gauge.builder("ledgerlens.pipeline.workers.busy", stage, PipelineStage::busyWorkers)
+                .tag("stage", name)
+                .register(meterRegistry);
+
+        return stage;
+    }
+}
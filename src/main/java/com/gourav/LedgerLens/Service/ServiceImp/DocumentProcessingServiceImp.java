@@ -0,0 +1,108 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Domain.Entity.ProcessingJob;
+import com.gourav.LedgerLens.Service.DocumentPipelineService;
+import com.gourav.LedgerLens.Service.DocumentProcessingService;
+import com.gourav.LedgerLens.Service.ProcessingJobService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentProcessingServiceImp implements DocumentProcessingService {
+
+    private final DocumentPipelineService documentPipelineService;
+    private final ProcessingJobService processingJobService;
+
+    // Prefix of the lease tokens for jobs claimed by this JVM, e.g. "4242@app-node-1"
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName();
+
+    @Value("${document.processing.claim-batch-size:10}")
+    private int claimBatchSize;
+
+    @Override
+    public void enqueue(UUID documentId) {
+        processingJobService.enqueue(documentId);
+    }
+
+    /**
+     * Claims due jobs from the shared job table, never more than the pipeline's first stage can accept.
+     */
+    @Scheduled(fixedDelayString = "${document.processing.poll-interval-ms:2000}")
+    public void pollQueue() {
+
+        int capacity = Math.min(documentPipelineService.availableCapacity(), claimBatchSize);
+        if (capacity <= 0) {
+            log.debug("Processing pipeline saturated, skipping poll nodeId={}", nodeId);
+            return;
+        }
+
+        List<ProcessingJob> jobs;
+        try {
+            jobs = processingJobService.claim(nodeId, capacity);
+        } catch (Exception e) {
+            log.error("Failed to claim processing jobs nodeId={}", nodeId, e);
+            return;
+        }
+
+        for (ProcessingJob job : jobs) {
+            dispatch(job);
+        }
+    }
+
+    /**
+     * Re-queues jobs whose worker died or stalled past its lease.
+     */
+    @Scheduled(fixedDelayString = "${document.processing.sweep-interval-ms:60000}")
+    public void sweepExpiredLeases() {
+        try {
+            int requeued = processingJobService.requeueExpiredLeases();
+            if (requeued > 0) {
+                log.warn("Recovered {} processing jobs with expired leases", requeued);
+            }
+        } catch (Exception e) {
+            log.error("Failed to sweep expired processing leases", e);
+        }
+    }
+
+    /**
+     * Keeps the leases of jobs still waiting or running in the pipeline from expiring, so the
+     * sweeper only requeues jobs whose node actually stopped working on them.
+     */
+    @Scheduled(fixedDelayString = "${document.processing.heartbeat-interval-ms:60000}")
+    public void renewLeases() {
+
+        Set<String> leases = documentPipelineService.inFlightLeases();
+        if (leases.isEmpty()) {
+            return;
+        }
+
+        try {
+            int renewed = processingJobService.renewLeases(leases);
+            if (renewed < leases.size()) {
+                // The rest were swept or finished meanwhile; their acks will be rejected
+                log.warn("Renewed {} of {} processing leases nodeId={}", renewed, leases.size(), nodeId);
+            }
+        } catch (Exception e) {
+            log.error("Failed to renew processing leases nodeId={}", nodeId, e);
+        }
+    }
+
+    private void dispatch(ProcessingJob job) {
+        if (!documentPipelineService.submit(job)) {
+            log.warn("Processing pipeline rejected jobId={}, releasing lease", job.getId());
+            processingJobService.release(job.getId(), job.getLeaseOwner());
+        }
+    }
+}
@@ -1,24 +1,43 @@
 package com.gourav.LedgerLens.Service.ServiceImp;
 
+import com.gourav.LedgerLens.Domain.Dtos.PresignUploadRequest;
+import com.gourav.LedgerLens.Domain.Dtos.PresignedUploadDto;
 import com.gourav.LedgerLens.Domain.Entity.Document;
+import com.gourav.LedgerLens.Domain.Entity.PendingUpload;
 import com.gourav.LedgerLens.Domain.Entity.User;
-import com.gourav.LedgerLens.Domain.Enum.processingStatus;
+import com.gourav.LedgerLens.Helper.ContentHasher;
+import com.gourav.LedgerLens.Helper.DocumentContent;
+import com.gourav.LedgerLens.Helper.PresignedUpload;
+import com.gourav.LedgerLens.Helper.StoredObject;
+import com.gourav.LedgerLens.Helper.StoredObjectInfo;
 import com.gourav.LedgerLens.Repository.DocumentRepository;
+import com.gourav.LedgerLens.Repository.PendingUploadRepository;
 import com.gourav.LedgerLens.Repository.UserRepository;
 import com.gourav.LedgerLens.Service.*;
 
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -26,16 +45,38 @@ import java.util.List;
 public class DocumentServiceImp implements DocumentService {
 
     private final S3Service s3Service;
-    private final ProcessDocumentService processDocumentService;
+    private final DocumentPersistService documentPersistService;
+    private final TextExtractService textExtractService;
+    private final DocumentContentService documentContentService;
     private final DocumentRepository documentRepository;
     private final UserRepository userRepository;
+    private final PendingUploadRepository pendingUploadRepository;
+    private final S3KeyResolverService s3KeyResolverService;
+    private final ObjectCacheService objectCacheService;
+    private final UploadStagingService uploadStagingService;
+    private final ProcessingJobService processingJobService;
 
     @Value("${cloudflare.r2.bucket}")
     private String bucketName;
 
+    // Parse the upload while it is being stored instead of downloading it back from R2 later
+    @Value("${document.upload.inline-extraction-enabled:true}")
+    private boolean inlineExtractionEnabled;
+
+    @Value("${document.upload.max-size-bytes:52428800}")
+    private long maxDirectUploadBytes;
+
+    @Value("${document.upload.presign-ttl-seconds:900}")
+    private long presignTtlSeconds;
+
+    // How long after its URL expires an upload can still be completed
+    @Value("${document.upload.completion-grace-seconds:3600}")
+    private long completionGraceSeconds;
+
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(1);
+
     @Override
-    @Transactional
-    public void uploadFile(MultipartFile file, User loggedInUser)
+    public Document uploadFile(MultipartFile file, User loggedInUser)
             throws IOException {
 
         log.info(
@@ -49,30 +90,265 @@ public class DocumentServiceImp implements DocumentService {
             throw new IllegalArgumentException("File cannot be empty.");
         }
 
-        String s3Key = s3Service.uploadFile(file);
+        // Large uploads stay on disk; the temp file is removed when the request is done with it
+        try (DocumentContent content = documentContentService.fromMultipart(file)) {
+            return storeUpload(content, loggedInUser);
+        }
+    }
+
+    private Document storeUpload(DocumentContent content, User loggedInUser) throws IOException {
+
+        // Reject types the parser profile cannot read before storing anything
+        String mediaType = textExtractService.requireSupportedType(content);
+        log.debug("Upload type detected userId={} type={}", loggedInUser.getId(), mediaType);
+
+        String contentHash = ContentHasher.sha256Hex(content);
+
+        // Same bytes already uploaded or emailed by this user: reuse that document and its transactions
+        Optional<Document> existing = documentRepository.findByUserAndContentHash(loggedInUser, contentHash);
+        if (existing.isPresent()) {
+            log.info(
+                    "Duplicate upload, reusing publicId={} userId={} contentHash={}",
+                    existing.get().getPublicId(),
+                    loggedInUser.getId(),
+                    contentHash
+            );
+            return reuse(existing.get());
+        }
+
+        // The local copy feeds the R2 writer and the extractor at the same time
+        CompletableFuture<String> extraction = startExtraction(content);
+
+        String s3Key;
+        try {
+            s3Key = uploadStagingService.store(content, contentHash);
+        } catch (IOException | RuntimeException e) {
+            if (extraction != null) {
+                extraction.cancel(true);
+            }
+            throw e;
+        }
         log.info("File uploaded to S3 bucket={} key={}", bucketName, s3Key);
 
+        // The request never waits for the parse: text that is ready now goes in with the job,
+        // anything later is attached when it finishes
+        String extractedText = finishedText(extraction);
+        Document document;
+        try {
+            document = register(loggedInUser, s3Key, content.getFileName(), contentHash, extractedText);
+        } catch (RuntimeException e) {
+            if (extraction != null) {
+                extraction.cancel(true);
+            }
+            throw e;
+        }
 
-        Document document = Document.builder()
-                .s3Key(s3Key)
-                .originalFileName(file.getOriginalFilename())
-                .user(loggedInUser)
-                .status(processingStatus.PROCESSING)
-                .build();
+        if (extraction != null && extractedText == null) {
+            attachWhenExtracted(document, extraction);
+        }
+        return document;
+    }
 
-        Document savedDocument = documentRepository.save(document);
+    @Override
+    public PresignedUploadDto createDirectUpload(User loggedInUser, PresignUploadRequest request) {
 
-        log.info(
-                "Document saved id={} publicId={} status={}",
-                savedDocument.getId(),
-                savedDocument.getPublicId(),
-                savedDocument.getStatus()
+        if (request.getSize() > maxDirectUploadBytes) {
+            throw new IllegalArgumentException(
+                    "File exceeds the maximum upload size of " + maxDirectUploadBytes + " bytes.");
+        }
+
+        String contentHash = request.getContentHash().toLowerCase(Locale.ROOT);
+        String s3Key = s3Service.keyFor(contentHash);
+
+        PresignedUpload presigned = s3Service.presignUpload(
+                s3Key,
+                request.getContentType(),
+                request.getSize(),
+                contentHash,
+                Duration.ofSeconds(presignTtlSeconds)
         );
 
-        processDocumentService.processDocument(
-                savedDocument.getId(),
-                loggedInUser
+        PendingUpload pending = pendingUploadRepository.save(
+                PendingUpload.builder()
+                        .user(loggedInUser)
+                        .s3Key(s3Key)
+                        .contentHash(contentHash)
+                        .originalFileName(request.getFileName())
+                        .contentType(request.getContentType())
+                        .sizeBytes(request.getSize())
+                        .expiresAt(LocalDateTime.ofInstant(presigned.getExpiresAt(), ZoneId.systemDefault()))
+                        .build()
         );
+
+        log.info("Direct upload issued uploadId={} userId={} key={}", pending.getId(), loggedInUser.getId(), s3Key);
+
+        // The browser sets Host itself
+        Map<String, List<String>> headers = new HashMap<>(presigned.getSignedHeaders());
+        headers.keySet().removeIf(name -> name.equalsIgnoreCase("host"));
+
+        return PresignedUploadDto.builder()
+                .uploadId(pending.getId().toString())
+                .url(presigned.getUrl())
+                .method("PUT")
+                .headers(headers)
+                .expiresAt(presigned.getExpiresAt())
+                .build();
+    }
+
+    @Override
+    public Document completeDirectUpload(User loggedInUser, UUID uploadId) throws IOException {
+
+        PendingUpload pending = pendingUploadRepository.findByIdAndUser(uploadId, loggedInUser)
+                .orElseThrow(() ->
+                        new EntityNotFoundException("Upload not found with ID: " + uploadId)
+                );
+
+        StoredObjectInfo object = s3Service.headFile(pending.getS3Key())
+                .orElseThrow(() ->
+                        new IllegalArgumentException("File has not been uploaded yet.")
+                );
+
+        if (object.getContentLength() != pending.getSizeBytes()) {
+            throw new IllegalArgumentException("Uploaded file size does not match the upload request.");
+        }
+
+        // Content-addressed keys are shared between users: the object must have been written under this
+        // upload, otherwise knowing a file's hash would be enough to claim another user's copy of it
+        Instant issuedAt = pending.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant();
+        if (object.getLastModified().isBefore(issuedAt.minus(CLOCK_SKEW))) {
+            throw new IllegalArgumentException("File was not uploaded with this upload ID.");
+        }
+
+        log.info("Direct upload completed uploadId={} userId={} key={}", uploadId, loggedInUser.getId(), pending.getS3Key());
+
+        s3KeyResolverService.register(pending.getS3Key());
+
+        Document document;
+        Optional<Document> existing = documentRepository.findByUserAndContentHash(loggedInUser, pending.getContentHash());
+        if (existing.isPresent()) {
+            log.info("Duplicate direct upload, reusing publicId={} userId={}", existing.get().getPublicId(), loggedInUser.getId());
+            document = reuse(existing.get());
+        } else {
+            document = register(loggedInUser, pending.getS3Key(), pending.getOriginalFileName(), pending.getContentHash(), null);
+        }
+
+        // Kept until the document exists so a failed completion can be retried
+        pendingUploadRepository.delete(pending);
+        return document;
+    }
+
+    /**
+     * Drops presigned uploads that were never completed.
+     */
+    @Scheduled(fixedDelayString = "${document.upload.pending-sweep-interval-ms:3600000}")
+    public void purgeExpiredUploads() {
+        int purged = pendingUploadRepository.deleteExpired(LocalDateTime.now().minusSeconds(completionGraceSeconds));
+        if (purged > 0) {
+            log.info("Purged {} expired direct uploads", purged);
+        }
+    }
+
+    /**
+     * Uploading a file again is the user asking for it to be processed: a copy that failed, or
+     * was matched to another document, goes back through the pipeline instead of being returned as is.
+     */
+    private Document reuse(Document existing) {
+        return documentPersistService.reprocess(existing.getId(), true);
+    }
+
+    private Document register(
+            User loggedInUser,
+            String s3Key,
+            String originalFileName,
+            String contentHash,
+            String extractedText
+    ) {
+
+        try {
+            return documentPersistService.registerUpload(
+                    loggedInUser,
+                    s3Key,
+                    originalFileName,
+                    contentHash,
+                    extractedText
+            );
+
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with a concurrent copy of the same file
+            log.info("Concurrent duplicate upload userId={} contentHash={}", loggedInUser.getId(), contentHash);
+            return documentRepository.findByUserAndContentHash(loggedInUser, contentHash)
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Parses a handle of its own on the upload, since the parse may outlive the request and
+     * the request closes its content when it returns.
+     */
+    private CompletableFuture<String> startExtraction(DocumentContent content) {
+
+        if (!inlineExtractionEnabled) {
+            return null;
+        }
+
+        DocumentContent handle;
+        try {
+            handle = content.retain();
+        } catch (IOException e) {
+            log.info("Inline extraction skipped name={} reason={}", content.getFileName(), e.getMessage());
+            return null;
+        }
+
+        try {
+            CompletableFuture<String> extraction = textExtractService.extractTextAsync(handle);
+            extraction.whenComplete((text, error) -> closeQuietly(handle));
+            return extraction;
+        } catch (RuntimeException e) {
+            // Inline pool saturated: the worker extracts from R2 as before
+            closeQuietly(handle);
+            log.info("Inline extraction skipped name={} reason={}", content.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Text from an inline parse that has already finished, or null when it is still running,
+     * failed or timed out.
+     */
+    private String finishedText(CompletableFuture<String> extraction) {
+
+        if (extraction == null || !extraction.isDone() || extraction.isCompletedExceptionally()) {
+            return null;
+        }
+        return extraction.join();
+    }
+
+    /**
+     * Hands the text to the queued job once the parse finishes. A worker that claims the job
+     * first extracts from R2 itself, and so does one whose inline parse failed.
+     */
+    private void attachWhenExtracted(Document document, CompletableFuture<String> extraction) {
+
+        extraction.whenComplete((text, error) -> {
+            if (error != null) {
+                log.warn("Inline extraction failed, deferring to worker documentId={} error={}",
+                        document.getId(), error.getMessage());
+                return;
+            }
+            try {
+                processingJobService.attachExtractedText(document.getId(), text);
+            } catch (RuntimeException e) {
+                log.warn("Inline text not attached documentId={} error={}", document.getId(), e.getMessage());
+            }
+        });
+    }
+
+    private void closeQuietly(DocumentContent content) {
+        try {
+            content.close();
+        } catch (IOException e) {
+            log.warn("Could not delete extraction copy name={} error={}", content.getFileName(), e.getMessage());
+        }
     }
 
     @Override
@@ -83,20 +359,37 @@ public class DocumentServiceImp implements DocumentService {
     }
 
     @Override
-    public byte[] viewDocument(String publicId) throws IOException {
+    public Document getDocument(String publicId) {
 
         log.info("Viewing document publicId={}", publicId);
 
-        Document document = documentRepository.findByPublicId(publicId)
+        return documentRepository.findByPublicId(publicId)
                 .orElseThrow(() ->
                         new EntityNotFoundException(
                                 "Document not found with public ID: " + publicId
                         )
                 );
+    }
+
+    @Override
+    public StoredObject viewDocument(Document document, String range) throws IOException {
 
         try {
-            log.info("Fetching document bytes from S3 key={}", document.getS3Key());
-            return s3Service.viewFile(document.getS3Key());
+            // Staged or recently viewed files are served from local disk; ranges are cut from the local copy
+            Optional<DocumentContent> local = objectCacheService.openIfCached(document.getS3Key(), document.getOriginalFileName());
+            if (local.isPresent()) {
+                log.info("Serving document from local copy key={} range={}", document.getS3Key(), range);
+                try {
+                    return StoredObject.fromLocal(local.get(), range);
+                } catch (RuntimeException e) {
+                    local.get().close();
+                    throw e;
+                }
+            }
+
+            // A miss never waits for a full download: R2 streams the requested range while the cache fills behind it
+            log.info("Streaming document from S3 key={} range={}", document.getS3Key(), range);
+            return s3Service.openFile(document.getS3Key(), range);
 
         } catch (IOException e) {
             log.error(
@@ -107,4 +400,17 @@ public class DocumentServiceImp implements DocumentService {
             throw e; // ✅ propagate checked exception
         }
     }
+
+    @Override
+    public Document getDocumentStatus(String publicId, User loggedInUser) {
+
+        log.info("Fetching document status publicId={} userId={}", publicId, loggedInUser.getId());
+
+        return documentRepository.findByPublicIdAndUser(publicId, loggedInUser)
+                .orElseThrow(() ->
+                        new EntityNotFoundException(
+                                "Document not found with public ID: " + publicId
+                        )
+                );
+    }
 }
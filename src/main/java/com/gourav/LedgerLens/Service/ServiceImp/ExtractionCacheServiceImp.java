@@ -0,0 +1,166 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gourav.LedgerLens.Domain.Entity.AiExtractionResult;
+import com.gourav.LedgerLens.Helper.ContentHasher;
+import com.gourav.LedgerLens.Repository.AiExtractionResultRepository;
+import com.gourav.LedgerLens.Service.ExtractionCacheService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Two-tier cache of raw AI extraction responses: a bounded in-memory Caffeine tier in front of
+ * the ai_extraction_results table, which survives restarts and is shared between nodes.
+ * Both tiers expire entries after the same TTL; the table is also capped in rows.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExtractionCacheServiceImp implements ExtractionCacheService {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final AiExtractionResultRepository aiExtractionResultRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${extraction-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${extraction-cache.memory-size:5000}")
+    private long memorySize;
+
+    @Value("${extraction-cache.ttl-hours:720}")
+    private long ttlHours;
+
+    @Value("${extraction-cache.max-rows:200000}")
+    private int maxRows;
+
+    private Cache<String, String> memory;
+
+    @PostConstruct
+    public void init() {
+        memory = Caffeine.newBuilder()
+                .maximumSize(memorySize)
+                .expireAfterWrite(Duration.ofHours(ttlHours))
+                .build();
+    }
+
+    @Override
+    public String key(String promptVersion, UUID ownerId, String extractedText) {
+
+        // Layout-only differences (re-extraction, line endings, spacing) must not miss
+        String normalized = WHITESPACE.matcher(
+                Normalizer.normalize(extractedText, Normalizer.Form.NFKC)).replaceAll(" ").trim();
+
+        String input = promptVersion + '\n' + ownerId + '\n' + normalized;
+        return ContentHasher.sha256Hex(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public Optional<String> get(String key) {
+
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        String cached = memory.getIfPresent(key);
+        if (cached != null) {
+            count("memory");
+            return Optional.of(cached);
+        }
+
+        try {
+            Optional<AiExtractionResult> stored = aiExtractionResultRepository.findLive(key, LocalDateTime.now());
+            if (stored.isPresent()) {
+                memory.put(key, stored.get().getResponse());
+                count("database");
+                return Optional.of(stored.get().getResponse());
+            }
+
+        } catch (RuntimeException e) {
+            // A cache that cannot be read is a miss, never a failed extraction
+            log.warn("Extraction cache lookup failed key={} error={}", key, e.getMessage());
+        }
+
+        count("miss");
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(String key, String promptVersion, String response) {
+
+        if (!enabled) {
+            return;
+        }
+
+        // Re-putting a response that was just served from the cache would only rewrite the row
+        if (response.equals(memory.getIfPresent(key))) {
+            return;
+        }
+
+        memory.put(key, response);
+        try {
+            aiExtractionResultRepository.upsert(key, promptVersion, response, LocalDateTime.now().plusHours(ttlHours));
+        } catch (RuntimeException e) {
+            log.warn("Extraction cache write failed key={} error={}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void evict(String key) {
+
+        if (!enabled) {
+            return;
+        }
+
+        memory.invalidate(key);
+        try {
+            aiExtractionResultRepository.deleteById(key);
+        } catch (RuntimeException e) {
+            log.warn("Extraction cache evict failed key={} error={}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Drops expired rows, then the oldest rows beyond max-rows.
+     */
+    @Scheduled(fixedDelayString = "${extraction-cache.purge-interval-ms:3600000}")
+    public void purge() {
+
+        if (!enabled) {
+            return;
+        }
+
+        int expired = aiExtractionResultRepository.deleteExpired(LocalDateTime.now());
+
+        long excess = aiExtractionResultRepository.count() - maxRows;
+        int evicted = excess > 0 ? aiExtractionResultRepository.deleteOldest((int) Math.min(excess, Integer.MAX_VALUE)) : 0;
+
+        if (expired > 0 || evicted > 0) {
+            meterRegistry.counter("ledgerlens.extraction_cache.evictions").increment(expired + evicted);
+            log.info("Extraction cache purged expired={} evicted={}", expired, evicted);
+        }
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("ledgerlens.extraction_cache.requests", "result", result).increment();
+    }
+}
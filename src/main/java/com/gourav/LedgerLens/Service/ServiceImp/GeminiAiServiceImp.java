@@ -1,8 +1,19 @@
 package com.gourav.LedgerLens.Service.ServiceImp;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.genai.Client;
+import com.google.genai.types.Content;
+import com.google.genai.types.GenerateContentConfig;
 import com.google.genai.types.GenerateContentResponse;
+import com.google.genai.types.Part;
+import com.google.genai.types.Schema;
 import com.gourav.LedgerLens.Domain.Entity.User;
+import com.gourav.LedgerLens.Helper.AiExtractionRequest;
+import com.gourav.LedgerLens.Service.ExtractionCacheService;
 import com.gourav.LedgerLens.Service.GeminiAiService;
 
 import lombok.RequiredArgsConstructor;
@@ -11,13 +22,64 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class GeminiAiServiceImp implements GeminiAiService {
 
+    private static final String MODEL = "gemini-2.5-flash";
+
+    // Part of every extraction cache key: bump it whenever the instructions, schema or model change
+    private static final String PROMPT_VERSION = "2";
+
+    private static final String SYSTEM_INSTRUCTION = """
+            You are an intelligent data extraction system that converts unstructured
+            invoice/receipt text into a structured JSON object.
+
+            You MUST return ONLY a valid JSON object with EXACTLY these fields:
+            {
+              "client": "string - the seller/vendor/company name from the invoice",
+              "txnDate": "string - date in format YYYY-MM-DD (e.g., 2025-09-15)",
+              "amountBeforeTax": number or null - subtotal before tax,
+              "amountAfterTax": number - total amount paid (REQUIRED),
+              "currency": "string - 3-letter currency code like USD, EUR, INR",
+              "category": "string - one of: SUBSCRIPTION, SOFTWARE, UTILITIES, OFFICE_SUPPLIES, TRAVEL, FOOD, ENTERTAINMENT, OTHER",
+              "transactionType": "string - either EXPENSE or INCOME",
+              "paymentMethod": "string - one of: CREDIT_CARD, DEBIT_CARD, BANK_TRANSFER, CASH, UPI, OTHER",
+              "invoiceNumber": "string or null - invoice/receipt number",
+              "notes": "string or null - any additional relevant notes"
+            }
+
+            IMPORTANT RULES:
+            1. Return ONLY the JSON object, no markdown, no explanation, no ```json``` tags.
+            2. All field names must be exactly as shown above (camelCase).
+            3. The "client" field should contain the seller/vendor name (who issued the invoice).
+            4. The "txnDate" MUST be in YYYY-MM-DD format.
+            5. If a field cannot be determined, use null (except for required fields: client, txnDate, amountAfterTax, category, transactionType).
+            6. For most invoices/receipts, transactionType should be "EXPENSE".
+            """;
+
+    // Sent once per batch request as the system instruction, not once per document
+    private static final String BATCH_INSTRUCTION = SYSTEM_INSTRUCTION + """
+
+            BATCH MODE:
+            The input contains several documents, each starting with a line "### Document id=<id>".
+            Extract each document independently, exactly as if it had been sent alone.
+            Return a JSON array with one object per document: the fields above plus "id",
+            copied verbatim from that document's header. Never merge documents or skip one.
+            """;
+
+    private static final Schema TRANSACTION_SCHEMA = transactionSchema();
+
     private final Client geminiClient;
+    private final ObjectMapper objectMapper;
+    private final ExtractionCacheService extractionCacheService;
 
     @Override
     public String extractTextToTransaction(
@@ -25,48 +87,33 @@ public class GeminiAiServiceImp implements GeminiAiService {
             User loggedInUser
     ) throws IOException {
 
+        // Reprocessing and retries of the same text are answered without a model call
+        Optional<String> cached = findCached(extractedText, loggedInUser);
+        if (cached.isPresent()) {
+            log.info("Gemini AI response served from extraction cache user={}", loggedInUser.getEmail());
+            return cached.get();
+        }
+
         log.info("Calling Gemini AI for transaction extraction user={}",
                 loggedInUser.getEmail());
 
-        String systemInstruction = """
-                You are an intelligent data extraction system that converts unstructured
-                invoice/receipt text into a structured JSON object.
-                
-                You MUST return ONLY a valid JSON object with EXACTLY these fields:
-                {
-                  "client": "string - the seller/vendor/company name from the invoice",
-                  "txnDate": "string - date in format YYYY-MM-DD (e.g., 2025-09-15)",
-                  "amountBeforeTax": number or null - subtotal before tax,
-                  "amountAfterTax": number - total amount paid (REQUIRED),
-                  "currency": "string - 3-letter currency code like USD, EUR, INR",
-                  "category": "string - one of: SUBSCRIPTION, SOFTWARE, UTILITIES, OFFICE_SUPPLIES, TRAVEL, FOOD, ENTERTAINMENT, OTHER",
-                  "transactionType": "string - either EXPENSE or INCOME",
-                  "paymentMethod": "string - one of: CREDIT_CARD, DEBIT_CARD, BANK_TRANSFER, CASH, UPI, OTHER",
-                  "invoiceNumber": "string or null - invoice/receipt number",
-                  "notes": "string or null - any additional relevant notes"
-                }
-                
-                IMPORTANT RULES:
-                1. Return ONLY the JSON object, no markdown, no explanation, no ```json``` tags.
-                2. All field names must be exactly as shown above (camelCase).
-                3. The "client" field should contain the seller/vendor name (who issued the invoice).
-                4. The "txnDate" MUST be in YYYY-MM-DD format.
-                5. If a field cannot be determined, use null (except for required fields: client, txnDate, amountAfterTax, category, transactionType).
-                6. For most invoices/receipts, transactionType should be "EXPENSE".
-                """;
-
         String userPrompt =
                 "User: " + loggedInUser.getFullname() +
                         "\n\nExtracted Invoice Text:\n" + extractedText;
 
-        String fullPrompt = systemInstruction + "\n\n" + userPrompt;
+        // Schema-constrained output: the response is the JSON object itself, no prose or fences to strip
+        GenerateContentConfig config = GenerateContentConfig.builder()
+                .systemInstruction(Content.fromParts(Part.fromText(SYSTEM_INSTRUCTION)))
+                .responseMimeType("application/json")
+                .responseSchema(TRANSACTION_SCHEMA)
+                .build();
 
         try {
             GenerateContentResponse response =
                     geminiClient.models.generateContent(
-                            "gemini-2.5-flash",
-                            fullPrompt,
-                            null
+                            MODEL,
+                            userPrompt,
+                            config
                     );
 
             log.info("Gemini AI response generated successfully");
@@ -77,4 +124,121 @@ public class GeminiAiServiceImp implements GeminiAiService {
             throw new IOException("Failed to extract transaction using Gemini AI", e);
         }
     }
+
+    @Override
+    public Optional<String> findCached(String extractedText, User owner) {
+        return extractionCacheService.get(extractionCacheService.key(PROMPT_VERSION, owner.getId(), extractedText));
+    }
+
+    @Override
+    public void cacheResult(String extractedText, User owner, String rawAiResponse) {
+        extractionCacheService.put(
+                extractionCacheService.key(PROMPT_VERSION, owner.getId(), extractedText),
+                PROMPT_VERSION,
+                rawAiResponse
+        );
+    }
+
+    @Override
+    public void evictCached(String extractedText, User owner) {
+        extractionCacheService.evict(extractionCacheService.key(PROMPT_VERSION, owner.getId(), extractedText));
+    }
+
+    @Override
+    public Map<String, String> extractTransactionsBatch(List<AiExtractionRequest> requests) throws IOException {
+
+        log.info("Calling Gemini AI for batched transaction extraction documents={}", requests.size());
+
+        StringBuilder prompt = new StringBuilder();
+        for (AiExtractionRequest request : requests) {
+            prompt.append("### Document id=").append(request.getId()).append('\n')
+                    .append("User: ").append(request.getUserName())
+                    .append("\n\nExtracted Invoice Text:\n")
+                    .append(request.getExtractedText())
+                    .append("\n\n");
+        }
+
+        // The id field is what maps each array element back to its document
+        Map<String, Schema> itemProperties = new LinkedHashMap<>(TRANSACTION_SCHEMA.properties().orElseThrow());
+        itemProperties.put("id", Schema.builder().type("STRING").build());
+
+        GenerateContentConfig config = GenerateContentConfig.builder()
+                .systemInstruction(Content.fromParts(Part.fromText(BATCH_INSTRUCTION)))
+                .responseMimeType("application/json")
+                .responseSchema(Schema.builder()
+                        .type("ARRAY")
+                        .items(Schema.builder()
+                                .type("OBJECT")
+                                .properties(itemProperties)
+                                .required(List.of("id", "client", "txnDate", "amountAfterTax", "category", "transactionType"))
+                                .build())
+                        .build())
+                .build();
+
+        String text;
+        try {
+            GenerateContentResponse response = geminiClient.models.generateContent(MODEL, prompt.toString(), config);
+            text = response.text();
+
+        } catch (Exception e) {
+            log.error("Unexpected Gemini AI failure in batch documents={}", requests.size(), e);
+            throw new IOException("Failed to extract transactions using Gemini AI", e);
+        }
+
+        // Element by element, so output cut off at the token limit keeps every document that closed
+        Map<String, String> results = new HashMap<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(text == null ? "" : text)) {
+
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                log.warn("Batched Gemini response is not a JSON array documents={}", requests.size());
+                return results;
+            }
+
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                ObjectNode transaction = objectMapper.readTree(parser);
+                JsonNode id = transaction.remove("id");
+                if (id != null && !id.isNull()) {
+                    // Same shape as a single-document response
+                    results.putIfAbsent(id.asText(), transaction.toString());
+                }
+            }
+
+        } catch (IOException e) {
+            log.warn("Batched Gemini response cut off documents={} salvaged={} error={}",
+                    requests.size(), results.size(), e.getMessage());
+        }
+
+        log.info("Gemini AI batch response generated documents={} results={}", requests.size(), results.size());
+        return results;
+    }
+
+    private static Schema transactionSchema() {
+
+        Map<String, Schema> properties = new LinkedHashMap<>();
+        properties.put("client", Schema.builder().type("STRING").build());
+        properties.put("txnDate", Schema.builder().type("STRING").description("YYYY-MM-DD").build());
+        properties.put("amountBeforeTax", Schema.builder().type("NUMBER").nullable(true).build());
+        properties.put("amountAfterTax", Schema.builder().type("NUMBER").build());
+        properties.put("currency", Schema.builder().type("STRING").nullable(true).build());
+        properties.put("category", Schema.builder().type("STRING")
+                .enum_(List.of("SUBSCRIPTION", "SOFTWARE", "UTILITIES", "OFFICE_SUPPLIES", "TRAVEL", "FOOD", "ENTERTAINMENT", "OTHER"))
+                .build());
+        properties.put("transactionType", Schema.builder().type("STRING").enum_(List.of("EXPENSE", "INCOME")).build());
+        properties.put("paymentMethod", Schema.builder().type("STRING").nullable(true)
+                .enum_(List.of("CREDIT_CARD", "DEBIT_CARD", "BANK_TRANSFER", "CASH", "UPI", "OTHER"))
+                .build());
+        properties.put("invoiceNumber", Schema.builder().type("STRING").nullable(true).build());
+        properties.put("notes", Schema.builder().type("STRING").nullable(true).build());
+
+        return Schema.builder()
+                .type("OBJECT")
+                .properties(properties)
+                .required(List.of("client", "txnDate", "amountAfterTax", "category", "transactionType"))
+                .build();
+    }
 }
@@ -0,0 +1,329 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gourav.LedgerLens.Domain.Entity.User;
+import com.gourav.LedgerLens.Helper.AiExtractionRequest;
+import com.gourav.LedgerLens.Helper.TextValues;
+import com.gourav.LedgerLens.Service.GeminiAiService;
+import com.gourav.LedgerLens.Service.GeminiBatchService;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Packs small documents into one Gemini request so bulk ingestion (e.g. after a Gmail backfill)
+ * pays one round trip and one copy of the system instruction per batch instead of per document.
+ * A batch is sent when it reaches max-documents or max-chars, or when its oldest document has
+ * waited max-wait-ms. Results come back as an id-tagged array; any document the model leaves out
+ * is retried on its own, so every document gets the same result it would have unbatched.
+ *
+ * A batch only ever holds one user's documents, so a model that swaps or copies ids cannot move
+ * one user's invoice into another user's ledger. Each result must also be plausible for its own
+ * document (its total appears in that document's text); otherwise the document is retried alone.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GeminiBatchServiceImp implements GeminiBatchService {
+
+    private final GeminiAiService geminiAiService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${gemini.batch.max-documents:8}")
+    private int maxDocuments;
+
+    // Longer documents go alone; one large invoice should not push a batch past the output limit
+    @Value("${gemini.batch.max-chars:60000}")
+    private int maxChars;
+
+    @Value("${gemini.batch.max-wait-ms:1500}")
+    private long maxWaitMs;
+
+    @Value("${gemini.batch.concurrency:2}")
+    private int concurrency;
+
+    // Documents queued or in flight; submitters block beyond this
+    @Value("${gemini.batch.max-pending:64}")
+    private int maxPending;
+
+    private record Pending(String extractedText, User owner, CompletableFuture<String> result, long enqueuedAt) {
+    }
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+    private Semaphore permits;
+    private ExecutorService calls;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    private DistributionSummary batchSizes;
+    private Timer batchTimer;
+
+    @PostConstruct
+    public void start() {
+
+        permits = new Semaphore(maxPending);
+        calls = Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory("gemini-batch-"));
+
+        batchSizes = DistributionSummary.builder("ledgerlens.gemini.batch.documents")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("ledgerlens.gemini.batch.duration")
+                .register(meterRegistry);
+
+        running = true;
+        dispatcher = new Thread(this::dispatch, "gemini-batch-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+
+        log.info("Gemini batching started maxDocuments={} maxChars={} maxWaitMs={} concurrency={}",
+                maxDocuments, maxChars, maxWaitMs, concurrency);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        dispatcher.interrupt();
+        calls.shutdownNow();
+
+        // Jobs still waiting fail now and are retried from the job table
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(new IOException("Gemini batching stopped"));
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> submit(String extractedText, User owner) throws InterruptedException {
+
+        // Oversized documents go alone, and the single call checks the extraction cache itself
+        if (extractedText.length() > maxChars) {
+            permits.acquire();
+            Pending pending = new Pending(extractedText, owner, new CompletableFuture<>(), System.nanoTime());
+            calls.execute(() -> runSingle(pending));
+            return pending.result();
+        }
+
+        // Cached results never wait for a batch
+        Optional<String> cached = geminiAiService.findCached(extractedText, owner);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+
+        permits.acquire();
+        Pending pending = new Pending(extractedText, owner, new CompletableFuture<>(), System.nanoTime());
+        queue.put(pending);
+        return pending.result();
+    }
+
+    /**
+     * Documents of one owner waiting to be sent together.
+     */
+    private static final class OpenBatch {
+
+        final List<Pending> documents = new ArrayList<>();
+        long chars;
+
+        // Counted from the oldest document, so none waits longer than max-wait-ms
+        long deadline;
+    }
+
+    private void dispatch() {
+
+        // One open batch per owner; documents of different users never share a prompt
+        Map<UUID, OpenBatch> open = new HashMap<>();
+
+        while (running) {
+            try {
+                Pending next;
+                if (open.isEmpty()) {
+                    next = queue.take();
+                } else {
+                    long wait = nextDeadline(open) - System.nanoTime();
+                    next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                }
+
+                if (next != null) {
+                    UUID ownerId = next.owner().getId();
+                    OpenBatch batch = open.get(ownerId);
+
+                    // Would not fit: send what the owner has and start over with this document
+                    if (batch != null && batch.chars + next.extractedText().length() > maxChars) {
+                        send(open.remove(ownerId));
+                        batch = null;
+                    }
+                    if (batch == null) {
+                        batch = new OpenBatch();
+                        batch.deadline = next.enqueuedAt() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+                        open.put(ownerId, batch);
+                    }
+
+                    batch.documents.add(next);
+                    batch.chars += next.extractedText().length();
+                    if (batch.documents.size() >= maxDocuments) {
+                        send(open.remove(ownerId));
+                    }
+                }
+
+                long now = System.nanoTime();
+                Iterator<OpenBatch> batches = open.values().iterator();
+                while (batches.hasNext()) {
+                    OpenBatch batch = batches.next();
+                    if (batch.deadline - now <= 0) {
+                        batches.remove();
+                        send(batch);
+                    }
+                }
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // Stopped, whether by interrupt or by seeing running cleared: nothing still collecting is ever sent
+        for (OpenBatch batch : open.values()) {
+            for (Pending pending : batch.documents) {
+                pending.result().completeExceptionally(new IOException("Gemini batching stopped"));
+            }
+        }
+    }
+
+    private long nextDeadline(Map<UUID, OpenBatch> open) {
+        long deadline = Long.MAX_VALUE;
+        boolean first = true;
+        for (OpenBatch batch : open.values()) {
+            if (first || batch.deadline - deadline < 0) {
+                deadline = batch.deadline;
+                first = false;
+            }
+        }
+        return deadline;
+    }
+
+    private void send(OpenBatch batch) {
+        List<Pending> documents = batch.documents;
+        calls.execute(() -> runBatch(documents));
+    }
+
+    private void runBatch(List<Pending> batch) {
+
+        if (batch.size() == 1) {
+            runSingle(batch.get(0));
+            return;
+        }
+
+        List<AiExtractionRequest> requests = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            requests.add(AiExtractionRequest.builder()
+                    .id("d" + i)
+                    .extractedText(batch.get(i).extractedText())
+                    .userName(batch.get(i).owner().getFullname())
+                    .build());
+        }
+
+        Map<String, String> results;
+        long start = System.nanoTime();
+        try {
+            meterRegistry.counter("ledgerlens.gemini.requests", "mode", "batch").increment();
+            results = geminiAiService.extractTransactionsBatch(requests);
+
+        } catch (IOException | RuntimeException e) {
+            log.warn("Gemini batch failed documents={} error={}", batch.size(), e.getMessage());
+            for (Pending pending : batch) {
+                pending.result().completeExceptionally(e);
+            }
+            permits.release(batch.size());
+            return;
+
+        } finally {
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizes.record(batch.size());
+        }
+
+        int missing = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            String result = results.get(requests.get(i).getId());
+
+            if (result != null && !plausible(result, pending.extractedText())) {
+                log.warn("Batched result does not match its document, retrying alone id={} userId={}",
+                        requests.get(i).getId(), pending.owner().getId());
+                meterRegistry.counter("ledgerlens.gemini.batch.implausible").increment();
+                result = null;
+            }
+
+            if (result != null) {
+                pending.result().complete(result);
+                permits.release();
+            } else {
+                // Skipped or malformed in the array: the document gets its own call
+                missing++;
+                meterRegistry.counter("ledgerlens.gemini.batch.fallbacks").increment();
+                runSingle(pending);
+            }
+        }
+
+        log.info("Gemini batch completed documents={} fallbacks={} in {} ms",
+                batch.size(), missing, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * The result's total must be printed somewhere in the document it was returned for.
+     */
+    private boolean plausible(String result, String extractedText) {
+        try {
+            JsonNode total = objectMapper.readTree(result).get("amountAfterTax");
+            if (total == null || !total.isNumber()) {
+                return false;
+            }
+            BigDecimal amount = total.decimalValue();
+            return TextValues.containsAny(extractedText, TextValues.amountRenderings(amount));
+
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void runSingle(Pending pending) {
+        try {
+            meterRegistry.counter("ledgerlens.gemini.requests", "mode", "single").increment();
+            pending.result().complete(geminiAiService.extractTextToTransaction(pending.extractedText(), pending.owner()));
+
+        } catch (IOException | RuntimeException e) {
+            pending.result().completeExceptionally(e);
+
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -2,7 +2,9 @@ package com.gourav.LedgerLens.Service.ServiceImp;
 
 import com.google.api.services.gmail.Gmail;
 import com.google.api.services.gmail.model.*;
+import com.gourav.LedgerLens.Helper.DocumentContent;
 import com.gourav.LedgerLens.Repository.DocumentRepository;
+import com.gourav.LedgerLens.Service.DocumentContentService;
 import com.gourav.LedgerLens.Service.GmailMessageService;
 import com.gourav.LedgerLens.Service.ProcessDocumentService;
 
@@ -22,6 +24,7 @@ public class GmailServiceImp implements GmailMessageService {
 
     private final ProcessDocumentService processDocumentService;
     private final DocumentRepository documentRepository;
+    private final DocumentContentService documentContentService;
 
     @Override
     public void processEmail(Gmail gmail, String userEmail, String messageId)
@@ -82,23 +85,27 @@ public class GmailServiceImp implements GmailMessageService {
                             .get("me", messageId, attachmentId)
                             .execute();
 
-            byte[] filesBytes =
-                    Base64.getUrlDecoder().decode(attachPart.getData());
-
-            log.info(
-                    "Attachment fetched name={} size={} bytes messageId={}",
-                    attachmentName,
-                    filesBytes.length,
-                    messageId
-            );
-
-            processDocumentService.processAttachment(
-                    filesBytes,
-                    userEmail,
+            // Decoded once; large attachments move to a temp file and the array is dropped
+            try (DocumentContent content = documentContentService.fromBytes(
+                    Base64.getUrlDecoder().decode(attachPart.getData()),
                     attachmentName,
-                    contentType,
-                    messageId
-            );
+                    contentType
+            )) {
+
+                log.info(
+                        "Attachment fetched name={} size={} bytes spooled={} messageId={}",
+                        attachmentName,
+                        content.getSize(),
+                        content.isSpooled(),
+                        messageId
+                );
+
+                processDocumentService.processAttachment(
+                        content,
+                        userEmail,
+                        messageId
+                );
+            }
         }
     }
 
@@ -0,0 +1,86 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
+import com.gourav.LedgerLens.Domain.Entity.User;
+import com.gourav.LedgerLens.Service.LocalExtractionService;
+import com.gourav.LedgerLens.Service.TransactionExtractorService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Tries every TransactionExtractorService in order and returns the first confident answer.
+ * The hit rate is ledgerlens.local_extraction.requests tagged result=hit by extractor over
+ * the total; result=miss is every document that still went to the model.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LocalExtractionServiceImp implements LocalExtractionService {
+
+    private final List<TransactionExtractorService> extractors;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${local-extraction.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public Optional<List<CreateTransactionDto>> extract(String extractedText, User owner) {
+
+        if (!enabled || extractedText == null || extractedText.isBlank()) {
+            return Optional.empty();
+        }
+
+        for (TransactionExtractorService extractor : extractors) {
+            Optional<List<CreateTransactionDto>> transactions;
+            try {
+                transactions = extractor.extract(extractedText, owner);
+            } catch (RuntimeException e) {
+                // A broken extractor costs a model call, never the document
+                log.warn("Local extractor failed extractor={} userId={} error={}",
+                        extractor.name(), owner.getId(), e.getMessage());
+                continue;
+            }
+
+            if (transactions.isPresent() && !transactions.get().isEmpty()) {
+                count(extractor.name(), "hit");
+                log.info("Transactions extracted locally extractor={} count={} userId={}",
+                        extractor.name(), transactions.get().size(), owner.getId());
+                return transactions;
+            }
+        }
+
+        count("none", "miss");
+        return Optional.empty();
+    }
+
+    @Override
+    public void learn(String extractedText, User owner, List<CreateTransactionDto> transactions) {
+
+        if (!enabled || extractedText == null || transactions.isEmpty()) {
+            return;
+        }
+
+        for (TransactionExtractorService extractor : extractors) {
+            try {
+                extractor.learn(extractedText, owner, transactions);
+            } catch (RuntimeException e) {
+                // Learning is best effort; the AI result is already good
+                log.warn("Local extractor failed to learn extractor={} userId={} error={}",
+                        extractor.name(), owner.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void count(String extractor, String result) {
+        meterRegistry.counter("ledgerlens.local_extraction.requests", "extractor", extractor, "result", result).increment();
+    }
+}
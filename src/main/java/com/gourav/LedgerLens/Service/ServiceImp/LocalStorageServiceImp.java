@@ -0,0 +1,236 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Exception.DirectUploadNotSupportedException;
+import com.gourav.LedgerLens.Exception.StoredObjectNotFoundException;
+import com.gourav.LedgerLens.Helper.ContentHasher;
+import com.gourav.LedgerLens.Helper.DocumentContent;
+import com.gourav.LedgerLens.Helper.DurableFiles;
+import com.gourav.LedgerLens.Helper.PresignedUpload;
+import com.gourav.LedgerLens.Helper.StoredObject;
+import com.gourav.LedgerLens.Helper.StoredObjectInfo;
+import com.gourav.LedgerLens.Service.DocumentContentService;
+import com.gourav.LedgerLens.Service.S3KeyResolverService;
+import com.gourav.LedgerLens.Service.S3Service;
+
+import jakarta.annotation.PostConstruct;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * File-system storage backend for single-node installs and load tests without R2, active under
+ * the local-storage profile. Objects live under objects/aa/bb/sha256(key), so directories stay
+ * small whatever the key format, with a .meta file next to each holding the key and content type.
+ * Writes go through DurableFiles (temp file, fsync, rename, directory fsync), so a reader never
+ * sees a partial object and a stored object survives a crash. Reads are served straight from the object file.
+ */
+@Service
+@Profile("local-storage")
+@RequiredArgsConstructor
+@Slf4j
+public class LocalStorageServiceImp implements S3Service {
+
+    private static final String META_SUFFIX = ".meta";
+
+    private final DocumentContentService documentContentService;
+    private final S3KeyResolverService s3KeyResolverService;
+
+    @Value("${storage.local.dir:${user.home}/ledgerlens-storage}")
+    private Path rootDir;
+
+    private Path objectsDir;
+
+    @PostConstruct
+    public void init() throws IOException {
+        objectsDir = rootDir.resolve("objects");
+        Files.createDirectories(objectsDir);
+        log.info("Local storage backend ready dir={}", objectsDir);
+    }
+
+    @Override
+    public String uploadFile(DocumentContent content, String contentHash) throws IOException {
+
+        // Content-addressed: identical bytes always map to the same object
+        String key = keyFor(contentHash);
+        Path target = pathFor(key);
+
+        if (Files.exists(target)) {
+            log.info("Object already stored, skipping upload key={}", key);
+            index(key);
+            return key;
+        }
+
+        log.info("Storing file locally originalName={} contentKey={} spooled={}",
+                content.getFileName(), key, content.isSpooled());
+
+        Files.createDirectories(target.getParent());
+
+        // Metadata first, so an object file always has its key and type next to it
+        Properties meta = new Properties();
+        meta.setProperty("key", key);
+        if (content.getContentType() != null) {
+            meta.setProperty("contentType", content.getContentType());
+        }
+        StringWriter metaText = new StringWriter();
+        meta.store(metaText, null);
+        Path metaFile = metaFor(target);
+        DurableFiles.write(new ByteArrayInputStream(metaText.toString().getBytes(StandardCharsets.UTF_8)), metaFile);
+
+        try {
+            DurableFiles.write(content, target);
+        } catch (IOException e) {
+            // Unless a concurrent store of the same bytes got its object in, the metadata is an orphan
+            if (!Files.exists(target)) {
+                Files.deleteIfExists(metaFile);
+            }
+            log.error("IO error while storing file locally key={}", key, e);
+            throw e;
+        }
+        // Without this a crash can lose the renames, and with them an object already reported stored
+        DurableFiles.syncDirectory(target.getParent());
+
+        log.info("File stored successfully. key={} size={} bytes", key, content.getSize());
+        index(key);
+        return key;
+    }
+
+    @Override
+    public StoredObject openFile(String key, String range) throws IOException {
+
+        log.info("Opening local file key={} range={}", key, range);
+
+        // Served from the object file itself through FileChannel.transferTo, no spool copy
+        return StoredObject.fromLocal(open(key, key), range);
+    }
+
+    @Override
+    public DocumentContent downloadFile(String key, String fileName) throws IOException {
+
+        DocumentContent stored = open(key, fileName);
+
+        // Callers own and delete what they get back; a hard link costs no copy and leaves the object alone
+        Path target = documentContentService.createSpoolFile();
+        try {
+            Files.delete(target);
+            Files.createLink(target, stored.getFile());
+        } catch (FileSystemException | UnsupportedOperationException e) {
+            // Spool directory on another file system
+            Files.copy(stored.getFile(), target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        log.info("File read from local storage key={} size={} bytes", key, stored.getSize());
+        return DocumentContent.spooled(target, fileName, stored.getContentType());
+    }
+
+    @Override
+    public PresignedUpload presignUpload(String key, String contentType, long size, String contentHash, Duration ttl) {
+        throw new DirectUploadNotSupportedException("Direct uploads are not supported by the local storage backend.");
+    }
+
+    @Override
+    public Optional<StoredObjectInfo> headFile(String key) throws IOException {
+
+        Path file = pathFor(key);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return Optional.of(StoredObjectInfo.builder()
+                    .contentLength(attributes.size())
+                    .lastModified(attributes.lastModifiedTime().toInstant())
+                    .contentType(readMeta(file).getProperty("contentType"))
+                    .eTag("\"" + Long.toHexString(attributes.size()) + "-"
+                            + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "\"")
+                    .build());
+
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void forEachKey(Consumer<String> action) throws IOException {
+
+        List<Path> metaFiles;
+        try (Stream<Path> files = Files.walk(objectsDir)) {
+            metaFiles = files.filter(f -> f.getFileName().toString().endsWith(META_SUFFIX)).toList();
+        }
+
+        for (Path metaFile : metaFiles) {
+            String key = loadProperties(metaFile).getProperty("key");
+            if (key != null) {
+                action.accept(key);
+            }
+        }
+    }
+
+    private DocumentContent open(String key, String fileName) throws IOException {
+
+        Path file = pathFor(key);
+        try {
+            long size = Files.size(file);
+            return DocumentContent.shared(file, size, fileName, readMeta(file).getProperty("contentType"));
+
+        } catch (NoSuchFileException e) {
+            throw new StoredObjectNotFoundException(key, e);
+        }
+    }
+
+    /**
+     * objects/aa/bb/sha256(key): hashing the key keeps any key format out of the path and
+     * spreads objects evenly over 65536 directories.
+     */
+    private Path pathFor(String key) {
+        String name = ContentHasher.sha256Hex(key.getBytes(StandardCharsets.UTF_8));
+        return objectsDir.resolve(name.substring(0, 2)).resolve(name.substring(2, 4)).resolve(name);
+    }
+
+    private Path metaFor(Path file) {
+        return file.resolveSibling(file.getFileName() + META_SUFFIX);
+    }
+
+    private Properties readMeta(Path file) throws IOException {
+        try {
+            return loadProperties(metaFor(file));
+        } catch (NoSuchFileException e) {
+            return new Properties();
+        }
+    }
+
+    private Properties loadProperties(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    private void index(String key) {
+        try {
+            s3KeyResolverService.register(key);
+        } catch (RuntimeException e) {
+            // The object is stored either way; a missing alias only matters for keys saved in another format
+            log.warn("Failed to index S3 key={} error={}", key, e.getMessage());
+        }
+    }
+}
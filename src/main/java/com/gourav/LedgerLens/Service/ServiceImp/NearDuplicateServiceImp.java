@@ -0,0 +1,205 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gourav.LedgerLens.Domain.Entity.Transaction;
+import com.gourav.LedgerLens.Domain.Enum.processingStatus;
+import com.gourav.LedgerLens.Helper.MinHash;
+import com.gourav.LedgerLens.Helper.TextValues;
+import com.gourav.LedgerLens.Repository.DocumentRepository;
+import com.gourav.LedgerLens.Repository.TransactionRepository;
+import com.gourav.LedgerLens.Service.NearDuplicateService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Per-user LSH index over MinHash signatures.
+ * A user's index is loaded from the documents table on first use and kept in a bounded cache
+ * that expires, so documents completed on other nodes show up within index-ttl-minutes.
+ * A lookup is a handful of hash probes plus a similarity check per candidate.
+ *
+ * Similar text alone is not proof: monthly invoices from one vendor share nearly all their
+ * words. A candidate only counts when the original's totals, dates and invoice numbers all
+ * appear in the new text, i.e. it is the same invoice again.
+ */
+@Service
+@Slf4j
+public class NearDuplicateServiceImp implements NearDuplicateService {
+
+    private final DocumentRepository documentRepository;
+    private final TransactionRepository transactionRepository;
+    private final Counter nearDuplicates;
+    private final Counter rejectedCandidates;
+
+    private Cache<UUID, UserIndex> indexes;
+
+    @Value("${document.dedupe.near-duplicate-enabled:true}")
+    private boolean enabled;
+
+    @Value("${document.dedupe.near-duplicate-threshold:0.85}")
+    private double threshold;
+
+    @Value("${document.dedupe.index-cache-users:1000}")
+    private long indexCacheUsers;
+
+    @Value("${document.dedupe.index-ttl-minutes:10}")
+    private long indexTtlMinutes;
+
+    public NearDuplicateServiceImp(
+            DocumentRepository documentRepository,
+            TransactionRepository transactionRepository,
+            MeterRegistry meterRegistry
+    ) {
+        this.documentRepository = documentRepository;
+        this.transactionRepository = transactionRepository;
+        this.nearDuplicates = meterRegistry.counter("ledgerlens.documents.near_duplicates");
+        this.rejectedCandidates = meterRegistry.counter("ledgerlens.documents.near_duplicate_rejections");
+    }
+
+    @PostConstruct
+    public void init() {
+        indexes = Caffeine.newBuilder()
+                .maximumSize(indexCacheUsers)
+                .expireAfterWrite(Duration.ofMinutes(indexTtlMinutes))
+                .build();
+    }
+
+    @Override
+    public int[] fingerprint(String extractedText) {
+        return enabled ? MinHash.signature(extractedText) : null;
+    }
+
+    @Override
+    public Optional<UUID> findNearDuplicate(UUID userId, int[] signature, String extractedText) {
+
+        if (signature == null) {
+            return Optional.empty();
+        }
+
+        for (UUID candidate : indexFor(userId).candidates(signature, threshold)) {
+            if (sameTransactions(candidate, extractedText)) {
+                nearDuplicates.increment();
+                log.info("Near-duplicate found userId={} originalId={}", userId, candidate);
+                return Optional.of(candidate);
+            }
+            rejectedCandidates.increment();
+            log.info("Similar document has different transactions, not a duplicate userId={} candidateId={}",
+                    userId, candidate);
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    @Transactional
+    public void register(UUID userId, UUID documentId, int[] signature) {
+
+        if (signature == null) {
+            return;
+        }
+
+        documentRepository.updateMinHashSignature(documentId, MinHash.toBytes(signature));
+
+        UserIndex index = indexes.getIfPresent(userId);
+        if (index != null) {
+            index.add(documentId, signature);
+        }
+    }
+
+    private UserIndex indexFor(UUID userId) {
+        return indexes.get(userId, id -> {
+            UserIndex index = new UserIndex();
+            for (Object[] row : documentRepository.findSignaturesByUserId(id, processingStatus.COMPLETED)) {
+                index.add((UUID) row[0], MinHash.fromBytes((byte[]) row[1]));
+            }
+            log.info("Loaded near-duplicate index userId={} documents={}", id, index.size());
+            return index;
+        });
+    }
+
+    /**
+     * True when every transaction of the original can be read off the new text: its total, its
+     * date and, when it has one, its invoice number. Originals without transactions never match.
+     */
+    private boolean sameTransactions(UUID originalId, String extractedText) {
+
+        List<Transaction> originals = transactionRepository.findByDocumentId(originalId);
+        if (originals.isEmpty()) {
+            return false;
+        }
+
+        for (Transaction original : originals) {
+            if (!TextValues.containsAny(extractedText, TextValues.amountRenderings(original.getAmountAfterTax()))
+                    || !TextValues.containsAny(extractedText, TextValues.dateRenderings(original.getTxnDate()))) {
+                return false;
+            }
+            String invoiceNumber = original.getInvoiceNumber();
+            if (invoiceNumber != null && !invoiceNumber.isBlank()
+                    && TextValues.indexOfValue(extractedText, invoiceNumber.trim(), 0) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class UserIndex {
+
+        private final Map<UUID, int[]> signatures = new HashMap<>();
+        private final Map<Long, List<UUID>> buckets = new HashMap<>();
+
+        synchronized void add(UUID documentId, int[] signature) {
+            if (signatures.put(documentId, signature) != null) {
+                return;
+            }
+            for (int band = 0; band < MinHash.BANDS; band++) {
+                buckets.computeIfAbsent(MinHash.bandKey(signature, band), k -> new ArrayList<>(1))
+                        .add(documentId);
+            }
+        }
+
+        // Documents at or above the threshold, most similar first
+        synchronized List<UUID> candidates(int[] signature, double threshold) {
+            Map<UUID, Double> scores = new HashMap<>();
+            for (int band = 0; band < MinHash.BANDS; band++) {
+                List<UUID> bucket = buckets.get(MinHash.bandKey(signature, band));
+                if (bucket == null) {
+                    continue;
+                }
+                for (UUID candidate : bucket) {
+                    if (!scores.containsKey(candidate)) {
+                        scores.put(candidate, MinHash.similarity(signature, signatures.get(candidate)));
+                    }
+                }
+            }
+
+            List<UUID> candidates = new ArrayList<>();
+            scores.forEach((candidate, score) -> {
+                if (score >= threshold) {
+                    candidates.add(candidate);
+                }
+            });
+            candidates.sort((a, b) -> Double.compare(scores.get(b), scores.get(a)));
+            return candidates;
+        }
+
+        synchronized int size() {
+            return signatures.size();
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Helper.ContentHasher;
+import com.gourav.LedgerLens.Helper.DocumentContent;
+import com.gourav.LedgerLens.Helper.StoredObjectInfo;
+import com.gourav.LedgerLens.Service.ObjectCacheService;
+import com.gourav.LedgerLens.Service.S3Service;
+import com.gourav.LedgerLens.Service.UploadStagingService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded, LRU-evicted disk cache of R2 objects, shared by document views and extraction.
+ * Objects are immutable (content-addressed keys), so entries never need invalidating.
+ * The index lives in memory and the directory is cleared at startup, so a crash mid-fill
+ * cannot leave a partial file behind that looks like a complete entry.
+ * Every reader gets its own hard link to the entry, so eviction never deletes a file that
+ * a response is about to open; the bytes go away when the last reader closes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ObjectCacheServiceImp implements ObjectCacheService {
+
+    private final S3Service s3Service;
+    private final UploadStagingService uploadStagingService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${object-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${object-cache.dir:${java.io.tmpdir}/ledgerlens-object-cache}")
+    private Path cacheDir;
+
+    @Value("${object-cache.max-size-bytes:1073741824}")
+    private long maxSizeBytes;
+
+    // Larger objects are served from a one-off download instead of evicting half the cache
+    @Value("${object-cache.max-object-bytes:104857600}")
+    private long maxObjectBytes;
+
+    // Access-ordered, so iteration starts at the least recently used entry; guarded by itself
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    // One download per key however many callers miss at once
+    private final Map<String, CompletableFuture<Entry>> fills = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Value("${object-cache.fill-threads:2}")
+    private int fillThreads;
+
+    // Background downloads for views that missed; a dropped fill is retried by the next miss
+    private ThreadPoolExecutor filler;
+    private Path readerDir;
+
+    private record Entry(Path file, long size, String contentType) {
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+
+        if (!enabled) {
+            log.info("Object cache disabled");
+            return;
+        }
+
+        FileSystemUtils.deleteRecursively(cacheDir);
+        Files.createDirectories(cacheDir);
+
+        // Reader links are per-request and never outlive the process
+        readerDir = cacheDir.resolve("readers");
+        Files.createDirectories(readerDir);
+
+        filler = new ThreadPoolExecutor(
+                fillThreads,
+                fillThreads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(64),
+                new CustomizableThreadFactory("object-cache-fill-"),
+                new ThreadPoolExecutor.DiscardPolicy()
+        );
+
+        Gauge.builder("ledgerlens.object_cache.size", this, cache -> cache.currentBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("ledgerlens.object_cache.entries", this, cache -> cache.currentEntries())
+                .register(meterRegistry);
+        Gauge.builder("ledgerlens.object_cache.hit_ratio", this, cache -> cache.hitRatio())
+                .register(meterRegistry);
+
+        log.info("Object cache ready dir={} maxSizeBytes={} maxObjectBytes={}", cacheDir, maxSizeBytes, maxObjectBytes);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (filler != null) {
+            filler.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public DocumentContent open(String key, String fileName) throws IOException {
+
+        // Written back but not yet in R2: already local, so there is nothing to cache
+        Optional<DocumentContent> staged = uploadStagingService.openStaged(key, fileName);
+        if (staged.isPresent()) {
+            return staged.get();
+        }
+
+        if (!enabled) {
+            return s3Service.downloadFile(key, fileName);
+        }
+
+        Optional<DocumentContent> cached = readCached(key, fileName);
+        if (cached.isPresent()) {
+            count(hits, "hit");
+            return cached.get();
+        }
+        count(misses, "miss");
+
+        return fetch(key, fileName);
+    }
+
+    @Override
+    public Optional<DocumentContent> openIfCached(String key, String fileName) throws IOException {
+
+        Optional<DocumentContent> staged = uploadStagingService.openStaged(key, fileName);
+        if (staged.isPresent() || !enabled) {
+            return staged;
+        }
+
+        Optional<DocumentContent> cached = readCached(key, fileName);
+        if (cached.isPresent()) {
+            count(hits, "hit");
+            return cached;
+        }
+        count(misses, "miss");
+
+        fillInBackground(key);
+        return Optional.empty();
+    }
+
+    /**
+     * Downloads the object and admits it, sharing the download with concurrent misses.
+     */
+    private DocumentContent fetch(String key, String fileName) throws IOException {
+
+        CompletableFuture<Entry> fill = new CompletableFuture<>();
+        CompletableFuture<Entry> inFlight = fills.putIfAbsent(key, fill);
+
+        if (inFlight != null) {
+            Entry filled = await(inFlight, key);
+            if (filled != null) {
+                Optional<DocumentContent> linked = link(filled, fileName);
+                if (linked.isPresent()) {
+                    return linked.get();
+                }
+            }
+            // Too large to keep, or already evicted again: fetch our own copy
+            return s3Service.downloadFile(key, fileName);
+        }
+
+        try {
+            DocumentContent downloaded = s3Service.downloadFile(key, fileName);
+            Entry admitted;
+            try {
+                admitted = admit(key, downloaded);
+            } catch (IOException | RuntimeException e) {
+                // Not moved into the cache, so nobody else will delete the spool file
+                try {
+                    downloaded.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+            fill.complete(admitted);
+
+            if (admitted == null) {
+                return downloaded;
+            }
+            Optional<DocumentContent> linked = link(admitted, fileName);
+            return linked.isPresent() ? linked.get() : s3Service.downloadFile(key, fileName);
+
+        } catch (IOException | RuntimeException e) {
+            fill.completeExceptionally(e);
+            throw e;
+
+        } finally {
+            fills.remove(key, fill);
+        }
+    }
+
+    /**
+     * Caches the object off the request path. Objects over max-object-bytes are skipped after
+     * a HEAD, so they are never downloaded in full just to be thrown away.
+     */
+    private void fillInBackground(String key) {
+
+        if (fills.containsKey(key)) {
+            return;
+        }
+
+        filler.execute(() -> {
+            try {
+                if (lookup(key) != null || fills.containsKey(key)) {
+                    return;
+                }
+                Optional<StoredObjectInfo> info = s3Service.headFile(key);
+                if (info.isEmpty() || info.get().getContentLength() > maxObjectBytes) {
+                    return;
+                }
+                try (DocumentContent ignored = fetch(key, key)) {
+                    log.debug("Object cached in background key={}", key);
+                }
+
+            } catch (IOException | RuntimeException e) {
+                log.warn("Background cache fill failed key={} error={}", key, e.getMessage());
+            }
+        });
+    }
+
+    private Optional<DocumentContent> readCached(String key, String fileName) throws IOException {
+        Entry entry = lookup(key);
+        return entry == null ? Optional.empty() : link(entry, fileName);
+    }
+
+    /**
+     * A private hard link to the entry for one reader; empty if the entry was evicted meanwhile.
+     * The link is the reader's to delete on close.
+     */
+    private Optional<DocumentContent> link(Entry entry, String fileName) throws IOException {
+        Path link = readerDir.resolve(UUID.randomUUID().toString());
+        try {
+            Files.createLink(link, entry.file());
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        return Optional.of(DocumentContent.spooled(link, fileName, entry.contentType()));
+    }
+
+    private Entry lookup(String key) {
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null || Files.exists(entry.file())) {
+            return entry;
+        }
+
+        // Removed behind our back (tmp cleaner); forget it and refill
+        synchronized (entries) {
+            if (entries.remove(key, entry)) {
+                totalBytes -= entry.size();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Moves the downloaded spool file into the cache and evicts least recently used entries
+     * until the cache is back under its size bound. Returns null if the object is not kept.
+     */
+    private Entry admit(String key, DocumentContent downloaded) throws IOException {
+
+        if (downloaded.getSize() > maxObjectBytes) {
+            log.debug("Object too large to cache key={} size={}", key, downloaded.getSize());
+            return null;
+        }
+
+        Path target = cacheDir.resolve(ContentHasher.sha256Hex(key.getBytes(StandardCharsets.UTF_8)));
+        try {
+            Files.move(downloaded.getFile(), target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Spool and cache directories on different file systems
+            Files.move(downloaded.getFile(), target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        Entry entry = new Entry(target, downloaded.getSize(), downloaded.getContentType());
+        synchronized (entries) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                totalBytes -= previous.size();
+            }
+            totalBytes += entry.size();
+            evict(key);
+        }
+
+        log.debug("Object cached key={} size={} cacheBytes={}", key, entry.size(), totalBytes);
+        return entry;
+    }
+
+    // Caller holds the entries lock
+    private void evict(String keep) {
+
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxSizeBytes && eldest.hasNext()) {
+
+            Map.Entry<String, Entry> next = eldest.next();
+            if (next.getKey().equals(keep)) {
+                continue;
+            }
+
+            eldest.remove();
+            totalBytes -= next.getValue().size();
+            meterRegistry.counter("ledgerlens.object_cache.evictions").increment();
+
+            try {
+                // Readers hold their own links, so only the cache's name for the bytes goes
+                Files.deleteIfExists(next.getValue().file());
+            } catch (IOException e) {
+                log.warn("Failed to delete evicted cache file={} error={}", next.getValue().file(), e.getMessage());
+            }
+        }
+    }
+
+    private Entry await(CompletableFuture<Entry> inFlight, String key) throws IOException {
+        try {
+            return inFlight.get();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for object download key=" + key, e);
+
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Object download failed key=" + key, e.getCause());
+        }
+    }
+
+    private void count(AtomicLong counter, String result) {
+        counter.incrementAndGet();
+        meterRegistry.counter("ledgerlens.object_cache.requests", "result", result).increment();
+    }
+
+    private double currentBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    private double currentEntries() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private double hitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+}
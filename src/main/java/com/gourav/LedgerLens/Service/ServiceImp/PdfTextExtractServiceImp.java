@@ -0,0 +1,84 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Exception.ExtractionTimeoutException;
+import com.gourav.LedgerLens.Helper.DocumentContent;
+import com.gourav.LedgerLens.Service.PdfTextExtractService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the text layer of PDFs straight through PDFBox, skipping Tika's detection
+ * and XHTML SAX pipeline. Pages are stripped one at a time and stripping stops
+ * once the character cap is reached or the deadline has passed.
+ */
+@Service
+@Slf4j
+public class PdfTextExtractServiceImp implements PdfTextExtractService {
+
+    private static final byte[] PDF_MAGIC = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+
+    @Value("${pdf.fast-path.enabled:true}")
+    private boolean enabled;
+
+    // PDFBox scratch memory per document before it falls back to temp files
+    @Value("${pdf.max-main-memory-bytes:16777216}")
+    private long maxMainMemoryBytes;
+
+    @Override
+    public boolean isPdf(DocumentContent content) throws IOException {
+
+        if (!enabled || content.getSize() < PDF_MAGIC.length) {
+            return false;
+        }
+
+        byte[] head = content.head(PDF_MAGIC.length);
+        for (int i = 0; i < PDF_MAGIC.length; i++) {
+            if (head[i] != PDF_MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String extractText(DocumentContent content, int maxChars, long deadlineNanos) throws IOException {
+
+        try (PDDocument document = load(content)) {
+
+            PDFTextStripper stripper = new PDFTextStripper();
+            StringBuilder text = new StringBuilder();
+            int pages = document.getNumberOfPages();
+
+            for (int page = 1; page <= pages && text.length() < maxChars; page++) {
+                if (System.nanoTime() - deadlineNanos > 0 || Thread.currentThread().isInterrupted()) {
+                    throw new ExtractionTimeoutException("PDF extraction exceeded its time limit at page " + page);
+                }
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                text.append(stripper.getText(document));
+            }
+
+            if (text.length() > maxChars) {
+                text.setLength(maxChars);
+            }
+
+            log.debug("PDF text extracted pages={} chars={}", pages, text.length());
+            return text.toString();
+        }
+    }
+
+    private PDDocument load(DocumentContent content) throws IOException {
+        if (content.isSpooled()) {
+            // Random access on the temp file instead of reading it onto the heap
+            return PDDocument.load(content.getFile().toFile(), MemoryUsageSetting.setupMixed(maxMainMemoryBytes));
+        }
+        return PDDocument.load(content.getBuffer());
+    }
+}
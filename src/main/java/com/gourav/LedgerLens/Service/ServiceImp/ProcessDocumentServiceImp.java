@@ -1,202 +1,305 @@
 package com.gourav.LedgerLens.Service.ServiceImp;
 
+import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
 import com.gourav.LedgerLens.Domain.Entity.Document;
 import com.gourav.LedgerLens.Domain.Entity.User;
 import com.gourav.LedgerLens.Domain.Enum.processingStatus;
-import com.gourav.LedgerLens.Helper.ByteArrayMultipartFile;
+import com.gourav.LedgerLens.Exception.DocumentProcessingException;
+import com.gourav.LedgerLens.Exception.UnsupportedDocumentTypeException;
+import com.gourav.LedgerLens.Helper.ContentHasher;
+import com.gourav.LedgerLens.Helper.DocumentContent;
 import com.gourav.LedgerLens.Repository.DocumentRepository;
 import com.gourav.LedgerLens.Repository.UserRepository;
 import com.gourav.LedgerLens.Service.*;
 
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ProcessDocumentServiceImp implements ProcessDocumentService {
 
-    private final TransactionService transactionService;
+    private final DocumentPersistService documentPersistService;
+    private final NearDuplicateService nearDuplicateService;
     private final DocumentRepository documentRepository;
     private final TextExtractService textExtractService;
     private final GeminiAiService geminiAiService;
+    private final GeminiBatchService geminiBatchService;
+    private final AiResponseParserService aiResponseParserService;
+    private final TransactionService transactionService;
+    private final LocalExtractionService localExtractionService;
     private final UserRepository userRepository;
-    private final S3Service s3Service;
+    private final UploadStagingService uploadStagingService;
 
     @Value("${cloudflare.r2.bucket}")
     private String bucketName;
 
     @Override
-    @Transactional
-    public void processDocument(UUID documentId, User loggedInUser) {
-
-        log.info("Processing documentId={} userId={}", documentId, loggedInUser.getId());
+    public Document loadForProcessing(UUID documentId) {
 
-        Document document = documentRepository.findById(documentId)
+        // Short read, no transaction held afterwards
+        Document document = documentRepository.findWithUserById(documentId)
                 .orElseThrow(() ->
                         new EntityNotFoundException(
                                 "Document not found with ID: " + documentId
                         )
                 );
 
-        try {
-            log.info("Extracting text from S3 key={}", document.getS3Key());
-            String extractedText =
-                    textExtractService.extractTextFromS3File(
-                            bucketName,
-                            document.getS3Key()
-                    );
+        if (document.getStatus() == processingStatus.COMPLETED
+                || document.getStatus() == processingStatus.DUPLICATE) {
+            log.info("Document already processed, skipping documentId={} status={}", documentId, document.getStatus());
+            return null;
+        }
 
-            log.info("Calling AI service for text extraction");
-            String rawAiResponse =
-                    geminiAiService.extractTextToTransaction(
-                            extractedText,
-                            loggedInUser
-                    );
+        return document;
+    }
+
+    @Override
+    public String extractText(Document document) throws IOException {
+
+        log.info("Extracting text from S3 key={}", document.getS3Key());
+        return textExtractService.extractTextFromS3File(
+                bucketName,
+                document.getS3Key()
+        );
+    }
+
+    @Override
+    public int[] fingerprint(String extractedText) {
+        return nearDuplicateService.fingerprint(extractedText);
+    }
+
+    @Override
+    public boolean markIfNearDuplicate(Document document, int[] signature, String extractedText) {
+
+        Optional<UUID> original =
+                nearDuplicateService.findNearDuplicate(document.getUser().getId(), signature, extractedText);
+        if (original.isEmpty()) {
+            return false;
+        }
+
+        documentPersistService.markDuplicate(document.getId(), original.get());
+        log.info("Skipping AI extraction for near-duplicate documentId={} originalId={}",
+                document.getId(), original.get());
+        return true;
+    }
+
+    @Override
+    public List<CreateTransactionDto> extractTransactions(String extractedText, User owner) throws IOException {
+
+        Optional<List<CreateTransactionDto>> local = localExtractionService.extract(extractedText, owner);
+        if (local.isPresent()) {
+            return local.get();
+        }
+
+        log.info("Calling AI service for text extraction userId={}", owner.getId());
+        String rawAiResponse =
+                geminiAiService.extractTextToTransaction(
+                        extractedText,
+                        owner
+                );
+
+        List<CreateTransactionDto> transactions = parseTransactions(rawAiResponse, extractedText, owner);
+        localExtractionService.learn(extractedText, owner, transactions);
+        return transactions;
+    }
+
+    @Override
+    public CompletableFuture<List<CreateTransactionDto>> extractTransactionsBatched(String extractedText, User owner)
+            throws InterruptedException {
+
+        // Alerts read locally never wait for a batch slot
+        Optional<List<CreateTransactionDto>> local = localExtractionService.extract(extractedText, owner);
+        if (local.isPresent()) {
+            return CompletableFuture.completedFuture(local.get());
+        }
+
+        log.info("Queueing text for batched AI extraction userId={}", owner.getId());
+        return geminiBatchService.submit(extractedText, owner)
+                .thenApply(rawAiResponse -> {
+                    List<CreateTransactionDto> transactions = parseTransactions(rawAiResponse, extractedText, owner);
+                    localExtractionService.learn(extractedText, owner, transactions);
+                    return transactions;
+                });
+    }
+
+    @Override
+    public void persistResult(Document document, List<CreateTransactionDto> transactions, int[] signature) throws IOException {
+        // Short write transaction
+        documentPersistService.completeDocument(document.getId(), transactions);
+        nearDuplicateService.register(document.getUser().getId(), document.getId(), signature);
+        log.info("Document processed successfully documentId={}", document.getId());
+    }
+
+    @Override
+    public void processDocument(UUID documentId) {
+
+        Document document = loadForProcessing(documentId);
+        if (document == null) {
+            return;
+        }
+
+        log.info("Processing documentId={} userId={}", documentId, document.getUser().getId());
 
-            String jsonResponse = extractJsonFromString(rawAiResponse);
-            if (jsonResponse == null) {
-                log.error("No valid JSON found in AI response documentId={}", documentId);
-                document.setStatus(processingStatus.FAILED);
+        try {
+            // Remote work (R2, Tika, Gemini) runs without a DB connection
+            String extractedText = extractText(document);
+
+            int[] signature = fingerprint(extractedText);
+            if (markIfNearDuplicate(document, signature, extractedText)) {
                 return;
             }
 
-            transactionService.createTransactionServiceFromJsonArray(
-                    jsonResponse,
-                    document.getUser(),
-                    document
-            );
-
-            document.setStatus(processingStatus.COMPLETED);
-            log.info("Document processed successfully documentId={}", documentId);
+            List<CreateTransactionDto> transactions = extractTransactions(extractedText, document.getUser());
+            persistResult(document, transactions, signature);
 
         } catch (IOException e) {
             log.error("IO error while processing documentId={}", documentId, e);
-            document.setStatus(processingStatus.FAILED);
-
-        } catch (EntityNotFoundException e) {
-            log.error("Entity error while processing documentId={}", documentId, e);
-            document.setStatus(processingStatus.FAILED);
-
-        } finally {
-            documentRepository.save(document);
-            log.info("Document status={} persisted for documentId={}",
-                    document.getStatus(), documentId);
+            throw new DocumentProcessingException("IO error while processing document " + documentId, e, true);
         }
     }
 
     @Override
-    @Transactional
     public void processAttachment(
-            byte[] filesBytes,
+            DocumentContent content,
             String userEmail,
-            String attachmentName,
-            String contentType,
             String messageId
     ) throws Exception {
 
         log.info("Processing attachment for userEmail={}", userEmail);
 
+        String attachmentName = content.getFileName();
+
         User loggedInUser = userRepository.findByEmail(userEmail)
                 .orElseThrow(() ->
                         new EntityNotFoundException("User not found")
                 );
 
-        String extractedText =
-                textExtractService.extractTextFromAttachment(filesBytes);
+        try {
+            textExtractService.requireSupportedType(content);
+        } catch (UnsupportedDocumentTypeException e) {
+            log.info("Skipping attachment of unsupported type name={} type={} messageId={}",
+                    attachmentName, e.getMediaType(), messageId);
+            return;
+        }
 
-        String rawAiResponse =
-                geminiAiService.extractTextToTransaction(
-                        extractedText,
-                        loggedInUser
-                );
+        String contentHash = ContentHasher.sha256Hex(content);
 
-        String jsonResponse = extractJsonFromString(rawAiResponse);
-        if (jsonResponse == null) {
-            log.error("No JSON extracted from attachment userEmail={}", userEmail);
-            throw new IOException("Failed to extract JSON from AI response");
+        // Already uploaded by hand or received in an earlier email: skip storage, parsing and AI,
+        // but give a copy whose processing failed another run through the pipeline
+        Optional<Document> existing = documentRepository.findByUserAndContentHash(loggedInUser, contentHash);
+        if (existing.isPresent()) {
+            Document document = documentPersistService.reprocess(existing.get().getId(), false);
+            log.info("Duplicate attachment skipped userEmail={} messageId={} contentHash={} status={}",
+                    userEmail, messageId, contentHash, document.getStatus());
+            return;
         }
 
-        log.info("Extracted JSON from AI response: {}", jsonResponse);
-
-        MultipartFile multipartFile = new ByteArrayMultipartFile(
-                filesBytes,
-                "file",
-                attachmentName,
-                contentType
-        );
+        String extractedText =
+                textExtractService.extractText(content);
+
+        int[] signature = fingerprint(extractedText);
+        Optional<UUID> original = nearDuplicateService.findNearDuplicate(loggedInUser.getId(), signature, extractedText);
+        if (original.isPresent()) {
+            String s3Key = uploadStagingService.store(content, contentHash);
+            documentPersistService.saveDuplicateAttachment(
+                    loggedInUser,
+                    s3Key,
+                    attachmentName,
+                    messageId,
+                    contentHash,
+                    original.get()
+            );
+            log.info("Near-duplicate attachment recorded without AI extraction userEmail={} originalId={}",
+                    userEmail, original.get());
+            return;
+        }
 
-        String s3Key = s3Service.uploadFile(multipartFile);
-        log.info("Attachment uploaded to S3 key={}", s3Key);
+        // Bank alerts and known vendor layouts are read locally; everything else goes to the model
+        List<CreateTransactionDto> transactions =
+                localExtractionService.extract(extractedText, loggedInUser).orElse(null);
 
+        if (transactions == null) {
+            String rawAiResponse =
+                    geminiAiService.extractTextToTransaction(
+                            extractedText,
+                            loggedInUser
+                    );
 
-        Document document = Document.builder()
-                .s3Key(s3Key)
-                .originalFileName(attachmentName)
-                .user(loggedInUser)
-                .status(processingStatus.COMPLETED)
-                .gmailMessageId(messageId)
-                .build();
+            transactions = bindValidated(rawAiResponse, extractedText, loggedInUser);
+            if (transactions.isEmpty()) {
+                log.error("No JSON extracted from attachment userEmail={}", userEmail);
+                throw new IOException("Failed to extract JSON from AI response");
+            }
+            localExtractionService.learn(extractedText, loggedInUser, transactions);
+        }
 
-        documentRepository.save(document);
+        log.info("Extracted {} transactions userEmail={}", transactions.size(), userEmail);
 
-        transactionService.createTransactionFromJson(
-                jsonResponse,
-                loggedInUser,
-                document
-        );
+        String s3Key = uploadStagingService.store(content, contentHash);
+        log.info("Attachment uploaded to S3 key={}", s3Key);
 
-        log.info("Attachment processed successfully userEmail={}", userEmail);
-    }
+        try {
+            Document saved = documentPersistService.saveAttachmentDocument(
+                    loggedInUser,
+                    s3Key,
+                    attachmentName,
+                    messageId,
+                    contentHash,
+                    transactions
+            );
+            nearDuplicateService.register(loggedInUser.getId(), saved.getId(), signature);
 
-    private String extractJsonFromString(String text) {
-        if (text == null || text.isBlank()) {
-            log.warn("Empty or null AI response");
-            return null;
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent upload of the same file committed first; its transactions stand
+            log.info("Concurrent duplicate attachment userEmail={} contentHash={}", userEmail, contentHash);
+            return;
         }
 
-        String trimmed = text.trim();
+        log.info("Attachment processed successfully userEmail={}", userEmail);
+    }
 
-        // If the response is already valid JSON (starts with { or [), return it directly
-        if ((trimmed.startsWith("{") && trimmed.endsWith("}")) ||
-            (trimmed.startsWith("[") && trimmed.endsWith("]"))) {
-            log.debug("AI response is already valid JSON");
-            return trimmed;
+    private List<CreateTransactionDto> parseTransactions(String rawAiResponse, String extractedText, User owner) {
+        List<CreateTransactionDto> transactions = bindValidated(rawAiResponse, extractedText, owner);
+        if (transactions.isEmpty()) {
+            throw new DocumentProcessingException("No valid JSON found in AI response", true);
         }
+        return transactions;
+    }
 
-        // Try to extract JSON from markdown code blocks
-        final Pattern pattern =
-                Pattern.compile("(?s)```(?:json)?\\s*(\\{.*?\\}|\\[.*?\\])\\s*```");
-
-        Matcher matcher = pattern.matcher(text);
+    /**
+     * Binds and validates the model response, and only then caches it. A response that does not
+     * bind or fails validation is evicted instead, so a retry or reprocess asks the model again.
+     */
+    private List<CreateTransactionDto> bindValidated(String rawAiResponse, String extractedText, User owner) {
 
-        if (matcher.find()) {
-            log.debug("JSON block extracted from markdown code block");
-            return matcher.group(1).trim();
+        List<CreateTransactionDto> transactions = aiResponseParserService.parseTransactions(rawAiResponse);
+        if (transactions.isEmpty()) {
+            geminiAiService.evictCached(extractedText, owner);
+            return transactions;
         }
 
-        // Try to find embedded JSON object or array
-        final Pattern embeddedPattern = Pattern.compile("(?s)(\\{.*\\}|\\[.*\\])");
-        Matcher embeddedMatcher = embeddedPattern.matcher(text);
-
-        if (embeddedMatcher.find()) {
-            log.debug("Embedded JSON found in AI response");
-            return embeddedMatcher.group(1).trim();
+        try {
+            transactions.forEach(transactionService::validateTransactionDto);
+        } catch (IllegalArgumentException e) {
+            geminiAiService.evictCached(extractedText, owner);
+            throw e;
         }
 
-        log.warn("No JSON found in AI response: {}", text.substring(0, Math.min(100, text.length())));
-        return null;
+        geminiAiService.cacheResult(extractedText, owner, rawAiResponse);
+        return transactions;
     }
 }
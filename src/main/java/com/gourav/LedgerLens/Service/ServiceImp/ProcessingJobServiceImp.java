@@ -0,0 +1,309 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Domain.Entity.ProcessingJob;
+import com.gourav.LedgerLens.Domain.Enum.jobStatus;
+import com.gourav.LedgerLens.Domain.Enum.processingStatus;
+import com.gourav.LedgerLens.Exception.DocumentProcessingException;
+import com.gourav.LedgerLens.Repository.DocumentRepository;
+import com.gourav.LedgerLens.Repository.ProcessingJobRepository;
+import com.gourav.LedgerLens.Service.ProcessingJobService;
+
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProcessingJobServiceImp implements ProcessingJobService {
+
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final ProcessingJobRepository processingJobRepository;
+    private final DocumentRepository documentRepository;
+
+    @Value("${document.processing.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${document.processing.lease-seconds:600}")
+    private long leaseSeconds;
+
+    @Value("${document.processing.backoff-base-seconds:30}")
+    private long backoffBaseSeconds;
+
+    @Value("${document.processing.backoff-max-seconds:1800}")
+    private long backoffMaxSeconds;
+
+    @Value("${document.processing.sweep-batch-size:100}")
+    private int sweepBatchSize;
+
+    @Override
+    @Transactional
+    public ProcessingJob enqueue(UUID documentId) {
+        return enqueue(documentId, null);
+    }
+
+    @Override
+    @Transactional
+    public ProcessingJob enqueue(UUID documentId, String extractedText) {
+
+        ProcessingJob job = ProcessingJob.builder()
+                .documentId(documentId)
+                .extractedText(extractedText)
+                .status(jobStatus.QUEUED)
+                .attempts(0)
+                .maxAttempts(maxAttempts)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+
+        ProcessingJob saved = processingJobRepository.save(job);
+
+        log.info("Processing job queued jobId={} documentId={} textExtracted={}",
+                saved.getId(), documentId, extractedText != null);
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public void attachExtractedText(UUID documentId, String extractedText) {
+
+        int attached = processingJobRepository.attachExtractedText(documentId, extractedText, jobStatus.QUEUED);
+
+        log.info("Inline extraction finished documentId={} attached={}", documentId, attached > 0);
+    }
+
+    @Override
+    @Transactional
+    public ProcessingJob requeue(UUID documentId, boolean skipNearDuplicate) {
+
+        ProcessingJob job = processingJobRepository.findFirstByDocumentIdOrderByCreatedAtDesc(documentId)
+                .orElse(null);
+        if (job == null) {
+            job = enqueue(documentId);
+        }
+
+        if (job.getStatus() == jobStatus.QUEUED || job.getStatus() == jobStatus.RUNNING) {
+            // Already on its way through the pipeline
+            if (skipNearDuplicate && !job.isSkipNearDuplicate()) {
+                job.setSkipNearDuplicate(true);
+                processingJobRepository.save(job);
+            }
+            return job;
+        }
+
+        job.setStatus(jobStatus.QUEUED);
+        job.setAttempts(0);
+        job.setMaxAttempts(maxAttempts);
+        job.setNextAttemptAt(LocalDateTime.now());
+        job.setLeaseOwner(null);
+        job.setLeaseExpiresAt(null);
+        job.setLastError(null);
+        job.setSkipNearDuplicate(skipNearDuplicate);
+        ProcessingJob saved = processingJobRepository.save(job);
+
+        log.info("Processing job requeued jobId={} documentId={} skipNearDuplicate={}",
+                saved.getId(), documentId, skipNearDuplicate);
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public List<ProcessingJob> claim(String nodeId, int limit) {
+
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ProcessingJob> jobs = processingJobRepository.lockDueJobs(now, limit);
+
+        if (jobs.isEmpty()) {
+            return jobs;
+        }
+
+        for (ProcessingJob job : jobs) {
+            job.setStatus(jobStatus.RUNNING);
+            job.setAttempts(job.getAttempts() + 1);
+            // Unique per claim, so a stale copy of a re-claimed job can never pass for the current one,
+            // even on the same node
+            job.setLeaseOwner(nodeId + "/" + UUID.randomUUID());
+            job.setLeaseExpiresAt(now.plusSeconds(leaseSeconds));
+        }
+
+        processingJobRepository.saveAll(jobs);
+        documentRepository.updateStatusByIds(
+                jobs.stream().map(ProcessingJob::getDocumentId).toList(),
+                processingStatus.PROCESSING
+        );
+
+        log.info("Claimed {} processing jobs nodeId={}", jobs.size(), nodeId);
+        return jobs;
+    }
+
+    @Override
+    @Transactional
+    public int renewLeases(Collection<String> leaseOwners) {
+
+        if (leaseOwners.isEmpty()) {
+            return 0;
+        }
+
+        return processingJobRepository.renewLeases(
+                leaseOwners,
+                LocalDateTime.now().plusSeconds(leaseSeconds),
+                jobStatus.RUNNING
+        );
+    }
+
+    @Override
+    @Transactional
+    public void markSucceeded(UUID jobId, String leaseOwner) {
+
+        ProcessingJob job = findLeasedJob(jobId, leaseOwner);
+        if (job == null) {
+            return;
+        }
+
+        job.setStatus(jobStatus.SUCCEEDED);
+        job.setLeaseOwner(null);
+        job.setLeaseExpiresAt(null);
+        job.setLastError(null);
+        job.setExtractedText(null);
+        processingJobRepository.save(job);
+
+        log.info("Processing job succeeded jobId={} attempts={}", jobId, job.getAttempts());
+    }
+
+    @Override
+    @Transactional
+    public void markFailed(UUID jobId, String leaseOwner, Exception error) {
+
+        ProcessingJob job = findLeasedJob(jobId, leaseOwner);
+        if (job == null) {
+            return;
+        }
+
+        job.setLeaseOwner(null);
+        job.setLeaseExpiresAt(null);
+        job.setLastError(truncate(error.getMessage()));
+
+        if (isRetryable(error) && job.getAttempts() < job.getMaxAttempts()) {
+            scheduleRetry(job, LocalDateTime.now());
+        } else {
+            deadLetter(job);
+        }
+
+        processingJobRepository.save(job);
+    }
+
+    @Override
+    @Transactional
+    public void release(UUID jobId, String leaseOwner) {
+
+        ProcessingJob job = findLeasedJob(jobId, leaseOwner);
+        if (job == null) {
+            return;
+        }
+
+        // Not an attempt: the job never reached a worker
+        job.setStatus(jobStatus.QUEUED);
+        job.setAttempts(Math.max(0, job.getAttempts() - 1));
+        job.setLeaseOwner(null);
+        job.setLeaseExpiresAt(null);
+        job.setNextAttemptAt(LocalDateTime.now());
+        processingJobRepository.save(job);
+
+        documentRepository.updateStatusByIds(List.of(job.getDocumentId()), processingStatus.UPLOADED);
+
+        log.info("Processing job released back to queue jobId={}", jobId);
+    }
+
+    @Override
+    @Transactional
+    public int requeueExpiredLeases() {
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ProcessingJob> expired = processingJobRepository.lockExpiredLeases(now, sweepBatchSize);
+
+        for (ProcessingJob job : expired) {
+            log.warn("Lease expired jobId={} documentId={} leaseOwner={} attempts={}",
+                    job.getId(), job.getDocumentId(), job.getLeaseOwner(), job.getAttempts());
+
+            job.setLeaseOwner(null);
+            job.setLeaseExpiresAt(null);
+            job.setLastError("Lease expired before the job completed");
+
+            if (job.getAttempts() < job.getMaxAttempts()) {
+                scheduleRetry(job, now);
+            } else {
+                deadLetter(job);
+            }
+        }
+
+        processingJobRepository.saveAll(expired);
+        return expired.size();
+    }
+
+    private ProcessingJob findLeasedJob(UUID jobId, String leaseOwner) {
+
+        ProcessingJob job = processingJobRepository.findById(jobId)
+                .orElseThrow(() ->
+                        new EntityNotFoundException("Processing job not found with ID: " + jobId)
+                );
+
+        if (job.getStatus() != jobStatus.RUNNING || !leaseOwner.equals(job.getLeaseOwner())) {
+            log.warn("Lease no longer held jobId={} status={} leaseOwner={} caller={}",
+                    jobId, job.getStatus(), job.getLeaseOwner(), leaseOwner);
+            return null;
+        }
+
+        return job;
+    }
+
+    private void scheduleRetry(ProcessingJob job, LocalDateTime now) {
+
+        // Exponential backoff with up to 25% jitter so failed batches don't retry in lockstep
+        long delay = Math.min(backoffMaxSeconds, backoffBaseSeconds << Math.min(job.getAttempts() - 1, 20));
+        delay += ThreadLocalRandom.current().nextLong(delay / 4 + 1);
+
+        job.setStatus(jobStatus.QUEUED);
+        job.setNextAttemptAt(now.plusSeconds(delay));
+
+        log.warn("Processing job will retry jobId={} attempt={}/{} inSeconds={}",
+                job.getId(), job.getAttempts(), job.getMaxAttempts(), delay);
+    }
+
+    private void deadLetter(ProcessingJob job) {
+
+        job.setStatus(jobStatus.DEAD);
+        documentRepository.updateStatusByIds(List.of(job.getDocumentId()), processingStatus.FAILED);
+
+        log.error("Processing job moved to dead-letter jobId={} documentId={} attempts={} lastError={}",
+                job.getId(), job.getDocumentId(), job.getAttempts(), job.getLastError());
+    }
+
+    private boolean isRetryable(Exception error) {
+        if (error instanceof DocumentProcessingException processingException) {
+            return processingException.isRetryable();
+        }
+        return !(error instanceof EntityNotFoundException || error instanceof IllegalArgumentException);
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,222 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gourav.LedgerLens.Domain.Entity.S3KeyAlias;
+import com.gourav.LedgerLens.Repository.DocumentRepository;
+import com.gourav.LedgerLens.Repository.S3KeyAliasRepository;
+import com.gourav.LedgerLens.Service.S3KeyResolverService;
+import com.gourav.LedgerLens.Service.S3Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves keys that miss in R2 through the s3_key_aliases table instead of scanning the bucket.
+ * Every stored object is indexed under its full key and its file name, and legacy
+ * "<uuid>-<original name>" keys also under the original name, so URL-style keys, bare file names
+ * and the suffix lookups the old bucket scan allowed resolve with one primary-key lookup, fronted
+ * by a bounded cache.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class S3KeyResolverServiceImp implements S3KeyResolverService {
+
+    // Legacy uploads were stored as UUID.randomUUID() + "-" + original file name
+    private static final Pattern LEGACY_KEY = Pattern.compile(
+            "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}-(.+)", Pattern.CASE_INSENSITIVE);
+
+    private final S3KeyAliasRepository s3KeyAliasRepository;
+    private final DocumentRepository documentRepository;
+    // Looked up lazily: the storage backend registers its keys here, so it depends on this service
+    private final ObjectProvider<S3Service> s3Service;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${cloudflare.r2.bucket}")
+    private String bucketName;
+
+    @Value("${s3.key-index.cache-size:10000}")
+    private long cacheSize;
+
+    // Bounds how long another node's new alias can be hidden by a cached miss
+    @Value("${s3.key-index.cache-ttl-seconds:600}")
+    private long cacheTtlSeconds;
+
+    @Value("${s3.key-index.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    @Value("${s3.key-index.backfill-page-size:500}")
+    private int backfillPageSize;
+
+    // Keyed by normalized key; misses are cached too, as Optional.empty()
+    private Cache<String, Optional<String>> resolved;
+
+    @PostConstruct
+    public void init() {
+        resolved = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .build();
+    }
+
+    @Override
+    public String normalize(String key) {
+
+        // Trim, convert backslashes to forward slashes, strip leading slashes
+        String normalized = key.trim().replace('\\', '/');
+        while (normalized.startsWith("/")) {
+            normalized = normalized.substring(1);
+        }
+
+        // If a URL was stored, keep the last path segment
+        if (normalized.startsWith("http")) {
+            normalized = fileName(normalized);
+        }
+
+        // URL-decode common encodings
+        if (normalized.contains("%")) {
+            try {
+                normalized = URLDecoder.decode(normalized, StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                log.debug("Failed to URL-decode key={}, proceeding with raw key", normalized, e);
+            }
+        }
+        return normalized;
+    }
+
+    @Override
+    public Optional<String> resolve(String key) {
+
+        Optional<String> canonical = resolved.get(normalize(key), this::lookup);
+
+        meterRegistry.counter("ledgerlens.s3.key_resolutions",
+                "result", canonical.isPresent() ? "hit" : "miss").increment();
+        return canonical;
+    }
+
+    @Override
+    public void register(String canonicalKey) {
+
+        String fileName = fileName(canonicalKey);
+
+        s3KeyAliasRepository.upsert(canonicalKey, canonicalKey);
+        resolved.invalidate(canonicalKey);
+
+        if (!fileName.equals(canonicalKey)) {
+            s3KeyAliasRepository.upsert(fileName, canonicalKey);
+            resolved.invalidate(fileName);
+        }
+
+        // Two uploads of the same file name make this alias ambiguous, as for any other collision
+        Optional<String> originalName = originalName(fileName);
+        if (originalName.isPresent()) {
+            s3KeyAliasRepository.upsert(originalName.get(), canonicalKey);
+            resolved.invalidate(originalName.get());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() throws IOException {
+        if (backfillOnStartup) {
+            backfill();
+        }
+    }
+
+    @Override
+    public int backfill() throws IOException {
+
+        long start = System.currentTimeMillis();
+        log.info("S3 key index backfill started bucket={}", bucketName);
+
+        // Full listing, so unlike the old fallback it sees every object, not the first 1000
+        AtomicLong objects = new AtomicLong();
+        s3Service.getObject().forEachKey(key -> {
+            register(key);
+            objects.incrementAndGet();
+        });
+
+        int updated = 0;
+        for (int page = 0; ; page++) {
+
+            List<Object[]> rows = documentRepository.findS3Keys(PageRequest.of(page, backfillPageSize));
+            for (Object[] row : rows) {
+                UUID documentId = (UUID) row[0];
+                String storedKey = (String) row[1];
+
+                Optional<String> canonical = resolve(storedKey);
+                if (canonical.isPresent() && !canonical.get().equals(storedKey)) {
+                    documentRepository.updateS3Key(documentId, canonical.get());
+                    log.info("Document key rewritten documentId={} from='{}' to='{}'",
+                            documentId, storedKey, canonical.get());
+                    updated++;
+                }
+            }
+
+            if (rows.size() < backfillPageSize) {
+                break;
+            }
+        }
+
+        log.info("S3 key index backfill completed objects={} documentsUpdated={} in {} ms",
+                objects.get(), updated, System.currentTimeMillis() - start);
+        return updated;
+    }
+
+    private Optional<String> lookup(String normalizedKey) {
+
+        Optional<String> canonical = canonicalKey(normalizedKey);
+
+        // Keys shortened from URLs, or stored without their prefix, are indexed by file name
+        String fileName = fileName(normalizedKey);
+        if (canonical.isEmpty() && !fileName.equals(normalizedKey)) {
+            canonical = canonicalKey(fileName);
+        }
+        return canonical;
+    }
+
+    private Optional<String> canonicalKey(String alias) {
+
+        Optional<S3KeyAlias> match = s3KeyAliasRepository.findById(alias);
+        if (match.isPresent() && match.get().getCanonicalKey() == null) {
+            log.warn("S3 key alias matches several objects, not resolving alias='{}'", alias);
+            return Optional.empty();
+        }
+        return match.map(S3KeyAlias::getCanonicalKey);
+    }
+
+    /**
+     * The original file name of a legacy "<uuid>-<name>" key, which the old bucket scan found by suffix.
+     */
+    static Optional<String> originalName(String fileName) {
+        Matcher matcher = LEGACY_KEY.matcher(fileName);
+        return matcher.matches() ? Optional.of(matcher.group(1)) : Optional.empty();
+    }
+
+    private String fileName(String key) {
+        int idx = key.lastIndexOf('/');
+        return idx != -1 && idx + 1 < key.length() ? key.substring(idx + 1) : key;
+    }
+}
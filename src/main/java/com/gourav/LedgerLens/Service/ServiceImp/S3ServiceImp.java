@@ -1,59 +1,121 @@
 package com.gourav.LedgerLens.Service.ServiceImp;
 
+import com.gourav.LedgerLens.Exception.RangeNotSatisfiableException;
+import com.gourav.LedgerLens.Exception.StoredObjectNotFoundException;
+import com.gourav.LedgerLens.Helper.DocumentContent;
+import com.gourav.LedgerLens.Helper.PresignedUpload;
+import com.gourav.LedgerLens.Helper.StoredObject;
+import com.gourav.LedgerLens.Helper.StoredObjectInfo;
+import com.gourav.LedgerLens.Service.DocumentContentService;
+import com.gourav.LedgerLens.Service.S3KeyResolverService;
 import com.gourav.LedgerLens.Service.S3Service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
-import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.FileTransformerConfiguration;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
 import java.io.IOException;
-import java.util.UUID;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
+/**
+ * Cloudflare R2 storage backend, active unless the local-storage profile is.
+ */
 @Service
+@Profile("!local-storage")
 @RequiredArgsConstructor
 @Slf4j
 public class S3ServiceImp implements S3Service {
 
     private final S3Client s3Client;
+    private final S3AsyncClient s3AsyncClient;
+    private final DocumentContentService documentContentService;
+    private final S3Presigner s3Presigner;
+    private final S3KeyResolverService s3KeyResolverService;
 
     @Value("${cloudflare.r2.bucket}")
     private String bucketName;
 
+    // Spooled uploads at or above this size go through the async multipart client
+    @Value("${s3.multipart.threshold-bytes:16777216}")
+    private long multipartThresholdBytes;
+
     @Override
-    public String uploadFile(MultipartFile file) throws IOException {
+    public String uploadFile(DocumentContent content, String contentHash) throws IOException {
 
-        String key = UUID.randomUUID() + "-" + file.getOriginalFilename();
+        // Content-addressed: identical bytes always map to the same object
+        String key = keyFor(contentHash);
+
+        if (objectExists(key)) {
+            log.info("Object already stored, skipping upload key={}", key);
+            index(key);
+            return key;
+        }
 
         log.info(
-                "Uploading file to S3 bucket={} originalName={} generatedKey={}",
+                "Uploading file to S3 bucket={} originalName={} contentKey={} spooled={}",
                 bucketName,
-                file.getOriginalFilename(),
-                key
+                content.getFileName(),
+                key,
+                content.isSpooled()
         );
 
+        if (content.isSpooled() && content.getSize() >= multipartThresholdBytes) {
+            uploadMultipart(key, content);
+            index(key);
+            return key;
+        }
+
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(content.getContentType())
+                .contentLength(content.getSize())
+                .build();
+
         try {
-            s3Client.putObject(
-                    PutObjectRequest.builder()
-                            .bucket(bucketName)
-                            .key(key)
-                            .contentType(file.getContentType())
-                            .build(),
-                    RequestBody.fromBytes(file.getBytes())
-            );
+            // Streamed from the temp file or the existing buffer; RequestBody.fromBytes would copy it
+            if (content.isSpooled()) {
+                s3Client.putObject(request, RequestBody.fromFile(content.getFile()));
+            } else {
+                try (InputStream in = content.openStream()) {
+                    s3Client.putObject(request, RequestBody.fromInputStream(in, content.getSize()));
+                }
+            }
 
             log.info("File uploaded successfully. key={}", key);
-            // Return the S3 key directly instead of URL to preserve folder paths
+            index(key);
             return key;
 
         } catch (S3Exception e) {
@@ -64,7 +126,7 @@ public class S3ServiceImp implements S3Service {
         } catch (IOException e) {
             log.error(
                     "IO error while reading file for upload. filename={}",
-                    file.getOriginalFilename(),
+                    content.getFileName(),
                     e
             );
             throw e;
@@ -72,27 +134,78 @@ public class S3ServiceImp implements S3Service {
     }
 
     @Override
-    public byte[] viewFile(String s3Key) throws IOException {
+    public DocumentContent downloadFile(String s3Key, String fileName) throws IOException {
+
+        log.info("Downloading file from S3 bucket={} key={}", bucketName, s3Key);
+
+        Path target = documentContentService.createSpoolFile();
+        try {
+            GetObjectResponse response = await(
+                    s3AsyncClient.getObject(
+                            GetObjectRequest.builder()
+                                    .bucket(bucketName)
+                                    .key(s3Key)
+                                    .build(),
+                            AsyncResponseTransformer.toFile(target,
+                                    FileTransformerConfiguration.defaultCreateOrReplaceExisting())
+                    ),
+                    s3Key
+            );
+
+            log.info("File downloaded successfully key={} size={} bytes", s3Key, response.contentLength());
+            return DocumentContent.spooled(target, fileName, response.contentType());
+
+        } catch (IOException e) {
+            Files.deleteIfExists(target);
+            // Callers tell a missing key from other failures by the exception type
+            if (e.getCause() instanceof S3Exception s3 && s3.statusCode() == 404) {
+                throw new StoredObjectNotFoundException(s3Key, s3);
+            }
+            throw e;
+
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    @Override
+    public StoredObject openFile(String s3Key, String range) throws IOException {
 
-        log.info("Fetching file from S3 bucket={} key={}", bucketName, s3Key);
+        log.info("Opening file from S3 bucket={} key={} range={}", bucketName, s3Key, range);
 
         GetObjectRequest objectRequest = GetObjectRequest.builder()
                 .bucket(bucketName)
                 .key(s3Key)
+                .range(range)
                 .build();
 
         try {
-            ResponseBytes<GetObjectResponse> objectBytes =
-                    s3Client.getObjectAsBytes(objectRequest);
+            // Only the response headers have been read at this point; the body streams as the caller reads
+            ResponseInputStream<GetObjectResponse> object = s3Client.getObject(objectRequest);
+            GetObjectResponse response = object.response();
 
-            log.info("File fetched successfully key={} size={} bytes",
+            log.info("File opened successfully key={} length={} bytes contentRange={}",
                     s3Key,
-                    objectBytes.asByteArray().length
+                    response.contentLength(),
+                    response.contentRange()
             );
 
-            return objectBytes.asByteArray();
+            return StoredObject.builder()
+                    .body(object)
+                    .contentType(response.contentType())
+                    .contentLength(response.contentLength())
+                    .eTag(response.eTag())
+                    .contentRange(response.contentRange())
+                    .build();
 
         } catch (S3Exception e) {
+            if (e.statusCode() == 416) {
+                throw new RangeNotSatisfiableException("Range not satisfiable: " + range, e);
+            }
+            if (e.statusCode() == 404) {
+                throw new StoredObjectNotFoundException(s3Key, e);
+            }
             log.error(
                     "S3 error while fetching file. bucket={} key={}",
                     bucketName,
@@ -102,4 +215,129 @@ public class S3ServiceImp implements S3Service {
             throw new IOException("Failed to fetch file from S3", e);
         }
     }
+
+    /**
+     * Parts are read from the spool file and sent in parallel by the async client; at most
+     * s3.multipart.buffer-bytes of part data is held in memory at a time.
+     */
+    private void uploadMultipart(String key, DocumentContent content) throws IOException {
+
+        long start = System.currentTimeMillis();
+
+        // No content length here: the multipart client takes it from the body and sets it per part
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(content.getContentType())
+                .build();
+
+        await(s3AsyncClient.putObject(request, AsyncRequestBody.fromFile(content.getFile())), key);
+
+        log.info("File uploaded successfully (multipart). key={} size={} bytes in {} ms",
+                key, content.getSize(), System.currentTimeMillis() - start);
+    }
+
+    private <T> T await(CompletableFuture<T> transfer, String key) throws IOException {
+        try {
+            return transfer.get();
+
+        } catch (InterruptedException e) {
+            transfer.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted during S3 transfer key=" + key, e);
+
+        } catch (ExecutionException e) {
+            log.error("S3 transfer failed bucket={} key={}", bucketName, key, e.getCause());
+            throw new IOException("S3 transfer failed for key " + key, e.getCause());
+        }
+    }
+
+    private void index(String key) {
+        try {
+            s3KeyResolverService.register(key);
+        } catch (RuntimeException e) {
+            // The object is stored either way; a missing alias only matters for keys saved in another format
+            log.warn("Failed to index S3 key={} error={}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public PresignedUpload presignUpload(
+            String key,
+            String contentType,
+            long size,
+            String contentHash,
+            Duration ttl
+    ) {
+
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .contentLength(size)
+                // Signed header: R2 verifies the uploaded bytes against the hash the key is named after
+                .checksumSHA256(Base64.getEncoder().encodeToString(HexFormat.of().parseHex(contentHash)))
+                .build();
+
+        PresignedPutObjectRequest presigned = s3Presigner.presignPutObject(
+                PutObjectPresignRequest.builder()
+                        .signatureDuration(ttl)
+                        .putObjectRequest(request)
+                        .build()
+        );
+
+        log.info("Presigned upload issued key={} size={} expiresAt={}", key, size, presigned.expiration());
+        return PresignedUpload.builder()
+                .url(presigned.url().toString())
+                .signedHeaders(presigned.signedHeaders())
+                .expiresAt(presigned.expiration())
+                .build();
+    }
+
+    @Override
+    public Optional<StoredObjectInfo> headFile(String key) throws IOException {
+        try {
+            HeadObjectResponse response = s3Client.headObject(
+                    HeadObjectRequest.builder()
+                            .bucket(bucketName)
+                            .key(key)
+                            .build()
+            );
+            return Optional.of(StoredObjectInfo.builder()
+                    .contentLength(response.contentLength())
+                    .lastModified(response.lastModified())
+                    .contentType(response.contentType())
+                    .eTag(response.eTag())
+                    .build());
+
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            log.error("S3 error while checking object. bucket={} key={}", bucketName, key, e);
+            throw new IOException("Failed to check object in S3", e);
+        }
+    }
+
+    @Override
+    public void forEachKey(Consumer<String> action) throws IOException {
+        try {
+            // Paginated listing, so it sees every object, not the first 1000
+            for (S3Object object : s3Client.listObjectsV2Paginator(
+                    ListObjectsV2Request.builder().bucket(bucketName).build()).contents()) {
+                action.accept(object.key());
+            }
+
+        } catch (S3Exception e) {
+            log.error("S3 error while listing objects. bucket={}", bucketName, e);
+            throw new IOException("Failed to list objects in S3", e);
+        }
+    }
+
+    private boolean objectExists(String key) throws IOException {
+        return headFile(key).isPresent();
+    }
 }
@@ -0,0 +1,429 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
+import com.gourav.LedgerLens.Domain.Entity.ExtractionTemplate;
+import com.gourav.LedgerLens.Domain.Entity.User;
+import com.gourav.LedgerLens.Helper.ContentHasher;
+import com.gourav.LedgerLens.Helper.TextValues;
+import com.gourav.LedgerLens.Repository.ExtractionTemplateRepository;
+import com.gourav.LedgerLens.Service.TransactionExtractorService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Learns per-vendor layouts from AI results. After an extraction, each field value is located
+ * in the text and the label right before it on the same line is kept as its anchor; the
+ * template is stored under the owner and a fingerprint of the document's header lines with
+ * digits and month names masked, so next month's invoice from the same vendor maps to it.
+ *
+ * A template is only used once a later AI extraction of a different document with the same
+ * layout agreed with it; the text it was learned from cannot confirm it. A
+ * sample of matching documents keeps going to the model; when the model disagrees with what the
+ * template reads, the template is dropped and relearned from the model's answer.
+ */
+@Service
+@Order(2)
+@RequiredArgsConstructor
+@Slf4j
+public class TemplateExtractorServiceImp implements TransactionExtractorService {
+
+    private static final String AMOUNT_AFTER_TAX = "amountAfterTax";
+    private static final String AMOUNT_BEFORE_TAX = "amountBeforeTax";
+    private static final String TXN_DATE = "txnDate";
+    private static final String INVOICE_NUMBER = "invoiceNumber";
+
+    private static final Pattern HORIZONTAL_SPACE = Pattern.compile("[ \\t\\x0B\\f\\u00A0]+");
+    private static final Pattern LINE_BREAK = Pattern.compile("\\R");
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+    private static final Pattern MONTHS = Pattern.compile(
+            "\\b(?:jan|feb|mar|apr|may|jun|jul|aug|sep|oct|nov|dec)[a-z]*\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern AMOUNT_VALUE = Pattern.compile("\\d[\\d,]*(?:\\.\\d{1,2})?(?!\\d)");
+    private static final Pattern INVOICE_VALUE = Pattern.compile("[A-Za-z0-9][A-Za-z0-9/-]*[A-Za-z0-9]|[A-Za-z0-9]");
+
+    private static final int MAX_ANCHOR_CHARS = 40;
+
+    /**
+     * Label text right before a value, and for dates the layout the value is written in.
+     */
+    record Anchor(String text, String format) {
+    }
+
+    private final ExtractionTemplateRepository extractionTemplateRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${extraction-templates.enabled:true}")
+    private boolean enabled;
+
+    // AI extractions that must agree with a new template before it answers on its own
+    @Value("${extraction-templates.min-confirmations:1}")
+    private int minConfirmations;
+
+    @Value("${extraction-templates.verify-sample-rate:0.05}")
+    private double verifySampleRate;
+
+    @Value("${extraction-templates.layout-lines:12}")
+    private int layoutLines;
+
+    @Value("${extraction-templates.memory-size:10000}")
+    private long memorySize;
+
+    // Bounds how long another node keeps using a template this node invalidated
+    @Value("${extraction-templates.memory-ttl-minutes:10}")
+    private long memoryTtlMinutes;
+
+    // Misses are cached too, so documents without a template cost no query
+    private Cache<String, Optional<ExtractionTemplate>> memory;
+
+    @PostConstruct
+    public void init() {
+        memory = Caffeine.newBuilder()
+                .maximumSize(memorySize)
+                .expireAfterWrite(Duration.ofMinutes(memoryTtlMinutes))
+                .build();
+    }
+
+    @Override
+    public String name() {
+        return "template";
+    }
+
+    @Override
+    public Optional<List<CreateTransactionDto>> extract(String extractedText, User owner) {
+
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        List<String> lines = lines(extractedText);
+        String key = templateKey(owner, lines);
+        if (key == null) {
+            return Optional.empty();
+        }
+
+        Optional<ExtractionTemplate> template = lookup(key);
+        if (template.isEmpty() || template.get().getConfirmations() < minConfirmations) {
+            return Optional.empty();
+        }
+
+        // Sampled documents go to the model, and learn() checks the template against its answer
+        if (ThreadLocalRandom.current().nextDouble() < verifySampleRate) {
+            count("sampled");
+            return Optional.empty();
+        }
+
+        Optional<CreateTransactionDto> transaction = apply(template.get(), String.join("\n", lines));
+        if (transaction.isEmpty()) {
+            count("unresolved");
+            return Optional.empty();
+        }
+
+        return Optional.of(List.of(transaction.get()));
+    }
+
+    @Override
+    public void learn(String extractedText, User owner, List<CreateTransactionDto> transactions) {
+
+        // Statements and multi-line documents have no single position per field
+        if (!enabled || transactions.size() != 1) {
+            return;
+        }
+
+        List<String> lines = lines(extractedText);
+        String key = templateKey(owner, lines);
+        if (key == null) {
+            return;
+        }
+
+        String text = String.join("\n", lines);
+        String textHash = ContentHasher.sha256Hex(text.getBytes(StandardCharsets.UTF_8));
+        CreateTransactionDto expected = transactions.get(0);
+
+        Optional<ExtractionTemplate> existing = lookup(key);
+        if (existing.isPresent()) {
+            ExtractionTemplate template = existing.get();
+            Optional<CreateTransactionDto> local = apply(template, text);
+
+            if (local.isPresent() && agrees(local.get(), expected)) {
+                // Retries, reprocessing and cached answers replay the same text; only new documents count
+                if (textHash.equals(template.getSourceHash()) || textHash.equals(template.getConfirmedHash())) {
+                    count("repeated");
+                    return;
+                }
+                template.setConfirmations(template.getConfirmations() + 1);
+                template.setConfirmedHash(textHash);
+                memory.put(key, Optional.of(extractionTemplateRepository.save(template)));
+                count("verified");
+                return;
+            }
+
+            extractionTemplateRepository.deleteById(key);
+            memory.invalidate(key);
+            count("invalidated");
+            log.info("Extraction template disagreed with AI result, invalidated key={} userId={} confirmations={}",
+                    key, owner.getId(), template.getConfirmations());
+        }
+
+        Optional<ExtractionTemplate> learned = learnTemplate(key, text, textHash, expected);
+        if (learned.isEmpty()) {
+            memory.put(key, Optional.empty());
+            return;
+        }
+
+        memory.put(key, Optional.of(extractionTemplateRepository.save(learned.get())));
+        count("learned");
+        log.info("Extraction template learned key={} userId={} client={}", key, owner.getId(), expected.getClient());
+    }
+
+    private Optional<ExtractionTemplate> lookup(String key) {
+        return memory.get(key, extractionTemplateRepository::findById);
+    }
+
+    private Optional<ExtractionTemplate> learnTemplate(String key, String text, String textHash, CreateTransactionDto expected) {
+
+        if (expected.getAmountAfterTax() == null || expected.getTxnDate() == null) {
+            return Optional.empty();
+        }
+
+        Map<String, Anchor> anchors = new LinkedHashMap<>();
+
+        Anchor total = anchorFor(text, TextValues.amountRenderings(expected.getAmountAfterTax()), null);
+        Anchor date = dateAnchor(text, expected.getTxnDate());
+        if (total == null || date == null) {
+            return Optional.empty();
+        }
+        anchors.put(AMOUNT_AFTER_TAX, total);
+        anchors.put(TXN_DATE, date);
+
+        if (expected.getAmountBeforeTax() != null) {
+            Anchor subtotal = anchorFor(text, TextValues.amountRenderings(expected.getAmountBeforeTax()), null);
+            if (subtotal != null) {
+                anchors.put(AMOUNT_BEFORE_TAX, subtotal);
+            }
+        }
+        if (expected.getInvoiceNumber() != null && !expected.getInvoiceNumber().isBlank()) {
+            Anchor invoice = anchorFor(text, List.of(expected.getInvoiceNumber().trim()), null);
+            if (invoice != null) {
+                anchors.put(INVOICE_NUMBER, invoice);
+            }
+        }
+
+        ExtractionTemplate template;
+        try {
+            template = ExtractionTemplate.builder()
+                    .templateKey(key)
+                    .client(expected.getClient())
+                    .currency(expected.getCurrency())
+                    .category(expected.getCategory())
+                    .transactionType(expected.getTransactionType())
+                    .paymentMethod(expected.getPaymentMethod())
+                    .anchors(objectMapper.writeValueAsString(anchors))
+                    .confirmations(0)
+                    .sourceHash(textHash)
+                    .build();
+        } catch (JsonProcessingException e) {
+            return Optional.empty();
+        }
+
+        // Only keep anchors that read back exactly what the model returned
+        Optional<CreateTransactionDto> replay = apply(template, text);
+        if (replay.isEmpty() || !agrees(replay.get(), expected)) {
+            return Optional.empty();
+        }
+        return Optional.of(template);
+    }
+
+    private Optional<CreateTransactionDto> apply(ExtractionTemplate template, String text) {
+
+        Map<String, Anchor> anchors;
+        try {
+            anchors = objectMapper.readValue(template.getAnchors(), new TypeReference<Map<String, Anchor>>() {
+            });
+        } catch (JsonProcessingException e) {
+            log.warn("Unreadable extraction template key={} error={}", template.getTemplateKey(), e.getMessage());
+            return Optional.empty();
+        }
+
+        BigDecimal total = readAmount(text, anchors.get(AMOUNT_AFTER_TAX));
+        LocalDate date = readDate(text, anchors.get(TXN_DATE));
+        if (total == null || date == null) {
+            return Optional.empty();
+        }
+
+        CreateTransactionDto transaction = new CreateTransactionDto();
+        transaction.setClient(template.getClient());
+        transaction.setTxnDate(date);
+        transaction.setAmountAfterTax(total);
+        transaction.setAmountBeforeTax(readAmount(text, anchors.get(AMOUNT_BEFORE_TAX)));
+        transaction.setCurrency(template.getCurrency());
+        transaction.setCategory(template.getCategory());
+        transaction.setTransactionType(template.getTransactionType());
+        transaction.setPaymentMethod(template.getPaymentMethod());
+        transaction.setInvoiceNumber(readInvoice(text, anchors.get(INVOICE_NUMBER)));
+        return Optional.of(transaction);
+    }
+
+    private boolean agrees(CreateTransactionDto local, CreateTransactionDto expected) {
+
+        // Client and category are copied from the template; only values read from the text count
+        if (local.getAmountAfterTax().compareTo(expected.getAmountAfterTax()) != 0
+                || !local.getTxnDate().equals(expected.getTxnDate())) {
+            return false;
+        }
+        if (expected.getAmountBeforeTax() != null
+                && (local.getAmountBeforeTax() == null || local.getAmountBeforeTax().compareTo(expected.getAmountBeforeTax()) != 0)) {
+            return false;
+        }
+        return expected.getInvoiceNumber() == null
+                || local.getInvoiceNumber() == null
+                || local.getInvoiceNumber().equalsIgnoreCase(expected.getInvoiceNumber().trim());
+    }
+
+    /**
+     * Label before the first occurrence of any rendering that has one: at least one letter, no
+     * digits, and found exactly once in the text, so it points at one place in every document.
+     */
+    private Anchor anchorFor(String text, List<String> renderings, String format) {
+
+        for (String rendering : renderings) {
+            int at = -1;
+            while ((at = TextValues.indexOfValue(text, rendering, at + 1)) >= 0) {
+
+                int lineStart = text.lastIndexOf('\n', at - 1) + 1;
+                String label = text.substring(Math.max(lineStart, at - MAX_ANCHOR_CHARS), at);
+                if (label.isBlank() || DIGITS.matcher(label).find() || label.chars().noneMatch(Character::isLetter)) {
+                    continue;
+                }
+
+                // Anchors on the same line as another value are fine; the label itself must be unique
+                if (text.indexOf(label) == text.lastIndexOf(label)) {
+                    return new Anchor(label, format);
+                }
+            }
+        }
+        return null;
+    }
+
+    // Layouts are tried in order; an ambiguous day/month pick is corrected by verification
+    private Anchor dateAnchor(String text, LocalDate date) {
+        for (String format : TextValues.DATE_FORMATS) {
+            Anchor anchor = anchorFor(text, List.of(date.format(TextValues.dateFormat(format))), format);
+            if (anchor != null) {
+                return anchor;
+            }
+        }
+        return null;
+    }
+
+    private BigDecimal readAmount(String text, Anchor anchor) {
+        int start = valueStart(text, anchor);
+        if (start < 0) {
+            return null;
+        }
+        Matcher matcher = AMOUNT_VALUE.matcher(text).region(start, text.length());
+        if (!matcher.lookingAt()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(matcher.group().replace(",", ""));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private LocalDate readDate(String text, Anchor anchor) {
+        int start = valueStart(text, anchor);
+        if (start < 0 || anchor.format() == null) {
+            return null;
+        }
+        try {
+            return LocalDate.from(TextValues.dateFormat(anchor.format()).parse(text, new ParsePosition(start)));
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private String readInvoice(String text, Anchor anchor) {
+        int start = valueStart(text, anchor);
+        if (start < 0) {
+            return null;
+        }
+        Matcher matcher = INVOICE_VALUE.matcher(text).region(start, text.length());
+        return matcher.lookingAt() ? matcher.group() : null;
+    }
+
+    private int valueStart(String text, Anchor anchor) {
+        if (anchor == null) {
+            return -1;
+        }
+        int at = text.indexOf(anchor.text());
+        if (at < 0 || at != text.lastIndexOf(anchor.text())) {
+            return -1;
+        }
+        return at + anchor.text().length();
+    }
+
+    // Line structure is what the anchors rely on; runs of spaces and tabs are not
+    private List<String> lines(String extractedText) {
+        List<String> lines = new ArrayList<>();
+        for (String line : LINE_BREAK.split(extractedText)) {
+            String normalized = HORIZONTAL_SPACE.matcher(line).replaceAll(" ").trim();
+            if (!normalized.isEmpty()) {
+                lines.add(normalized);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Owner plus the header lines with digits and month names masked, so the same vendor layout
+     * keys the same template from one billing period to the next. Null for very short texts.
+     */
+    private String templateKey(User owner, List<String> lines) {
+
+        if (lines.size() < 3) {
+            return null;
+        }
+
+        StringBuilder layout = new StringBuilder(owner.getId().toString());
+        for (String line : lines.subList(0, Math.min(layoutLines, lines.size()))) {
+            String masked = MONTHS.matcher(DIGITS.matcher(line).replaceAll("#")).replaceAll("M");
+            layout.append('\n').append(masked);
+        }
+        return ContentHasher.sha256Hex(layout.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void count(String event) {
+        meterRegistry.counter("ledgerlens.extraction_templates.events", "event", event).increment();
+    }
+}
@@ -1,33 +1,146 @@
 package com.gourav.LedgerLens.Service.ServiceImp;
 
+import com.gourav.LedgerLens.Exception.DocumentProcessingException;
+import com.gourav.LedgerLens.Exception.ExtractionTimeoutException;
+import com.gourav.LedgerLens.Exception.StoredObjectNotFoundException;
+import com.gourav.LedgerLens.Exception.UnsupportedDocumentTypeException;
+import com.gourav.LedgerLens.Helper.DeadlineContentHandler;
+import com.gourav.LedgerLens.Helper.DocumentContent;
+import com.gourav.LedgerLens.Service.ObjectCacheService;
+import com.gourav.LedgerLens.Service.PdfTextExtractService;
+import com.gourav.LedgerLens.Service.S3KeyResolverService;
 import com.gourav.LedgerLens.Service.TextExtractService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.tika.Tika;
+import org.apache.tika.config.TikaConfig;
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.exception.WriteLimitReachedException;
+import org.apache.tika.fork.ForkParser;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MediaTypeRegistry;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.WriteOutContentHandler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.core.ResponseInputStream;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectResponse;
-import software.amazon.awssdk.services.s3.model.S3Exception;
-import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
-import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
-import software.amazon.awssdk.services.s3.model.S3Object;
-
-import java.io.ByteArrayInputStream;
+import org.xml.sax.SAXException;
+
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
-import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TextExtractServiceImp implements TextExtractService {
 
-    private final S3Client s3Client;
+    private final ObjectCacheService objectCacheService;
+    private final S3KeyResolverService s3KeyResolverService;
+
+    // Shared, thread-safe parser built once in TikaParserConfig
+    private final AutoDetectParser autoDetectParser;
+    private final TikaConfig tikaConfig;
+    private final PdfTextExtractService pdfTextExtractService;
+    private final MeterRegistry meterRegistry;
+
+    // Present only when tika.fork.enabled=true
+    private final ObjectProvider<ForkParser> forkParser;
+
+    // ParseContext is a mutable map, so each worker thread keeps its own
+    private final ThreadLocal<ParseContext> parseContexts = ThreadLocal.withInitial(this::newParseContext);
+
+    // Character cap per document, extraction stops as soon as it is reached
+    @Value("${tika.max-string-length:100000}")
+    private int maxStringLength;
+
+    @Value("${extraction.timeout-ms:60000}")
+    private long timeoutMs;
+
+    @Value("${extraction.pool-size:4}")
+    private int poolSize;
+
+    @Value("${extraction.queue-capacity:50}")
+    private int queueCapacity;
+
+    // How long a caller waits for a queued parse to start before giving up with a retryable error
+    @Value("${extraction.queue-timeout-ms:30000}")
+    private long queueTimeoutMs;
+
+    // Upload-time parses get their own small pool, so uploads and workers cannot starve each other
+    @Value("${extraction.inline-pool-size:2}")
+    private int inlinePoolSize;
+
+    @Value("${extraction.inline-queue-capacity:10}")
+    private int inlineQueueCapacity;
+
+    private Set<MediaType> supportedTypes;
+    private MediaTypeRegistry mediaTypeRegistry;
+
+    // Detection always runs in-process; parsing runs here or in forked workers
+    private Parser extractionParser;
+    private boolean forked;
+    private Timer parseTimer;
+
+    // Parses run here so the caller can stop waiting at the deadline even if a parser stalls
+    private ThreadPoolExecutor extractionPool;
+    private ThreadPoolExecutor inlinePool;
+
+    @PostConstruct
+    public void init() {
+        supportedTypes = autoDetectParser.getSupportedTypes(new ParseContext());
+        mediaTypeRegistry = tikaConfig.getMediaTypeRegistry();
+
+        ForkParser fork = forkParser.getIfAvailable();
+        forked = fork != null;
+        extractionParser = forked ? fork : autoDetectParser;
+        parseTimer = Timer.builder("ledgerlens.extraction.parse.duration")
+                .tag("mode", forked ? "forked" : "in_process")
+                .register(meterRegistry);
+
+        extractionPool = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("text-extract-")
+        );
+
+        inlinePool = new ThreadPoolExecutor(
+                inlinePoolSize,
+                inlinePoolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(inlineQueueCapacity),
+                new CustomizableThreadFactory("text-extract-inline-")
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        extractionPool.shutdownNow();
+        inlinePool.shutdownNow();
+    }
 
     @Override
     public String extractTextFromS3File(String bucketName, String fileKey) throws IOException {
@@ -42,42 +155,16 @@ public class TextExtractServiceImp implements TextExtractService {
         // Keep original for diagnostics
         String originalKey = fileKey;
 
-        // Normalize key: trim, convert backslashes to forward slashes, strip leading slashes
-        fileKey = fileKey.trim().replace('\\', '/');
-        while (fileKey.startsWith("/")) {
-            fileKey = fileKey.substring(1);
-        }
-
-        // If a URL was stored, extract the last path segment
-        if (fileKey.startsWith("http")) {
-            int idx = fileKey.lastIndexOf('/');
-            if (idx != -1 && idx + 1 < fileKey.length()) {
-                fileKey = fileKey.substring(idx + 1);
-            }
-        }
-
-        // URL-decode common encodings
-        try {
-            if (fileKey.contains("%")) {
-                fileKey = URLDecoder.decode(fileKey, StandardCharsets.UTF_8);
-            }
-        } catch (IllegalArgumentException e) {
-            log.debug("Failed to URL-decode key={}, proceeding with raw key", fileKey, e);
-        }
+        fileKey = s3KeyResolverService.normalize(fileKey);
 
         log.debug("Normalized S3 key. original='{}' normalized='{}'", originalKey, fileKey);
 
-        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                .bucket(bucketName)
-                .key(fileKey)
-                .build();
-
-        try (ResponseInputStream<GetObjectResponse> s3Object = s3Client.getObject(getObjectRequest)) {
+        // Read through the local object cache; reprocessing a recent document does not touch R2
+        try (DocumentContent content = objectCacheService.open(fileKey, fileKey)) {
 
-            log.trace("S3 object stream opened successfully for key={}", fileKey);
+            log.trace("S3 object read for key={} size={}", fileKey, content.getSize());
 
-            Tika tika = new Tika();
-            String extracted = tika.parseToString(s3Object);
+            String extracted = extract(content);
 
             log.debug("Extracted text (first 300 chars): {}",
                     extracted != null ? extracted.substring(0, Math.min(300, extracted.length())) : "null");
@@ -91,60 +178,24 @@ public class TextExtractServiceImp implements TextExtractService {
                     bucketName, fileKey, e.getMessage(), e);
             throw new IOException("Failed to extract text from S3 file: " + bucketName + "/" + fileKey, e);
 
-        } catch (S3Exception e) {
-            // If object not found, attempt a safe fallback: look for objects that end with the requested filename
-            int statusCode = e.statusCode();
-            String awsCode = e.awsErrorDetails() != null ? e.awsErrorDetails().errorCode() : null;
+        } catch (StoredObjectNotFoundException e) {
+            log.warn("Stored object not found bucket={} key={} message={}", bucketName, fileKey, e.getMessage());
 
-            log.warn("S3 access error status={} code={} bucket={} key={} message={}",
-                    statusCode, awsCode, bucketName, fileKey, e.getMessage());
+            // Keys stored in older formats resolve through the alias index, one lookup instead of a bucket scan
+            Optional<String> resolved = s3KeyResolverService.resolve(fileKey);
 
-            boolean notFound = statusCode == 404 || "NoSuchKey".equalsIgnoreCase(awsCode) || "NotFound".equalsIgnoreCase(awsCode);
+            if (resolved.isPresent() && !resolved.get().equals(fileKey)) {
+                log.info("Resolved S3 key='{}' for requested='{}'. Attempting to read it.", resolved.get(), originalKey);
 
-            if (notFound) {
-                // Try a limited listObjects search for keys that end with the fileKey (this can be expensive on large buckets)
-                try {
-                    ListObjectsV2Request listReq = ListObjectsV2Request.builder()
-                            .bucket(bucketName)
-                            .maxKeys(1000)
-                            .build();
-
-                    ListObjectsV2Response listResp = s3Client.listObjectsV2(listReq);
-                    List<S3Object> contents = listResp.contents();
-
-                    String candidate = null;
-                    for (S3Object obj : contents) {
-                        if (obj.key() != null && obj.key().endsWith(fileKey)) {
-                            if (candidate == null) {
-                                candidate = obj.key();
-                            } else {
-                                // Multiple matches - ambiguous
-                                log.warn("Multiple S3 objects end with '{}' (example: '{}', '{}'). Aborting fallback.", fileKey, candidate, obj.key());
-                                candidate = null;
-                                break;
-                            }
-                        }
-                    }
-
-                    if (candidate != null) {
-                        log.info("Found fallback S3 key='{}' for requested='{}'. Attempting to read it.", candidate, originalKey);
+                try (DocumentContent content = objectCacheService.open(resolved.get(), resolved.get())) {
+                    String extracted = extract(content);
 
-                        GetObjectRequest fallbackReq = GetObjectRequest.builder()
-                                .bucket(bucketName)
-                                .key(candidate)
-                                .build();
+                    log.info("Text extraction completed for resolved key={}", resolved.get());
+                    return extracted;
 
-                        try (ResponseInputStream<GetObjectResponse> s3Object = s3Client.getObject(fallbackReq)) {
-                            Tika tika = new Tika();
-                            String extracted = tika.parseToString(s3Object);
-
-                            log.info("Text extraction completed for fallback key={}", candidate);
-                            return extracted;
-                        }
-                    }
-
-                } catch (Exception listEx) {
-                    log.warn("Fallback listObjects search failed for bucket={} key={} error={}", bucketName, fileKey, listEx.getMessage(), listEx);
+                } catch (StoredObjectNotFoundException | TikaException resolvedEx) {
+                    log.warn("Reading resolved key failed bucket={} key={} error={}",
+                            bucketName, resolved.get(), resolvedEx.getMessage(), resolvedEx);
                     // fall through to rethrow original exception below
                 }
             }
@@ -157,37 +208,296 @@ public class TextExtractServiceImp implements TextExtractService {
     }
 
     @Override
-    public String extractTextFromAttachment(byte[] filesBytes) throws IOException {
+    public String extractText(DocumentContent content) throws IOException {
 
-        log.info("Extracting text from raw attachment bytes. size={} bytes",
-                filesBytes != null ? filesBytes.length : 0);
+        log.info("Extracting text from document content. name={} size={} bytes spooled={}",
+                content.getFileName(), content.getSize(), content.isSpooled());
 
-        if (filesBytes == null || filesBytes.length == 0) {
-            log.warn("Attachment is empty. Returning empty string.");
+        if (content.getSize() == 0) {
+            log.warn("Document content is empty. Returning empty string.");
             return "";
         }
 
-        Tika tika = new Tika();
-
-        try (InputStream stream = new ByteArrayInputStream(filesBytes)) {
-
-            log.trace("Byte array stream opened for text extraction");
+        try {
 
-            String extracted = tika.parseToString(stream);
+            String extracted = extract(content);
 
             log.debug("Extracted text (first 300 chars): {}",
                     extracted != null ? extracted.substring(0, Math.min(300, extracted.length())) : "null");
 
-            log.info("Text extraction from attachment completed");
+            log.info("Text extraction from document content completed");
 
             return extracted;
 
         } catch (TikaException e) {
-            log.error("Failed to extract text from attachment. error={}", e.getMessage(), e);
-            throw new IOException("Failed to extract text from byte array: " + e.getMessage(), e);
+            log.error("Failed to extract text from document content. error={}", e.getMessage(), e);
+            throw new IOException("Failed to extract text from document content: " + e.getMessage(), e);
         } catch (IOException e) {
-            log.error("IO failure extracting text from attachment: {}", e.getMessage(), e);
+            log.error("IO failure extracting text from document content: {}", e.getMessage(), e);
             throw new IOException(e);
         }
     }
+
+    @Override
+    public String requireSupportedType(DocumentContent content) throws IOException {
+        try (TikaInputStream stream = content.openTikaStream()) {
+            return requireSupportedType(stream, metadataFor(content.getFileName())).toString();
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> extractTextAsync(DocumentContent content) {
+
+        if (content.getSize() == 0) {
+            return CompletableFuture.completedFuture("");
+        }
+
+        log.info("Extracting text in the background. name={} size={} bytes spooled={}",
+                content.getFileName(), content.getSize(), content.isSpooled());
+
+        String resourceName = content.getFileName();
+        CompletableFuture<String> result = new CompletableFuture<>();
+
+        try {
+            // The parse carries its own deadline, so it ends by extraction.timeout-ms even if nobody waits
+            Future<?> task = inlinePool.submit(() -> {
+                long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+                try {
+                    result.complete(extractWithin(content, resourceName, deadlineNanos));
+                } catch (Exception e) {
+                    result.completeExceptionally(isTimeout(e) ? timedOut(resourceName) : e);
+                }
+            });
+            result.whenComplete((text, error) -> {
+                if (result.isCancelled()) {
+                    task.cancel(true);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new DocumentProcessingException("Inline extraction pool is saturated", e, true);
+        }
+        return result;
+    }
+
+    /**
+     * A submitted parse. Its deadline is set when a pool thread picks it up, so time spent in
+     * the queue never counts against the parse itself.
+     */
+    private static final class Extraction {
+
+        final CountDownLatch started = new CountDownLatch(1);
+        volatile long deadlineNanos;
+        Future<String> future;
+    }
+
+    /**
+     * Runs the extraction on the bounded pool and waits at most extraction.timeout-ms once it
+     * has started. On timeout the parse is interrupted and its deadline checks make it stop.
+     */
+    private String extract(DocumentContent content) throws IOException, TikaException {
+        return await(submit(content), content.getFileName());
+    }
+
+    private Extraction submit(DocumentContent content) {
+
+        String resourceName = content.getFileName();
+        Extraction extraction = new Extraction();
+
+        try {
+            extraction.future = extractionPool.submit(() -> {
+                long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+                extraction.deadlineNanos = deadlineNanos;
+                extraction.started.countDown();
+                try {
+                    return extractWithin(content, resourceName, deadlineNanos);
+                } catch (Exception e) {
+                    // Parsers may wrap the handler's timeout in their own exceptions
+                    if (isTimeout(e)) {
+                        throw new ExtractionTimeoutException("Text extraction exceeded its time limit");
+                    }
+                    throw e;
+                }
+            });
+            return extraction;
+        } catch (RejectedExecutionException e) {
+            throw new DocumentProcessingException("Text extraction pool is saturated", e, true);
+        }
+    }
+
+    private String await(Extraction extraction, String resourceName) throws IOException, TikaException {
+        Future<String> future = extraction.future;
+        try {
+            // A parse that never left the queue says nothing about the document; the job retries it
+            if (!extraction.started.await(queueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                future.cancel(true);
+                log.warn("Text extraction did not start within {} ms name={}", queueTimeoutMs, resourceName);
+                throw new DocumentProcessingException("Text extraction did not start in time", true);
+            }
+
+            long remaining = extraction.deadlineNanos - System.nanoTime();
+            return future.get(Math.max(remaining, 0L), TimeUnit.NANOSECONDS);
+
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw timedOut(resourceName);
+
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting text", e);
+
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ExtractionTimeoutException) {
+                throw timedOut(resourceName);
+            }
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof TikaException tika) {
+                throw tika;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Text extraction failed", cause);
+        }
+    }
+
+    /**
+     * Text-layer PDFs go straight to PDFBox; anything else, and PDFs whose text layer
+     * is empty or unreadable by the fast path, go through Tika.
+     */
+    private String extractWithin(DocumentContent content, String resourceName, long deadlineNanos)
+            throws IOException, TikaException {
+
+        String path = "tika";
+
+        // In fork mode PDFs are isolated too, so the in-process fast path is skipped
+        if (!forked && pdfTextExtractService.isPdf(content)) {
+            try {
+                String text = pdfTextExtractService.extractText(content, maxStringLength, deadlineNanos);
+                if (!text.isBlank()) {
+                    if (text.length() >= maxStringLength) {
+                        countTruncated("pdfbox");
+                    }
+                    countExtraction("pdfbox");
+                    return text;
+                }
+                log.info("PDF has no text layer, falling back to Tika name={}", resourceName);
+
+            } catch (IOException e) {
+                log.warn("PDF fast path failed, falling back to Tika name={} error={}", resourceName, e.getMessage());
+            }
+            path = "pdfbox_fallback";
+        }
+
+        String text = parseToString(content, resourceName, deadlineNanos);
+        countExtraction(path);
+        return text;
+    }
+
+    private ExtractionTimeoutException timedOut(String resourceName) {
+        log.warn("Text extraction timed out after {} ms name={}", timeoutMs, resourceName);
+        meterRegistry.counter("ledgerlens.extraction.timeouts").increment();
+        return new ExtractionTimeoutException("Text extraction timed out after " + timeoutMs + " ms");
+    }
+
+    private boolean isTimeout(Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ExtractionTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void countExtraction(String path) {
+        meterRegistry.counter("ledgerlens.extraction.documents", "path", path).increment();
+    }
+
+    private void countTruncated(String path) {
+        meterRegistry.counter("ledgerlens.extraction.truncated", "path", path).increment();
+    }
+
+    /**
+     * Equivalent of Tika#parseToString on the shared parser: body text is streamed into a
+     * handler capped at maxStringLength characters, and the parse is aborted as soon as the
+     * cap is hit or the deadline passes rather than buffering the whole document.
+     * Types the configured profile cannot parse are rejected after detection, before parsing.
+     */
+    private String parseToString(DocumentContent content, String resourceName, long deadlineNanos)
+            throws IOException, TikaException {
+
+        WriteOutContentHandler handler = new WriteOutContentHandler(maxStringLength);
+        Metadata metadata = metadataFor(resourceName);
+
+        // File-backed for spooled content, so the parser never needs the whole document on the heap
+        try (TikaInputStream tikaStream = content.openTikaStream()) {
+
+            MediaType type = requireSupportedType(tikaStream, metadata);
+            metadata.set(Metadata.CONTENT_TYPE, type.toString());
+
+            long start = System.nanoTime();
+            try {
+                extractionParser.parse(
+                        tikaStream,
+                        new BodyContentHandler(new DeadlineContentHandler(handler, deadlineNanos)),
+                        metadata,
+                        parseContexts.get()
+                );
+            } finally {
+                parseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+
+        } catch (SAXException e) {
+            if (!WriteLimitReachedException.isWriteLimitReached(e)) {
+                throw new TikaException("Unexpected SAX processing failure", e);
+            }
+            countTruncated("tika");
+
+        } catch (TikaException e) {
+            // Some parsers wrap the handler's write-limit signal instead of passing it through
+            if (!WriteLimitReachedException.isWriteLimitReached(e)) {
+                throw e;
+            }
+            countTruncated("tika");
+        }
+
+        return handler.toString();
+    }
+
+    private MediaType requireSupportedType(TikaInputStream stream, Metadata metadata) throws IOException {
+
+        // Magic-byte sniffing only reads the head of the stream and resets it
+        MediaType detected = autoDetectParser.getDetector().detect(stream, metadata);
+
+        // Walk up the type hierarchy the same way CompositeParser picks a parser
+        for (MediaType type = mediaTypeRegistry.normalize(detected.getBaseType());
+             type != null;
+             type = mediaTypeRegistry.getSupertype(type)) {
+            if (supportedTypes.contains(type)) {
+                return detected;
+            }
+        }
+
+        log.warn("Rejecting unsupported document type={} name={}",
+                detected, metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY));
+        throw new UnsupportedDocumentTypeException(detected.toString());
+    }
+
+    private Metadata metadataFor(String resourceName) {
+        Metadata metadata = new Metadata();
+        if (resourceName != null) {
+            metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, resourceName);
+        }
+        return metadata;
+    }
+
+    private ParseContext newParseContext() {
+        ParseContext context = new ParseContext();
+        // Embedded documents (attachments inside PDFs, zipped office files) go through the same parser
+        context.set(Parser.class, autoDetectParser);
+        return context;
+    }
 }
@@ -1,8 +1,5 @@
 package com.gourav.LedgerLens.Service.ServiceImp;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
 import com.gourav.LedgerLens.Domain.Entity.Document;
 import com.gourav.LedgerLens.Domain.Entity.Transaction;
@@ -28,42 +25,41 @@ import java.util.List;
 @Slf4j
 public class TransactionServiceImp implements TransactionService {
 
-    private final ObjectMapper objectMapper;
     private final TransactionRepository transactionRepository;
 
     @Override
     @Transactional
-    public Transaction createTransactionFromJson(
-            String jsonResponse,
-            User loggedInUser,
+    public List<Transaction> createExtractedTransactions(
+            List<CreateTransactionDto> dtos,
+            User user,
             Document document
-    ) throws JsonProcessingException {
-
-        log.info("Creating transaction from JSON userId={}", loggedInUser.getId());
-
-        CreateTransactionDto dto =
-                objectMapper.readValue(jsonResponse, CreateTransactionDto.class);
-
-        validateTransactionDto(dto);
-
-        Transaction transaction = Transaction.builder()
-                .Client(dto.getClient())
-                .txnDate(dto.getTxnDate())
-                .amountBeforeTax(dto.getAmountBeforeTax())
-                .amountAfterTax(dto.getAmountAfterTax())
-                .currency(dto.getCurrency())
-                .category(dto.getCategory())
-                .transactionType(dto.getTransactionType())
-                .paymentMethod(dto.getPaymentMethod())
-                .invoiceNumber(dto.getInvoiceNumber())
-                .user(loggedInUser)
-                .document(document)
-                .documentPublicId(document != null ? document.getPublicId() : null)
-                .build();
+    ) {
 
-        Transaction saved = transactionRepository.save(transaction);
+        log.info("Creating {} extracted transactions userId={}", dtos.size(), user.getId());
+
+        List<Transaction> transactions = new ArrayList<>(dtos.size());
+        for (CreateTransactionDto dto : dtos) {
+
+            validateTransactionDto(dto);
+
+            transactions.add(Transaction.builder()
+                    .Client(dto.getClient())
+                    .txnDate(dto.getTxnDate())
+                    .amountBeforeTax(dto.getAmountBeforeTax())
+                    .amountAfterTax(dto.getAmountAfterTax())
+                    .currency(dto.getCurrency())
+                    .category(dto.getCategory())
+                    .transactionType(dto.getTransactionType())
+                    .paymentMethod(dto.getPaymentMethod())
+                    .invoiceNumber(dto.getInvoiceNumber())
+                    .user(user)
+                    .document(document)
+                    .documentPublicId(document != null ? document.getPublicId() : null)
+                    .build());
+        }
 
-        log.info("Transaction created successfully publicId={}", saved.getPublicId());
+        List<Transaction> saved = transactionRepository.saveAll(transactions);
+        log.info("Saved {} transactions", saved.size());
         return saved;
     }
 
@@ -199,34 +195,7 @@ public class TransactionServiceImp implements TransactionService {
     }
 
     @Override
-    public void createTransactionServiceFromJsonArray(
-            String jsonArrayStr,
-            User user,
-            Document document
-    ) throws JsonProcessingException {
-
-        log.info("Processing JSON array userId={}", user.getId());
-
-        List<Transaction> transactions = new ArrayList<>();
-        JsonNode root = objectMapper.readTree(jsonArrayStr);
-
-        if (root.isArray()) {
-            for (JsonNode node : root) {
-                transactions.add(
-                        createTransactionFromJson(node.toString(), user, document)
-                );
-            }
-        } else {
-            transactions.add(
-                    createTransactionFromJson(jsonArrayStr, user, document)
-            );
-        }
-
-        transactionRepository.saveAll(transactions);
-        log.info("Saved {} transactions", transactions.size());
-    }
-
-    private void validateTransactionDto(CreateTransactionDto dto) {
+    public void validateTransactionDto(CreateTransactionDto dto) {
 
         log.debug("Validating Transaction DTO: {}", dto);
 
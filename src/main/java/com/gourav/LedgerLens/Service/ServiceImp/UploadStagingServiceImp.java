@@ -0,0 +1,345 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Helper.DocumentContent;
+import com.gourav.LedgerLens.Helper.DurableFiles;
+import com.gourav.LedgerLens.Repository.DocumentRepository;
+import com.gourav.LedgerLens.Service.S3Service;
+import com.gourav.LedgerLens.Service.UploadStagingService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Write-back staging for uploads. The bytes are fsynced into the staging directory and the
+ * upload returns without waiting for R2; a background uploader then pushes each staged file
+ * and deletes it once R2 has it. The directory is the queue: whatever is still in it after a
+ * crash or restart is found by the periodic scan and uploaded again, so no separate state has
+ * to survive. Keys are content-addressed, so staged objects use the same key they will have in R2.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UploadStagingServiceImp implements UploadStagingService {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final String META_SUFFIX = ".meta";
+
+    private final S3Service s3Service;
+    private final DocumentRepository documentRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${storage.write-back.enabled:false}")
+    private boolean enabled;
+
+    // Must be durable local disk; staged files are the only copy until the uploader succeeds
+    @Value("${storage.write-back.dir:${java.io.tmpdir}/ledgerlens-staging}")
+    private Path stagingDir;
+
+    @Value("${storage.write-back.uploader-threads:2}")
+    private int uploaderThreads;
+
+    @Value("${storage.write-back.retry-base-seconds:30}")
+    private long retryBaseSeconds;
+
+    @Value("${storage.write-back.retry-max-seconds:1800}")
+    private long retryMaxSeconds;
+
+    // Documents created this far back are checked for an object on startup
+    @Value("${storage.write-back.reconcile-window-hours:24}")
+    private long reconcileWindowHours;
+
+    private Path readerDir;
+    private ThreadPoolExecutor uploader;
+
+    // Hashes currently being uploaded, so the scan does not queue them twice
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+    private final Map<String, Long> retryAt = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+
+        if (!enabled) {
+            log.info("Write-back staging disabled");
+            return;
+        }
+
+        Files.createDirectories(stagingDir);
+
+        // Reader links are per-request and never outlive the process
+        readerDir = stagingDir.resolve("readers");
+        FileSystemUtils.deleteRecursively(readerDir);
+        Files.createDirectories(readerDir);
+
+        // A temp file means the process died mid-write, before the upload was acknowledged;
+        // so does metadata without its data file
+        try (Stream<Path> files = Files.list(stagingDir)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(DurableFiles.TMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(META_SUFFIX)
+                        && !Files.exists(file.resolveSibling(name.substring(0, name.length() - META_SUFFIX.length())))) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        uploader = new ThreadPoolExecutor(
+                uploaderThreads,
+                uploaderThreads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1024),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "r2-writeback-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // A dropped task is picked up again by the next scan
+                new ThreadPoolExecutor.DiscardPolicy()
+        );
+
+        Gauge.builder("ledgerlens.write_back.staged", this, staging -> staging.stagedCount())
+                .register(meterRegistry);
+
+        log.info("Write-back staging ready dir={} uploaderThreads={}", stagingDir, uploaderThreads);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (uploader != null) {
+            // Unfinished uploads stay staged and resume on the next start
+            uploader.shutdownNow();
+            uploader.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public String store(DocumentContent content, String contentHash) throws IOException {
+
+        if (!enabled) {
+            return s3Service.uploadFile(content, contentHash);
+        }
+
+        String key = s3Service.keyFor(contentHash);
+        Path staged = stagingDir.resolve(contentHash);
+
+        if (Files.exists(staged)) {
+            log.info("Object already staged key={}", key);
+            return key;
+        }
+
+        // Metadata first, so a staged data file always has its content type next to it
+        Path meta = stagingDir.resolve(contentHash + META_SUFFIX);
+        byte[] contentType = content.getContentType() == null
+                ? new byte[0]
+                : content.getContentType().getBytes(StandardCharsets.UTF_8);
+        try (InputStream in = new ByteArrayInputStream(contentType)) {
+            DurableFiles.write(in, meta);
+        }
+        try {
+            DurableFiles.write(content, staged);
+        } catch (IOException | RuntimeException e) {
+            // Unless a concurrent store of the same bytes got its data file in, the metadata is an orphan
+            if (!Files.exists(staged)) {
+                Files.deleteIfExists(meta);
+            }
+            throw e;
+        }
+        DurableFiles.syncDirectory(stagingDir);
+
+        meterRegistry.counter("ledgerlens.write_back.staged_total").increment();
+        log.info("Object staged key={} size={}", key, content.getSize());
+
+        schedule(contentHash);
+        return key;
+    }
+
+    @Override
+    public Optional<DocumentContent> openStaged(String key, String fileName) throws IOException {
+
+        if (!enabled || key == null) {
+            return Optional.empty();
+        }
+
+        String hash = key.substring(key.lastIndexOf('/') + 1);
+        if (!HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+
+        // A hard link keeps the bytes readable even if the uploader deletes the staged file meanwhile
+        Path link = readerDir.resolve(UUID.randomUUID().toString());
+        try {
+            Files.createLink(link, stagingDir.resolve(hash));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+
+        meterRegistry.counter("ledgerlens.write_back.staged_reads").increment();
+        return Optional.of(DocumentContent.spooled(link, fileName, readContentType(hash)));
+    }
+
+    /**
+     * Queues every staged file whose retry delay has passed. Also the recovery path: after a
+     * restart this is what picks up objects staged but never uploaded.
+     */
+    @Scheduled(fixedDelayString = "${storage.write-back.scan-interval-ms:30000}")
+    public void flushStaged() {
+
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (String hash : stagedHashes()) {
+            if (retryAt.getOrDefault(hash, 0L) <= now) {
+                schedule(hash);
+            }
+        }
+    }
+
+    /**
+     * Flags documents whose object is neither staged nor in R2, which would mean a staged file
+     * was lost (e.g. the staging disk was replaced). Nothing can be re-uploaded for those, so they
+     * are surfaced as errors and a metric rather than silently failing later in processing.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+
+        if (!enabled) {
+            return;
+        }
+
+        flushStaged();
+
+        Set<String> staged = Set.copyOf(stagedHashes());
+        List<String> keys = documentRepository.findS3KeysCreatedSince(LocalDateTime.now().minusHours(reconcileWindowHours));
+        int missing = 0;
+
+        for (String key : keys) {
+            if (key == null || staged.contains(key.substring(key.lastIndexOf('/') + 1))) {
+                continue;
+            }
+            try {
+                if (s3Service.headFile(key).isEmpty()) {
+                    missing++;
+                    meterRegistry.counter("ledgerlens.write_back.missing_objects").increment();
+                    log.error("Document object is neither staged nor stored key={}", key);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to check stored object key={} error={}", key, e.getMessage());
+            }
+        }
+
+        log.info("Write-back reconciliation done checked={} staged={} missing={}", keys.size(), staged.size(), missing);
+    }
+
+    private void schedule(String hash) {
+        if (!inFlight.contains(hash)) {
+            uploader.execute(() -> upload(hash));
+        }
+    }
+
+    private void upload(String hash) {
+
+        if (!inFlight.add(hash)) {
+            return;
+        }
+
+        Path staged = stagingDir.resolve(hash);
+        try {
+            if (!Files.exists(staged)) {
+                return;
+            }
+
+            try (DocumentContent content = DocumentContent.shared(staged, Files.size(staged), hash, readContentType(hash))) {
+                // Skips the transfer if R2 already has the object
+                s3Service.uploadFile(content, hash);
+            }
+
+            Files.deleteIfExists(staged);
+            Files.deleteIfExists(stagingDir.resolve(hash + META_SUFFIX));
+
+            attempts.remove(hash);
+            retryAt.remove(hash);
+            meterRegistry.counter("ledgerlens.write_back.uploads", "result", "success").increment();
+            log.info("Staged object persisted key={}", s3Service.keyFor(hash));
+
+        } catch (IOException | RuntimeException e) {
+            int attempt = attempts.merge(hash, 1, Integer::sum);
+
+            // Exponential backoff with up to 25% jitter, as for processing jobs
+            long delay = Math.min(retryMaxSeconds, retryBaseSeconds << Math.min(attempt - 1, 20));
+            delay += ThreadLocalRandom.current().nextLong(delay / 4 + 1);
+            retryAt.put(hash, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(delay));
+
+            meterRegistry.counter("ledgerlens.write_back.uploads", "result", "failure").increment();
+            log.warn("Staged object upload failed key={} attempt={} retryInSeconds={} error={}",
+                    s3Service.keyFor(hash), attempt, delay, e.getMessage());
+
+        } finally {
+            inFlight.remove(hash);
+        }
+    }
+
+    private String readContentType(String hash) throws IOException {
+        try {
+            String contentType = Files.readString(stagingDir.resolve(hash + META_SUFFIX), StandardCharsets.UTF_8);
+            return contentType.isEmpty() ? null : contentType;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private List<String> stagedHashes() {
+        try (Stream<Path> files = Files.list(stagingDir)) {
+            return files.map(f -> f.getFileName().toString())
+                    .filter(name -> HASH.matcher(name).matches())
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Failed to list staging dir={} error={}", stagingDir, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private double stagedCount() {
+        return stagedHashes().size();
+    }
+}
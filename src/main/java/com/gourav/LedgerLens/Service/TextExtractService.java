@@ -1,9 +1,26 @@
 package com.gourav.LedgerLens.Service;
 
+import com.gourav.LedgerLens.Helper.DocumentContent;
+
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public interface TextExtractService {
     String extractTextFromS3File(String bucketName, String fileKey) throws IOException;
 
-    String extractTextFromAttachment(byte[] filesBytes) throws IOException;
+    String extractText(DocumentContent content) throws IOException;
+
+    /**
+     * Starts extraction on the inline pool, separate from the one worker parses use, and returns
+     * at once; nobody has to wait for the result. The parse stops at extraction.timeout-ms on its
+     * own; the content must stay open until the future is done. Throws DocumentProcessingException
+     * when the inline pool is full.
+     */
+    CompletableFuture<String> extractTextAsync(DocumentContent content);
+
+    /**
+     * Detects the media type from magic bytes (file name as a hint) and throws
+     * UnsupportedDocumentTypeException when no configured parser handles it.
+     */
+    String requireSupportedType(DocumentContent content) throws IOException;
 }
@@ -0,0 +1,32 @@
+package com.gourav.LedgerLens.Service;
+
+import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
+import com.gourav.LedgerLens.Domain.Entity.User;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * One link of the local extraction chain that runs before the AI model. Implementations are
+ * picked up as beans and tried in @Order; the first one that answers wins.
+ */
+public interface TransactionExtractorService {
+
+    /**
+     * Short name used in logs and metric tags.
+     */
+    String name();
+
+    /**
+     * Transactions read from the text without a model call. Empty unless the extractor is
+     * confident in every field; a partial or doubtful match must fall through to the model.
+     */
+    Optional<List<CreateTransactionDto>> extract(String extractedText, User owner);
+
+    /**
+     * Called with every AI result for text this extractor did not answer, so extractors that
+     * learn from the model can record or verify what they know. Must not throw.
+     */
+    default void learn(String extractedText, User owner, List<CreateTransactionDto> transactions) {
+    }
+}
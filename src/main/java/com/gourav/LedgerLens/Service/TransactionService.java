@@ -1,6 +1,5 @@
 package com.gourav.LedgerLens.Service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
 import com.gourav.LedgerLens.Domain.Entity.Document;
 import com.gourav.LedgerLens.Domain.Entity.Transaction;
@@ -12,7 +11,15 @@ import java.util.List;
 import java.util.UUID;
 
 public interface TransactionService {
-    Transaction createTransactionFromJson(String jsonResponse, User loggedInUser, Document document) throws Exception;
+    /**
+     * Validates and saves transactions extracted from a document.
+     */
+    List<Transaction> createExtractedTransactions(List<CreateTransactionDto> transactions, User user, Document document);
+
+    /**
+     * Throws IllegalArgumentException when a required field (client, date, total, category) is missing.
+     */
+    void validateTransactionDto(CreateTransactionDto dto);
 
     Transaction createTransaction(CreateTransactionDto createTransactionDto, User loggedInUser);
 
@@ -26,8 +33,6 @@ public interface TransactionService {
 
     Page<Transaction> getTransactionByCategory(String category, User loggedInUser, Pageable pageable);
 
-    void createTransactionServiceFromJsonArray(String jsonResponse, User user, Document document) throws JsonProcessingException;
-
     Page<Transaction> getAllExpenseTransactionsForUser(User loggedInUser, Pageable pageable);
 
     Page<Transaction> getAllIncomeTransactionsForUser(User loggedInUser, Pageable pageable);
@@ -0,0 +1,21 @@
+package com.gourav.LedgerLens.Service;
+
+import com.gourav.LedgerLens.Helper.DocumentContent;
+
+import java.io.IOException;
+import java.util.Optional;
+
+public interface UploadStagingService {
+
+    /**
+     * Stores the file and returns its object key. In write-back mode the bytes are made durable
+     * on local disk and pushed to R2 in the background; otherwise this is S3Service#uploadFile.
+     */
+    String store(DocumentContent content, String contentHash) throws IOException;
+
+    /**
+     * The staged local copy of an object that has not reached R2 yet, or empty once it has.
+     * Close the result when done; the staged file itself is left for the uploader.
+     */
+    Optional<DocumentContent> openStaged(String key, String fileName) throws IOException;
+}
@@ -0,0 +1,103 @@
+package com.gourav.LedgerLens.Configuration;
+
+import com.gourav.LedgerLens.Helper.Timing;
+
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Startup cost of the two tika.config.profile values. Each run loads one profile the way
+ * TikaParserConfig does, in a fresh JVM, so class loading and metaspace are not shared with
+ * the other profile or with the test runner. Run with
+ * {@code mvn test -Dbenchmarks=true -Dtest=TikaProfileStartupBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = Timing.ENABLED_PROPERTY, matches = "true")
+class TikaProfileStartupBenchmarkTest {
+
+    private static final int RUNS = 3;
+
+    @Test
+    void fullProfileAgainstInvoiceProfile() throws Exception {
+        for (String profile : List.of("full", "invoices")) {
+            for (int run = 1; run <= RUNS; run++) {
+                String result = probe(profile);
+                assertThat(result).startsWith("profile=" + profile);
+                System.out.println("run=" + run + " " + result);
+            }
+        }
+    }
+
+    private String probe(String profile) throws Exception {
+        Process process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx512m",
+                "-cp", System.getProperty("java.class.path"),
+                Probe.class.getName(),
+                profile
+        ).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+
+        String output;
+        try (InputStream in = process.getInputStream()) {
+            output = new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+        }
+        assertThat(process.waitFor(2, TimeUnit.MINUTES)).isTrue();
+        assertThat(process.exitValue()).isZero();
+
+        // Tika may log to stdout; the probe's line is the last one
+        String[] lines = output.split("\\R");
+        return lines[lines.length - 1];
+    }
+
+    /**
+     * Loads one profile and prints load time, parser count and memory after a GC.
+     */
+    static final class Probe {
+
+        public static void main(String[] args) throws Exception {
+            String profile = args[0];
+
+            long started = System.nanoTime();
+            TikaConfig config;
+            if ("full".equals(profile)) {
+                config = TikaConfig.getDefaultConfig();
+            } else {
+                try (InputStream in = Probe.class.getResourceAsStream("/tika/tika-config-invoices.xml")) {
+                    config = new TikaConfig(in);
+                }
+            }
+            long configMs = Timing.millisSince(started);
+
+            started = System.nanoTime();
+            AutoDetectParser parser = new AutoDetectParser(config);
+            int supportedTypes = parser.getSupportedTypes(new ParseContext()).size();
+            long parserMs = Timing.millisSince(started);
+
+            System.gc();
+            Runtime runtime = Runtime.getRuntime();
+            long heapUsedMb = (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+            long metaspaceMb = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if ("Metaspace".equals(pool.getName())) {
+                    metaspaceMb = pool.getUsage().getUsed() / (1024 * 1024);
+                }
+            }
+
+            System.out.printf("profile=%s configMs=%d parserMs=%d supportedTypes=%d heapUsedMb=%d metaspaceMb=%d loadedClasses=%d%n",
+                    profile, configMs, parserMs, supportedTypes, heapUsedMb, metaspaceMb,
+                    ManagementFactory.getClassLoadingMXBean().getLoadedClassCount());
+        }
+    }
+}
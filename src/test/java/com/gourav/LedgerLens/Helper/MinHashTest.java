@@ -0,0 +1,75 @@
+package com.gourav.LedgerLens.Helper;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MinHashTest {
+
+    @Test
+    void noSignatureWithoutWords() {
+        assertThat(MinHash.signature(null)).isNull();
+        assertThat(MinHash.signature("   ")).isNull();
+        assertThat(MinHash.signature("!!! --- ###")).isNull();
+    }
+
+    @Test
+    void signsTextShorterThanOneShingle() {
+        assertThat(MinHash.signature("Invoice")).hasSize(MinHash.NUM_HASHES);
+    }
+
+    @Test
+    void sameWordsScoreOneRegardlessOfCaseAndSpacing() {
+        int[] a = MinHash.signature(invoice("2025-03-01 10:15"));
+        int[] b = MinHash.signature(invoice("2025-03-01 10:15").toUpperCase().replace(" ", "   "));
+
+        assertThat(MinHash.similarity(a, b)).isEqualTo(1.0);
+    }
+
+    @Test
+    void reExportScoresAboveThresholdAndUnrelatedTextBelow() {
+        int[] original = MinHash.signature(invoice("2025-03-01 10:15"));
+        int[] reExport = MinHash.signature(invoice("2025-03-07 16:42"));
+        int[] unrelated = MinHash.signature(
+                "Dear customer, your parcel has been dispatched and will arrive within five working days. "
+                        + "Track it from the link in this email or call our support line.");
+
+        assertThat(MinHash.similarity(original, reExport)).isGreaterThan(0.85);
+        assertThat(MinHash.similarity(original, unrelated)).isLessThan(0.2);
+    }
+
+    @Test
+    void wordBoundariesMatter() {
+        assertThat(MinHash.signature("ab c")).isNotEqualTo(MinHash.signature("a bc"));
+    }
+
+    @Test
+    void identicalSignaturesShareEveryBand() {
+        int[] a = MinHash.signature(invoice("2025-03-01 10:15"));
+        int[] b = MinHash.signature(invoice("2025-03-01 10:15"));
+
+        for (int band = 0; band < MinHash.BANDS; band++) {
+            assertThat(MinHash.bandKey(a, band)).isEqualTo(MinHash.bandKey(b, band));
+        }
+        assertThat(MinHash.bandKey(a, 0)).isNotEqualTo(MinHash.bandKey(a, 1));
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        int[] signature = MinHash.signature(invoice("2025-03-01 10:15"));
+
+        byte[] bytes = MinHash.toBytes(signature);
+
+        assertThat(bytes).hasSize(MinHash.NUM_HASHES * Integer.BYTES);
+        assertThat(MinHash.fromBytes(bytes)).isEqualTo(signature);
+    }
+
+    static String invoice(String generatedAt) {
+        StringBuilder text = new StringBuilder("Acme Hosting Ltd Tax Invoice generated ").append(generatedAt).append('\n');
+        for (int i = 1; i <= 40; i++) {
+            text.append("Line ").append(i).append(" managed server plan region eu-west node ")
+                    .append(i * 7).append(" hours ").append(i + 10).append('\n');
+        }
+        return text.append("Total due 4,321.00 payable within 30 days").toString();
+    }
+}
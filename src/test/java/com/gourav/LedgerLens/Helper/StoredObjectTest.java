@@ -0,0 +1,123 @@
+package com.gourav.LedgerLens.Helper;
+
+import com.gourav.LedgerLens.Exception.RangeNotSatisfiableException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StoredObjectTest {
+
+    private static final byte[] CONTENT = bytes(1000);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void noRangeServesWholeContent() throws Exception {
+        try (StoredObject object = StoredObject.fromLocal(inMemory(), null)) {
+            assertThat(object.isPartial()).isFalse();
+            assertThat(object.getContentLength()).isEqualTo(1000);
+            assertThat(read(object)).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void closedRange() throws Exception {
+        assertRange("bytes=0-99", "bytes 0-99/1000", 0, 100);
+        assertRange("bytes=10-10", "bytes 10-10/1000", 10, 1);
+        assertRange(" bytes=990-999 ", "bytes 990-999/1000", 990, 10);
+    }
+
+    @Test
+    void openEndedRangeRunsToEnd() throws Exception {
+        assertRange("bytes=500-", "bytes 500-999/1000", 500, 500);
+    }
+
+    @Test
+    void endPastContentIsClamped() throws Exception {
+        assertRange("bytes=900-5000", "bytes 900-999/1000", 900, 100);
+    }
+
+    @Test
+    void suffixRangeServesLastBytes() throws Exception {
+        assertRange("bytes=-100", "bytes 900-999/1000", 900, 100);
+        assertRange("bytes=-5000", "bytes 0-999/1000", 0, 1000);
+    }
+
+    @Test
+    void unsatisfiableRangesAreRejected() {
+        for (String range : new String[]{"bytes=1000-", "bytes=5000-6000", "bytes=-0", "bytes=50-10", "bytes=99999999999999999999-"}) {
+            assertThatThrownBy(() -> StoredObject.fromLocal(inMemory(), range))
+                    .as(range)
+                    .isInstanceOf(RangeNotSatisfiableException.class);
+        }
+    }
+
+    @Test
+    void unsupportedRangeFormsServeWholeContent() throws Exception {
+        for (String range : new String[]{"bytes=0-1,5-6", "items=0-1", "bytes=-", "bytes=a-b"}) {
+            try (StoredObject object = StoredObject.fromLocal(inMemory(), range)) {
+                assertThat(object.isPartial()).as(range).isFalse();
+                assertThat(read(object)).as(range).isEqualTo(CONTENT);
+            }
+        }
+    }
+
+    @Test
+    void spooledContentIsServedFromFileAtOffset() throws Exception {
+        Path file = tempDir.resolve("object.bin");
+        Files.write(file, CONTENT);
+
+        try (StoredObject object = StoredObject.fromLocal(DocumentContent.spooled(file, "object.bin", "application/pdf"), "bytes=100-199")) {
+            assertThat(object.getFile()).isEqualTo(file);
+            assertThat(object.getPosition()).isEqualTo(100);
+            assertThat(object.getContentType()).isEqualTo("application/pdf");
+            assertThat(read(object)).isEqualTo(Arrays.copyOfRange(CONTENT, 100, 200));
+        }
+    }
+
+    @Test
+    void closeDeletesSpooledLocalCopy() throws Exception {
+        Path file = tempDir.resolve("object.bin");
+        Files.write(file, CONTENT);
+
+        StoredObject.fromLocal(DocumentContent.spooled(file, "object.bin", "application/pdf"), null).close();
+
+        assertThat(file).doesNotExist();
+    }
+
+    private void assertRange(String range, String contentRange, int start, int length) throws Exception {
+        try (StoredObject object = StoredObject.fromLocal(inMemory(), range)) {
+            assertThat(object.isPartial()).as(range).isTrue();
+            assertThat(object.getContentRange()).as(range).isEqualTo(contentRange);
+            assertThat(object.getContentLength()).as(range).isEqualTo(length);
+            assertThat(read(object)).as(range).isEqualTo(Arrays.copyOfRange(CONTENT, start, start + length));
+        }
+    }
+
+    private static DocumentContent inMemory() {
+        return DocumentContent.inMemory(CONTENT, "object.bin", "application/pdf");
+    }
+
+    private static byte[] read(StoredObject object) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        object.transferTo(out);
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (i % 251);
+        }
+        return bytes;
+    }
+}
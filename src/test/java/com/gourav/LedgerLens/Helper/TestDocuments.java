@@ -0,0 +1,51 @@
+package com.gourav.LedgerLens.Helper;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Small generated documents for extraction tests and benchmarks.
+ */
+public final class TestDocuments {
+
+    private TestDocuments() {
+    }
+
+    /**
+     * A text-layer PDF with one page per entry; each entry is one line of text.
+     */
+    public static byte[] pdf(String... pages) throws IOException {
+        try (PDDocument document = new PDDocument();
+             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (String text : pages) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream stream = new PDPageContentStream(document, page)) {
+                    stream.beginText();
+                    stream.setFont(PDType1Font.HELVETICA, 11);
+                    stream.newLineAtOffset(50, 700);
+                    stream.showText(text);
+                    stream.endText();
+                }
+            }
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * A PDF of the given page count, each page an invoice line, so extraction has real text to strip.
+     */
+    public static byte[] invoicePdf(int pageCount) throws IOException {
+        String[] pages = new String[pageCount];
+        for (int i = 0; i < pageCount; i++) {
+            pages[i] = "Invoice INV-" + (1000 + i) + " Consulting services 12 hours at 85.00 Total 1,020.00";
+        }
+        return pdf(pages);
+    }
+}
@@ -0,0 +1,62 @@
+package com.gourav.LedgerLens.Helper;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextValuesTest {
+
+    @Test
+    void findsValueAtTextBoundaries() {
+        assertThat(TextValues.indexOfValue("500.00", "500.00", 0)).isZero();
+        assertThat(TextValues.indexOfValue("Total 500.00", "500.00", 0)).isEqualTo(6);
+        assertThat(TextValues.indexOfValue("Total: 500.00.", "500.00", 0)).isEqualTo(7);
+    }
+
+    @Test
+    void skipsValueInsideLongerNumberOrWord() {
+        assertThat(TextValues.indexOfValue("Total 1500.00", "500.00", 0)).isEqualTo(-1);
+        assertThat(TextValues.indexOfValue("Total 500.001", "500.00", 0)).isEqualTo(-1);
+        assertThat(TextValues.indexOfValue("Ref INV-1045", "INV-104", 0)).isEqualTo(-1);
+        assertThat(TextValues.indexOfValue("Ref XINV-104", "INV-104", 0)).isEqualTo(-1);
+    }
+
+    @Test
+    void groupingSeparatorIsBoundary() {
+        // Documented: callers that care check the text before the match
+        assertThat(TextValues.indexOfValue("Total 1,500.00", "500.00", 0)).isEqualTo(8);
+    }
+
+    @Test
+    void keepsLookingPastEmbeddedOccurrence() {
+        assertThat(TextValues.indexOfValue("A500 then 500", "500", 0)).isEqualTo(10);
+        assertThat(TextValues.indexOfValue("500 and 500", "500", 1)).isEqualTo(8);
+        assertThat(TextValues.indexOfValue("500 and 500", "500", 9)).isEqualTo(-1);
+    }
+
+    @Test
+    void amountRenderingsAddWholeFormsOnlyForWholeAmounts() {
+        assertThat(TextValues.amountRenderings(new BigDecimal("1234.5"))).containsExactly("1,234.50", "1234.50");
+        assertThat(TextValues.amountRenderings(new BigDecimal("1234")))
+                .containsExactly("1,234.00", "1234.00", "1,234", "1234");
+    }
+
+    @Test
+    void dateRenderingsCoverCommonInvoiceLayouts() {
+        assertThat(TextValues.dateRenderings(LocalDate.of(2025, 3, 1)))
+                .hasSize(TextValues.DATE_FORMATS.size())
+                .contains("2025-03-01", "01/03/2025", "03/01/2025", "Mar 1, 2025", "1 March 2025", "01-Mar-2025");
+    }
+
+    @Test
+    void containsAnyUsesBoundaries() {
+        List<String> renderings = TextValues.amountRenderings(new BigDecimal("500"));
+
+        assertThat(TextValues.containsAny("Amount due: 500", renderings)).isTrue();
+        assertThat(TextValues.containsAny("Amount due: 5000", renderings)).isFalse();
+    }
+}
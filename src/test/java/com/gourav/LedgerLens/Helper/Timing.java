@@ -0,0 +1,45 @@
+package com.gourav.LedgerLens.Helper;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warm-up-then-measure timing for the opt-in benchmark tests. Those only run with
+ * -Dbenchmarks=true, so a normal build never pays for them. The numbers are for comparing two
+ * paths on the same machine in the same run, not for absolute claims.
+ */
+@Slf4j
+public final class Timing {
+
+    public static final String ENABLED_PROPERTY = "benchmarks";
+
+    private Timing() {
+    }
+
+    /**
+     * @return mean nanoseconds per call over the measured iterations
+     */
+    public static double measure(String name, int warmups, int iterations, Callable<?> call) throws Exception {
+
+        Object sink = null;
+        for (int i = 0; i < warmups; i++) {
+            sink = call.call();
+        }
+
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = call.call();
+        }
+        double nanosPerCall = (double) (System.nanoTime() - started) / iterations;
+
+        log.info("Benchmark name={} iterations={} meanMicros={} sink={}",
+                name, iterations, String.format("%.1f", nanosPerCall / 1_000), sink == null ? 0 : sink.hashCode() & 1);
+        return nanosPerCall;
+    }
+
+    public static long millisSince(long startedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+}
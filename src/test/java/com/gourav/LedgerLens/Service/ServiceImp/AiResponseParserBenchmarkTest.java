@@ -0,0 +1,97 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
+import com.gourav.LedgerLens.Helper.Timing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Streaming parse against the path it replaced: regex extraction of the JSON block, readTree,
+ * then toString and readValue per element. Run with
+ * {@code mvn test -Dbenchmarks=true -Dtest=AiResponseParserBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = Timing.ENABLED_PROPERTY, matches = "true")
+class AiResponseParserBenchmarkTest {
+
+    private static final Pattern CODE_BLOCK = Pattern.compile("(?s)```(?:json)?\\s*(\\{.*?\\}|\\[.*?\\])\\s*```");
+    private static final Pattern EMBEDDED = Pattern.compile("(?s)(\\{.*\\}|\\[.*\\])");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final AiResponseParserServiceImp parser = new AiResponseParserServiceImp(objectMapper, new SimpleMeterRegistry());
+
+    @Test
+    void streamingParserAgainstRegexAndTreeParse() throws Exception {
+        for (int elements : new int[]{1, 20, 200}) {
+            String response = "Here is the extracted data:\n```json\n" + array(elements) + "\n```\nAnything else?";
+
+            assertThat(legacyParse(response)).hasSize(elements);
+            assertThat(parser.parseTransactions(response)).hasSize(elements);
+
+            double legacy = Timing.measure("legacy-parse elements=" + elements, 2_000, 5_000, () -> legacyParse(response));
+            double streaming = Timing.measure("streaming-parse elements=" + elements, 2_000, 5_000, () -> parser.parseTransactions(response));
+
+            System.out.printf("elements=%d legacy=%.1fus streaming=%.1fus speedup=%.2fx%n",
+                    elements, legacy / 1_000, streaming / 1_000, legacy / streaming);
+        }
+    }
+
+    /**
+     * ProcessDocumentServiceImp.extractJsonFromString followed by
+     * TransactionServiceImp.createTransactionServiceFromJsonArray, minus the entity mapping.
+     */
+    private List<CreateTransactionDto> legacyParse(String text) throws Exception {
+        String trimmed = text.trim();
+        String json;
+        if ((trimmed.startsWith("{") && trimmed.endsWith("}")) || (trimmed.startsWith("[") && trimmed.endsWith("]"))) {
+            json = trimmed;
+        } else {
+            Matcher block = CODE_BLOCK.matcher(text);
+            if (block.find()) {
+                json = block.group(1).trim();
+            } else {
+                Matcher embedded = EMBEDDED.matcher(text);
+                json = embedded.find() ? embedded.group(1).trim() : null;
+            }
+        }
+
+        List<CreateTransactionDto> transactions = new ArrayList<>();
+        JsonNode root = objectMapper.readTree(json);
+        if (root.isArray()) {
+            for (JsonNode node : root) {
+                transactions.add(objectMapper.readValue(node.toString(), CreateTransactionDto.class));
+            }
+        } else {
+            transactions.add(objectMapper.readValue(json, CreateTransactionDto.class));
+        }
+        return transactions;
+    }
+
+    private String array(int elements) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < elements; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"client\":\"Client ").append(i)
+                    .append("\",\"txnDate\":\"2025-03-").append(String.format("%02d", i % 28 + 1))
+                    .append("\",\"amountBeforeTax\":").append(100 + i)
+                    .append(",\"amountAfterTax\":").append(118 + i)
+                    .append(",\"currency\":\"INR\",\"category\":\"Software\",\"transactionType\":\"EXPENSE\"")
+                    .append(",\"paymentMethod\":\"UPI\",\"invoiceNumber\":\"INV-").append(i)
+                    .append("\",\"notes\":\"Monthly subscription\"}");
+        }
+        return json.append(']').toString();
+    }
+}
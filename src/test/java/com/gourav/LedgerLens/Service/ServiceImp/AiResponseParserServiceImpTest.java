@@ -0,0 +1,100 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Only a response that really ends early keeps its finished elements. A complete element that
+ * fails to bind must fail the whole response, so a document never completes with the
+ * transactions after the bad one missing.
+ */
+class AiResponseParserServiceImpTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AiResponseParserServiceImp parser =
+            new AiResponseParserServiceImp(new ObjectMapper().findAndRegisterModules(), meterRegistry);
+
+    @Test
+    void parsesArrayWrappedInProseAndCodeFence() {
+        String response = "Here are the transactions:\n```json\n"
+                + "[{\"client\":\"Acme\",\"txnDate\":\"2025-03-01\",\"amountAfterTax\":118.00},"
+                + "{\"client\":\"Globex\",\"txnDate\":\"2025-03-02\",\"amountAfterTax\":42.50}]\n```\nLet me know!";
+
+        List<CreateTransactionDto> transactions = parser.parseTransactions(response);
+
+        assertThat(transactions).extracting(CreateTransactionDto::getClient).containsExactly("Acme", "Globex");
+        assertThat(transactions.get(0).getTxnDate()).isEqualTo(LocalDate.of(2025, 3, 1));
+        assertThat(parses("complete")).isEqualTo(1);
+    }
+
+    @Test
+    void parsesSingleObject() {
+        List<CreateTransactionDto> transactions = parser.parseTransactions("{\"client\":\"Acme\"} trailing text");
+
+        assertThat(transactions).extracting(CreateTransactionDto::getClient).containsExactly("Acme");
+        assertThat(parses("complete")).isEqualTo(1);
+    }
+
+    @Test
+    void salvagesElementsBeforeCutBetweenElements() {
+        List<CreateTransactionDto> transactions =
+                parser.parseTransactions("[{\"client\":\"Acme\"},{\"client\":\"Globex\"},");
+
+        assertThat(transactions).extracting(CreateTransactionDto::getClient).containsExactly("Acme", "Globex");
+        assertThat(parses("salvaged")).isEqualTo(1);
+    }
+
+    @Test
+    void salvagesElementsBeforeCutInsideElement() {
+        List<CreateTransactionDto> transactions =
+                parser.parseTransactions("[{\"client\":\"Acme\"},{\"client\":\"Glo");
+
+        assertThat(transactions).extracting(CreateTransactionDto::getClient).containsExactly("Acme");
+        assertThat(parses("salvaged")).isEqualTo(1);
+    }
+
+    @Test
+    void failsWholeResponseWhenCompleteElementDoesNotBind() {
+        List<CreateTransactionDto> transactions = parser.parseTransactions(
+                "[{\"client\":\"Acme\"},{\"client\":\"Globex\",\"txnDate\":\"next tuesday\"},{\"client\":\"Initech\"}]");
+
+        assertThat(transactions).isEmpty();
+        assertThat(parses("failed")).isEqualTo(1);
+        assertThat(parses("salvaged")).isZero();
+    }
+
+    @Test
+    void failsWholeResponseOnMalformedJsonMidArray() {
+        List<CreateTransactionDto> transactions =
+                parser.parseTransactions("[{\"client\":\"Acme\"},{\"client\" \"Globex\"}]");
+
+        assertThat(transactions).isEmpty();
+        assertThat(parses("failed")).isEqualTo(1);
+    }
+
+    @Test
+    void failsWhenCutBeforeFirstElementCloses() {
+        assertThat(parser.parseTransactions("[{\"client\":\"Ac")).isEmpty();
+        assertThat(parses("failed")).isEqualTo(1);
+    }
+
+    @Test
+    void returnsEmptyWithoutJson() {
+        assertThat(parser.parseTransactions("I could not find any transactions.")).isEmpty();
+        assertThat(parser.parseTransactions("  ")).isEmpty();
+        assertThat(parses("empty")).isEqualTo(2);
+    }
+
+    private double parses(String result) {
+        return meterRegistry.counter("ledgerlens.ai_response.parses", "result", result).count();
+    }
+}
@@ -0,0 +1,199 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
+import com.gourav.LedgerLens.Domain.Entity.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * One real-world shaped alert per issuer pack, and near misses that must go to the model
+ * instead: digests, implausible fields, oversized text and look-alike marketing copy.
+ */
+class BankAlertExtractorServiceImpTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BankAlertExtractorServiceImp extractor = new BankAlertExtractorServiceImp(meterRegistry);
+
+    private final User owner = User.builder()
+            .id(UUID.randomUUID())
+            .email("owner@example.com")
+            .fullname("Owner")
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(extractor, "maxChars", 1500);
+    }
+
+    @Test
+    void hdfcUpiDebit() {
+        CreateTransactionDto transaction = single(
+                "Rs.500.00 has been debited from account **1234 to VPA merchant@okhdfc ACME STORES on 12-09-25. "
+                        + "Your UPI transaction reference number is 525512345678. If you did not authorize this transaction, "
+                        + "please report it immediately by calling 18002586161. Warm Regards, HDFC Bank");
+
+        assertTransaction(transaction, "500.00", LocalDate.of(2025, 9, 12), "ACME STORES", "EXPENSE", "525512345678");
+        assertThat(transaction.getNotes()).isEqualTo("Read from HDFC alert");
+        assertThat(accepted("HDFC")).isEqualTo(1);
+    }
+
+    @Test
+    void hdfcUpiCredit() {
+        CreateTransactionDto transaction = single(
+                "Rs. 1,250.00 is successfully credited to your account **1234 by VPA client@ybl Priya Sharma on 05-09-25. "
+                        + "Your UPI transaction reference number is 524812345678. Thank you for banking with HDFC Bank.");
+
+        assertTransaction(transaction, "1250.00", LocalDate.of(2025, 9, 5), "Priya Sharma", "INCOME", "524812345678");
+    }
+
+    @Test
+    void iciciUpiDebit() {
+        CreateTransactionDto transaction = single(
+                "ICICI Bank Acct XX123 debited for Rs 849.00 on 10-Sep-25; Swiggy credited. UPI:525398765432. "
+                        + "Call 18002662 for dispute.");
+
+        assertTransaction(transaction, "849.00", LocalDate.of(2025, 9, 10), "Swiggy", "EXPENSE", "525398765432");
+        assertThat(accepted("ICICI")).isEqualTo(1);
+    }
+
+    @Test
+    void iciciCredit() {
+        CreateTransactionDto transaction = single(
+                "Dear Customer, Acct XX123 is credited with Rs 15,000.00 on 01-Sep-25 from Rahul Verma. UPI:524412345678-ICICI Bank.");
+
+        assertTransaction(transaction, "15000.00", LocalDate.of(2025, 9, 1), "Rahul Verma", "INCOME", "524412345678");
+    }
+
+    @Test
+    void sbiDebit() {
+        CreateTransactionDto transaction = single(
+                "Dear UPI user A/C X1234 debited by 250.0 on date 08Sep25 trf to Chai Point Refno 525187654321. "
+                        + "If not u? call 1800111109. -SBI");
+
+        assertTransaction(transaction, "250.0", LocalDate.of(2025, 9, 8), "Chai Point", "EXPENSE", "525187654321");
+        assertThat(accepted("SBI")).isEqualTo(1);
+    }
+
+    @Test
+    void sbiCredit() {
+        CreateTransactionDto transaction = single(
+                "Dear SBI User, your A/c X1234-credited by Rs.3,000.00 on 02Sep25 transfer from Anil Kumar Ref No 524598765432 -SBI");
+
+        assertTransaction(transaction, "3000.00", LocalDate.of(2025, 9, 2), "Anil Kumar", "INCOME", "524598765432");
+    }
+
+    @Test
+    void axisUpiDebit() {
+        CreateTransactionDto transaction = single(
+                "INR 1,999.00 debited to A/c no. XX5678 14-09-25, 18:22:10 UPI/P2M/525712345678/AMAZON PAY Not you? "
+                        + "SMS BLOCKUPI Cust ID to 919951860002 Axis Bank");
+
+        assertTransaction(transaction, "1999.00", LocalDate.of(2025, 9, 14), "AMAZON PAY", "EXPENSE", "525712345678");
+        assertThat(accepted("AXIS")).isEqualTo(1);
+    }
+
+    @Test
+    void genericUpiDebitAndCredit() {
+        CreateTransactionDto debit = single(
+                "Rs 320.00 debited from A/c XX9012 via UPI to Blue Tokai Coffee on 11-09-25. Ref No 525312345678. Not you? Call us.");
+        CreateTransactionDto credit = single(
+                "Rs.750 credited to A/c XX9012 by UPI from Neha Gupta on 03-09-2025. Ref 524698765432");
+
+        assertTransaction(debit, "320.00", LocalDate.of(2025, 9, 11), "Blue Tokai Coffee", "EXPENSE", "525312345678");
+        assertTransaction(credit, "750", LocalDate.of(2025, 9, 3), "Neha Gupta", "INCOME", "524698765432");
+        assertThat(accepted("UPI")).isEqualTo(2);
+    }
+
+    @Test
+    void digestWithTwoAlertsGoesToModel() {
+        assertThat(extract(
+                "Rs 320.00 debited from A/c XX9012 via UPI to Blue Tokai Coffee on 11-09-25. "
+                        + "Rs 120.00 debited from A/c XX9012 via UPI to Metro Card on 11-09-25."))
+                .isEmpty();
+        assertThat(rejected("UPI")).isEqualTo(1);
+    }
+
+    @Test
+    void futureDateIsRejected() {
+        assertThat(extract("Rs 320.00 debited from A/c XX9012 via UPI to Blue Tokai Coffee on 11-09-35.")).isEmpty();
+        assertThat(rejected("UPI")).isEqualTo(1);
+    }
+
+    @Test
+    void impossibleDateIsRejected() {
+        assertThat(extract("Rs 320.00 debited from A/c XX9012 via UPI to Blue Tokai Coffee on 45-09-25.")).isEmpty();
+        assertThat(rejected("UPI")).isEqualTo(1);
+    }
+
+    @Test
+    void zeroAmountIsRejected() {
+        assertThat(extract("Rs 0.00 debited from A/c XX9012 via UPI to Blue Tokai Coffee on 11-09-25.")).isEmpty();
+        assertThat(rejected("UPI")).isEqualTo(1);
+    }
+
+    @Test
+    void overlongPartyIsRejected() {
+        assertThat(extract("Rs 320.00 debited from A/c XX9012 via UPI to " + "Blue Tokai Coffee Roasters ".repeat(4)
+                + "on 11-09-25.")).isEmpty();
+        assertThat(rejected("UPI")).isEqualTo(1);
+    }
+
+    @Test
+    void textOverMaxCharsIsNotTried() {
+        String alert = "Rs 320.00 debited from A/c XX9012 via UPI to Blue Tokai Coffee on 11-09-25.";
+
+        assertThat(extract(alert + " ".repeat(1500))).isEmpty();
+        assertThat(rejected("UPI")).isZero();
+        assertThat(accepted("UPI")).isZero();
+    }
+
+    @Test
+    void lookAlikeTextWithoutAlertWordingIsLeftAlone() {
+        assertThat(extract("Get 10% cashback on HDFC Bank credit cards. Pay Rs 500 via UPI and win rewards!")).isEmpty();
+        assertThat(extract("Invoice INV-2041 from Acme Hosting. Total Rs 4,321.00 due on 30-09-25.")).isEmpty();
+        assertThat(rejected("HDFC")).isZero();
+        assertThat(rejected("UPI")).isZero();
+    }
+
+    private Optional<List<CreateTransactionDto>> extract(String text) {
+        return extractor.extract(text, owner);
+    }
+
+    private CreateTransactionDto single(String text) {
+        Optional<List<CreateTransactionDto>> transactions = extract(text);
+        assertThat(transactions).as(text).isPresent();
+        assertThat(transactions.get()).hasSize(1);
+        return transactions.get().get(0);
+    }
+
+    private static void assertTransaction(CreateTransactionDto transaction, String amount, LocalDate date,
+                                          String party, String type, String ref) {
+        assertThat(transaction.getAmountAfterTax()).isEqualByComparingTo(new BigDecimal(amount));
+        assertThat(transaction.getTxnDate()).isEqualTo(date);
+        assertThat(transaction.getClient()).isEqualTo(party);
+        assertThat(transaction.getTransactionType()).isEqualTo(type);
+        assertThat(transaction.getInvoiceNumber()).isEqualTo(ref);
+        assertThat(transaction.getCurrency()).isEqualTo("INR");
+        assertThat(transaction.getPaymentMethod()).isEqualTo("UPI");
+    }
+
+    private double accepted(String issuer) {
+        return meterRegistry.counter("ledgerlens.bank_alert.matches", "issuer", issuer, "result", "accepted").count();
+    }
+
+    private double rejected(String issuer) {
+        return meterRegistry.counter("ledgerlens.bank_alert.matches", "issuer", issuer, "result", "rejected").count();
+    }
+}
@@ -0,0 +1,127 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Helper.DocumentContent;
+import com.gourav.LedgerLens.Helper.TestDocuments;
+import com.gourav.LedgerLens.Helper.Timing;
+import com.gourav.LedgerLens.Service.ObjectCacheService;
+import com.gourav.LedgerLens.Service.S3KeyResolverService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.fork.ForkParser;
+import org.apache.tika.parser.AutoDetectParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Extraction throughput with tika.fork.enabled off and on, under the same concurrency:
+ * in-process with the PDFBox fast path (the default), in-process through Tika only, and
+ * forked workers. Run with {@code mvn test -Dbenchmarks=true -Dtest=ForkedExtractionBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = Timing.ENABLED_PROPERTY, matches = "true")
+class ForkedExtractionBenchmarkTest {
+
+    private static final int WORKERS = 4;
+    private static final int DOCUMENTS = 200;
+    private static final int PAGES = 5;
+
+    @Test
+    void inProcessAgainstForkedThroughput() throws Exception {
+        TikaConfig tikaConfig;
+        try (InputStream in = getClass().getResourceAsStream("/tika/tika-config-invoices.xml")) {
+            tikaConfig = new TikaConfig(in);
+        }
+        AutoDetectParser parser = new AutoDetectParser(tikaConfig);
+        byte[] pdf = TestDocuments.invoicePdf(PAGES);
+
+        report("in_process_fast_path", run(service(parser, tikaConfig, null, true), pdf));
+        report("in_process_tika", run(service(parser, tikaConfig, null, false), pdf));
+
+        ForkParser forkParser = new ForkParser(ForkedExtractionBenchmarkTest.class.getClassLoader(), parser);
+        forkParser.setPoolSize(WORKERS);
+        forkParser.setJavaCommand(List.of("java", "-Xmx512m", "-XX:+ExitOnOutOfMemoryError"));
+        try {
+            report("forked", run(service(parser, tikaConfig, forkParser, false), pdf));
+        } finally {
+            forkParser.close();
+        }
+    }
+
+    /**
+     * Pushes the documents through WORKERS concurrent callers after a warm-up pass.
+     *
+     * @return elapsed milliseconds for the measured pass
+     */
+    private long run(TextExtractServiceImp service, byte[] pdf) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(WORKERS);
+        try {
+            extractAll(service, callers, pdf, WORKERS * 5);
+
+            long started = System.nanoTime();
+            extractAll(service, callers, pdf, DOCUMENTS);
+            return Timing.millisSince(started);
+        } finally {
+            callers.shutdownNow();
+            service.shutdown();
+        }
+    }
+
+    private void extractAll(TextExtractServiceImp service, ExecutorService callers, byte[] pdf, int count) throws Exception {
+        List<Future<String>> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DocumentContent content = DocumentContent.inMemory(pdf, "invoice-" + i + ".pdf", "application/pdf");
+            results.add(callers.submit(() -> service.extractText(content)));
+        }
+        for (Future<String> result : results) {
+            assertThat(result.get()).contains("INV-1000");
+        }
+    }
+
+    private void report(String mode, long elapsedMs) {
+        System.out.printf("mode=%s documents=%d pages=%d workers=%d elapsed=%dms throughput=%.1f docs/s%n",
+                mode, DOCUMENTS, PAGES, WORKERS, elapsedMs, DOCUMENTS * 1000.0 / Math.max(elapsedMs, 1));
+    }
+
+    @SuppressWarnings("unchecked")
+    private TextExtractServiceImp service(AutoDetectParser parser, TikaConfig tikaConfig, ForkParser forkParser, boolean fastPath) {
+        PdfTextExtractServiceImp pdfTextExtractService = new PdfTextExtractServiceImp();
+        ReflectionTestUtils.setField(pdfTextExtractService, "enabled", fastPath);
+        ReflectionTestUtils.setField(pdfTextExtractService, "maxMainMemoryBytes", 16L * 1024 * 1024);
+
+        ObjectProvider<ForkParser> forkProvider = mock(ObjectProvider.class);
+        when(forkProvider.getIfAvailable()).thenReturn(forkParser);
+
+        TextExtractServiceImp service = new TextExtractServiceImp(
+                mock(ObjectCacheService.class),
+                mock(S3KeyResolverService.class),
+                parser,
+                tikaConfig,
+                pdfTextExtractService,
+                new SimpleMeterRegistry(),
+                forkProvider
+        );
+        ReflectionTestUtils.setField(service, "maxStringLength", 100_000);
+        ReflectionTestUtils.setField(service, "timeoutMs", 60_000L);
+        ReflectionTestUtils.setField(service, "poolSize", WORKERS);
+        ReflectionTestUtils.setField(service, "queueCapacity", DOCUMENTS);
+        ReflectionTestUtils.setField(service, "queueTimeoutMs", 300_000L);
+        ReflectionTestUtils.setField(service, "inlinePoolSize", 1);
+        ReflectionTestUtils.setField(service, "inlineQueueCapacity", 10);
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,267 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gourav.LedgerLens.Domain.Entity.User;
+import com.gourav.LedgerLens.Helper.AiExtractionRequest;
+import com.gourav.LedgerLens.Service.GeminiAiService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Batches are cut by size, length and wait time, hold one owner's documents only, and every
+ * document ends up with its own result: from the batch when the model answered it plausibly,
+ * otherwise from a single call.
+ */
+class GeminiBatchServiceImpTest {
+
+    private static final Pattern TOTAL = Pattern.compile("Total (\\d+\\.\\d{2})");
+
+    private final GeminiAiService geminiAiService = mock(GeminiAiService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final User alice = user("Alice");
+    private final User bob = user("Bob");
+
+    private GeminiBatchServiceImp batching;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        batching = new GeminiBatchServiceImp(geminiAiService, new ObjectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(batching, "maxDocuments", 3);
+        ReflectionTestUtils.setField(batching, "maxChars", 1_000);
+        ReflectionTestUtils.setField(batching, "maxWaitMs", 10_000L);
+        ReflectionTestUtils.setField(batching, "concurrency", 2);
+        ReflectionTestUtils.setField(batching, "maxPending", 64);
+
+        when(geminiAiService.extractTextToTransaction(anyString(), any(User.class)))
+                .thenAnswer(invocation -> "single:" + total(invocation.getArgument(0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        batching.stop();
+    }
+
+    @Test
+    void fullBatchIsSentOnceAndResultsMapBackById() throws Exception {
+        answerBatchCorrectly();
+        batching.start();
+
+        CompletableFuture<String> first = batching.submit(invoice("100.00"), alice);
+        CompletableFuture<String> second = batching.submit(invoice("200.00"), alice);
+        CompletableFuture<String> third = batching.submit(invoice("300.00"), alice);
+
+        assertThat(result(first)).contains("100.00");
+        assertThat(result(second)).contains("200.00");
+        assertThat(result(third)).contains("300.00");
+        verify(geminiAiService, times(1)).extractTransactionsBatch(anyList());
+        verify(geminiAiService, never()).extractTextToTransaction(anyString(), any(User.class));
+    }
+
+    @Test
+    void partialBatchIsSentAtMaxWait() throws Exception {
+        ReflectionTestUtils.setField(batching, "maxWaitMs", 200L);
+        answerBatchCorrectly();
+        batching.start();
+
+        CompletableFuture<String> first = batching.submit(invoice("100.00"), alice);
+        CompletableFuture<String> second = batching.submit(invoice("200.00"), alice);
+
+        assertThat(result(first)).contains("100.00");
+        assertThat(result(second)).contains("200.00");
+        verify(geminiAiService, times(1)).extractTransactionsBatch(anyList());
+    }
+
+    @Test
+    void documentThatWouldOverflowMaxCharsStartsNewBatch() throws Exception {
+        ReflectionTestUtils.setField(batching, "maxWaitMs", 200L);
+        answerBatchCorrectly();
+        batching.start();
+        String padding = " line".repeat(60);
+
+        CompletableFuture<String> first = batching.submit(invoice("100.00") + padding, alice);
+        CompletableFuture<String> second = batching.submit(invoice("200.00") + padding, alice);
+        // Pushes the open batch past 1000 characters, so the first two go without it
+        CompletableFuture<String> third = batching.submit(invoice("300.00") + padding, alice);
+
+        assertThat(result(first)).contains("100.00");
+        assertThat(result(second)).contains("200.00");
+        // Alone in its batch, so it is sent as a single call
+        assertThat(result(third)).isEqualTo("single:300.00");
+    }
+
+    @Test
+    void ownersNeverShareBatch() throws Exception {
+        ReflectionTestUtils.setField(batching, "maxDocuments", 2);
+        ReflectionTestUtils.setField(batching, "maxWaitMs", 200L);
+        answerBatchCorrectly();
+        batching.start();
+
+        CompletableFuture<String> aliceFirst = batching.submit(invoice("100.00"), alice);
+        CompletableFuture<String> bobOnly = batching.submit(invoice("200.00"), bob);
+        CompletableFuture<String> aliceSecond = batching.submit(invoice("300.00"), alice);
+
+        assertThat(result(aliceFirst)).contains("100.00");
+        assertThat(result(aliceSecond)).contains("300.00");
+        assertThat(result(bobOnly)).isEqualTo("single:200.00");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<AiExtractionRequest>> batches = ArgumentCaptor.forClass(List.class);
+        verify(geminiAiService, times(1)).extractTransactionsBatch(batches.capture());
+        assertThat(batches.getValue()).extracting(AiExtractionRequest::getUserName).containsOnly("Alice");
+    }
+
+    @Test
+    void swappedResultsAreRetriedAlone() throws Exception {
+        when(geminiAiService.extractTransactionsBatch(anyList())).thenAnswer(invocation -> {
+            List<AiExtractionRequest> requests = invocation.getArgument(0);
+            Map<String, String> results = new HashMap<>();
+            // The model attached each result to the other document's id
+            results.put(requests.get(0).getId(), json(total(requests.get(1).getExtractedText())));
+            results.put(requests.get(1).getId(), json(total(requests.get(0).getExtractedText())));
+            return results;
+        });
+        ReflectionTestUtils.setField(batching, "maxDocuments", 2);
+        batching.start();
+
+        CompletableFuture<String> first = batching.submit(invoice("100.00"), alice);
+        CompletableFuture<String> second = batching.submit(invoice("200.00"), alice);
+
+        assertThat(result(first)).isEqualTo("single:100.00");
+        assertThat(result(second)).isEqualTo("single:200.00");
+        assertThat(meterRegistry.counter("ledgerlens.gemini.batch.implausible").count()).isEqualTo(2);
+    }
+
+    @Test
+    void documentMissingFromBatchResultIsRetriedAlone() throws Exception {
+        when(geminiAiService.extractTransactionsBatch(anyList())).thenAnswer(invocation -> {
+            List<AiExtractionRequest> requests = invocation.getArgument(0);
+            return Map.of(requests.get(0).getId(), json(total(requests.get(0).getExtractedText())));
+        });
+        ReflectionTestUtils.setField(batching, "maxDocuments", 2);
+        batching.start();
+
+        CompletableFuture<String> answered = batching.submit(invoice("100.00"), alice);
+        CompletableFuture<String> skipped = batching.submit(invoice("200.00"), alice);
+
+        assertThat(result(answered)).contains("100.00");
+        assertThat(result(skipped)).isEqualTo("single:200.00");
+        assertThat(meterRegistry.counter("ledgerlens.gemini.batch.fallbacks").count()).isEqualTo(1);
+    }
+
+    @Test
+    void failedBatchFailsEveryDocument() throws Exception {
+        when(geminiAiService.extractTransactionsBatch(anyList())).thenThrow(new IOException("quota exceeded"));
+        ReflectionTestUtils.setField(batching, "maxDocuments", 2);
+        batching.start();
+
+        CompletableFuture<String> first = batching.submit(invoice("100.00"), alice);
+        CompletableFuture<String> second = batching.submit(invoice("200.00"), alice);
+
+        for (CompletableFuture<String> future : List.of(first, second)) {
+            assertThatThrownBy(() -> result(future)).hasCauseInstanceOf(IOException.class).hasRootCauseMessage("quota exceeded");
+        }
+    }
+
+    @Test
+    void cachedResultSkipsBatching() throws Exception {
+        batching.start();
+        String text = invoice("100.00");
+        when(geminiAiService.findCached(text, alice)).thenReturn(Optional.of("cached"));
+
+        assertThat(batching.submit(text, alice)).isCompletedWithValue("cached");
+        verify(geminiAiService, never()).extractTransactionsBatch(anyList());
+    }
+
+    @Test
+    void oversizedDocumentGoesAloneWithoutQueueing() throws Exception {
+        batching.start();
+        String text = invoice("100.00") + " line".repeat(300);
+
+        assertThat(result(batching.submit(text, alice))).isEqualTo("single:100.00");
+        verify(geminiAiService, never()).findCached(anyString(), any(User.class));
+        verify(geminiAiService, never()).extractTransactionsBatch(anyList());
+    }
+
+    @Test
+    void stopFailsDocumentsStillWaiting() throws Exception {
+        batching.start();
+        CompletableFuture<String> waiting = batching.submit(invoice("100.00"), alice);
+
+        batching.stop();
+
+        assertThatThrownBy(() -> result(waiting)).hasCauseInstanceOf(IOException.class);
+        verify(geminiAiService, never()).extractTransactionsBatch(anyList());
+    }
+
+    private void answerBatchCorrectly() throws IOException {
+        when(geminiAiService.extractTransactionsBatch(anyList())).thenAnswer(invocation -> {
+            List<AiExtractionRequest> requests = invocation.getArgument(0);
+            Map<String, String> results = new HashMap<>();
+            for (AiExtractionRequest request : requests) {
+                results.put(request.getId(), json(total(request.getExtractedText())));
+            }
+            return results;
+        });
+    }
+
+    private static String result(CompletableFuture<String> future) throws InterruptedException, ExecutionException {
+        try {
+            return future.get(5, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new AssertionError("No result within 5 s", e);
+        }
+    }
+
+    private static String invoice(String total) {
+        return "Acme Hosting invoice for managed servers. Total " + total + " due in 30 days.";
+    }
+
+    private static String total(String text) {
+        Matcher matcher = TOTAL.matcher(text);
+        assertThat(matcher.find()).isTrue();
+        return matcher.group(1);
+    }
+
+    private static String json(String total) {
+        return "{\"client\":\"Acme Hosting\",\"amountAfterTax\":" + total + "}";
+    }
+
+    private static User user(String name) {
+        return User.builder()
+                .id(UUID.randomUUID())
+                .email(name.toLowerCase() + "@example.com")
+                .fullname(name)
+                .build();
+    }
+}
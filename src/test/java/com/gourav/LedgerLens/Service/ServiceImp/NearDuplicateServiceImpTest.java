@@ -0,0 +1,120 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Domain.Entity.Transaction;
+import com.gourav.LedgerLens.Domain.Enum.processingStatus;
+import com.gourav.LedgerLens.Helper.MinHash;
+import com.gourav.LedgerLens.Repository.DocumentRepository;
+import com.gourav.LedgerLens.Repository.TransactionRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A similar-looking document only counts as a duplicate when the original's totals, dates and
+ * invoice numbers can all be read off the new text.
+ */
+class NearDuplicateServiceImpTest {
+
+    private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID originalId = UUID.randomUUID();
+    private final String originalText = invoice("2025-03-01 10:15", "INV-104", "01/03/2025", "4,321.00");
+
+    private NearDuplicateServiceImp service;
+
+    @BeforeEach
+    void setUp() {
+        service = new NearDuplicateServiceImp(documentRepository, transactionRepository, meterRegistry);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "threshold", 0.85);
+        ReflectionTestUtils.setField(service, "indexCacheUsers", 100L);
+        ReflectionTestUtils.setField(service, "indexTtlMinutes", 10L);
+        service.init();
+
+        List<Object[]> rows = List.<Object[]>of(new Object[]{originalId, MinHash.toBytes(MinHash.signature(originalText))});
+        when(documentRepository.findSignaturesByUserId(userId, processingStatus.COMPLETED)).thenReturn(rows);
+        when(transactionRepository.findByDocumentId(originalId)).thenReturn(List.of(Transaction.builder()
+                .amountAfterTax(new BigDecimal("4321.00"))
+                .txnDate(LocalDate.of(2025, 3, 1))
+                .invoiceNumber("INV-104")
+                .build()));
+    }
+
+    @Test
+    void reExportOfSameInvoiceIsDuplicate() {
+        String reExport = invoice("2025-03-07 16:42", "INV-104", "01/03/2025", "4,321.00");
+
+        assertThat(service.findNearDuplicate(userId, service.fingerprint(reExport), reExport)).contains(originalId);
+        assertThat(meterRegistry.counter("ledgerlens.documents.near_duplicates").count()).isEqualTo(1);
+    }
+
+    @Test
+    void dateInAnotherLayoutStillMatches() {
+        String reExport = invoice("2025-03-07 16:42", "INV-104", "Mar 1, 2025", "4321.00");
+
+        assertThat(service.findNearDuplicate(userId, service.fingerprint(reExport), reExport)).contains(originalId);
+    }
+
+    @Test
+    void nextMonthsInvoiceFromSameVendorIsNotDuplicate() {
+        String nextMonth = invoice("2025-04-01 10:15", "INV-117", "01/04/2025", "4,480.00");
+
+        assertThat(service.findNearDuplicate(userId, service.fingerprint(nextMonth), nextMonth)).isEmpty();
+        assertThat(meterRegistry.counter("ledgerlens.documents.near_duplicate_rejections").count()).isEqualTo(1);
+    }
+
+    @Test
+    void invoiceNumberMustNotBePartOfLongerNumber() {
+        String other = invoice("2025-03-07 16:42", "INV-1045", "01/03/2025", "4,321.00");
+
+        assertThat(service.findNearDuplicate(userId, service.fingerprint(other), other)).isEmpty();
+    }
+
+    @Test
+    void totalMustNotBePartOfLongerAmount() {
+        String other = invoice("2025-03-07 16:42", "INV-104", "01/03/2025", "14321.00");
+
+        assertThat(service.findNearDuplicate(userId, service.fingerprint(other), other)).isEmpty();
+    }
+
+    @Test
+    void originalWithoutTransactionsNeverMatches() {
+        when(transactionRepository.findByDocumentId(originalId)).thenReturn(List.of());
+
+        assertThat(service.findNearDuplicate(userId, service.fingerprint(originalText), originalText)).isEmpty();
+    }
+
+    @Test
+    void noSignatureSkipsLookup() {
+        assertThat(service.findNearDuplicate(userId, null, originalText)).isEmpty();
+        verify(documentRepository, never()).findSignaturesByUserId(any(), any());
+    }
+
+    private static String invoice(String generatedAt, String invoiceNumber, String date, String total) {
+        StringBuilder text = new StringBuilder("Acme Hosting Ltd Tax Invoice ").append(invoiceNumber)
+                .append(" dated ").append(date).append(" generated ").append(generatedAt).append('\n');
+        for (int i = 1; i <= 80; i++) {
+            text.append("Line ").append(i).append(" managed server plan region eu-west node ")
+                    .append(i * 7).append(" hours ").append(i + 10).append('\n');
+        }
+        return text.append("Total due ").append(total).append(" payable within 30 days").toString();
+    }
+}
@@ -0,0 +1,210 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Helper.DocumentContent;
+import com.gourav.LedgerLens.Service.S3Service;
+import com.gourav.LedgerLens.Service.UploadStagingService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Size-bounded LRU eviction and one shared download per key, with storage mocked to hand out
+ * spool files the way S3ServiceImp.downloadFile does.
+ */
+class ObjectCacheServiceImpTest {
+
+    private final S3Service s3Service = mock(S3Service.class);
+    private final UploadStagingService uploadStagingService = mock(UploadStagingService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path tempDir;
+
+    private Path cacheDir;
+    private Path spoolDir;
+    private ObjectCacheServiceImp cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cacheDir = tempDir.resolve("cache");
+        spoolDir = Files.createDirectories(tempDir.resolve("spool"));
+
+        cache = new ObjectCacheServiceImp(s3Service, uploadStagingService, meterRegistry);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "cacheDir", cacheDir);
+        ReflectionTestUtils.setField(cache, "maxSizeBytes", 250L);
+        ReflectionTestUtils.setField(cache, "maxObjectBytes", 200L);
+        ReflectionTestUtils.setField(cache, "fillThreads", 1);
+        cache.init();
+
+        when(s3Service.downloadFile(anyString(), anyString())).thenAnswer(invocation -> spooled(invocation.getArgument(0), 100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void secondOpenIsServedFromDisk() throws Exception {
+        assertThat(readAndClose("a")).isEqualTo(content("a", 100));
+        assertThat(readAndClose("a")).isEqualTo(content("a", 100));
+
+        verify(s3Service, times(1)).downloadFile("a", "a");
+        assertThat(meterRegistry.counter("ledgerlens.object_cache.requests", "result", "hit").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("ledgerlens.object_cache.requests", "result", "miss").count()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenOverSize() throws Exception {
+        readAndClose("a");
+        readAndClose("b");
+        // Touch a, so b is now the least recently used
+        readAndClose("a");
+
+        readAndClose("c");
+
+        assertThat(meterRegistry.counter("ledgerlens.object_cache.evictions").count()).isEqualTo(1);
+        readAndClose("a");
+        verify(s3Service, times(1)).downloadFile("a", "a");
+        readAndClose("b");
+        verify(s3Service, times(2)).downloadFile("b", "b");
+    }
+
+    @Test
+    void openReaderSurvivesEviction() throws Exception {
+        try (DocumentContent reader = cache.open("a", "a")) {
+            readAndClose("b");
+            readAndClose("c");
+            readAndClose("d");
+
+            assertThat(meterRegistry.counter("ledgerlens.object_cache.evictions").count()).isGreaterThanOrEqualTo(1);
+            try (InputStream in = reader.openStream()) {
+                assertThat(in.readAllBytes()).isEqualTo(content("a", 100));
+            }
+        }
+    }
+
+    @Test
+    void objectOverMaxObjectBytesIsNotKept() throws Exception {
+        when(s3Service.downloadFile("big", "big")).thenAnswer(invocation -> spooled("big", 300));
+
+        assertThat(readAndClose("big")).hasSize(300);
+        assertThat(readAndClose("big")).hasSize(300);
+
+        verify(s3Service, times(2)).downloadFile("big", "big");
+    }
+
+    @Test
+    void concurrentMissesShareOneDownload() throws Exception {
+        CountDownLatch downloading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(s3Service.downloadFile("shared", "shared")).thenAnswer(invocation -> {
+            downloading.countDown();
+            release.await();
+            return spooled("shared", 100);
+        });
+
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<byte[]>> reads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                reads.add(callers.submit(() -> readAndClose("shared")));
+            }
+            assertThat(downloading.await(5, TimeUnit.SECONDS)).isTrue();
+            // Give the other callers time to find the download in flight
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<byte[]> read : reads) {
+                assertThat(read.get(5, TimeUnit.SECONDS)).isEqualTo(content("shared", 100));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        verify(s3Service, times(1)).downloadFile("shared", "shared");
+    }
+
+    @Test
+    void failedDownloadIsRetriedByNextMiss() throws Exception {
+        when(s3Service.downloadFile("flaky", "flaky"))
+                .thenThrow(new IOException("connection reset"))
+                .thenAnswer(invocation -> spooled("flaky", 100));
+
+        assertThatThrownBy(() -> readAndClose("flaky")).isInstanceOf(IOException.class).hasMessage("connection reset");
+
+        assertThat(readAndClose("flaky")).isEqualTo(content("flaky", 100));
+    }
+
+    @Test
+    void spoolFileIsDeletedWhenAdmitFails() throws Exception {
+        Path spool = spoolDir.resolve("orphan.spool");
+        Files.write(spool, content("orphan", 100));
+        when(s3Service.downloadFile("orphan", "orphan")).thenReturn(DocumentContent.spooled(spool, "orphan", "application/pdf"));
+        // Moving into a missing cache directory fails
+        FileSystemUtils.deleteRecursively(cacheDir);
+
+        assertThatThrownBy(() -> cache.open("orphan", "orphan")).isInstanceOf(IOException.class);
+
+        assertThat(spool).doesNotExist();
+    }
+
+    @Test
+    void disabledCacheDownloadsEveryTime() throws Exception {
+        ReflectionTestUtils.setField(cache, "enabled", false);
+
+        readAndClose("a");
+        readAndClose("a");
+
+        verify(s3Service, times(2)).downloadFile("a", "a");
+    }
+
+    private byte[] readAndClose(String key) throws IOException {
+        try (DocumentContent content = cache.open(key, key);
+             InputStream in = content.openStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    private DocumentContent spooled(String key, int size) throws IOException {
+        Path file = spoolDir.resolve(UUID.randomUUID() + ".spool");
+        Files.write(file, content(key, size));
+        return DocumentContent.spooled(file, key, "application/pdf");
+    }
+
+    private static byte[] content(String key, int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (key.hashCode() + i);
+        }
+        return bytes;
+    }
+}
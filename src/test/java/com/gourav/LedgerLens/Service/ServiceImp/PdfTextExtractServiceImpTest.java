@@ -0,0 +1,98 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Exception.ExtractionTimeoutException;
+import com.gourav.LedgerLens.Helper.DocumentContent;
+import com.gourav.LedgerLens.Helper.TestDocuments;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PdfTextExtractServiceImpTest {
+
+    private static final long NO_DEADLINE = System.nanoTime() + TimeUnit.HOURS.toNanos(1);
+
+    private final PdfTextExtractServiceImp service = new PdfTextExtractServiceImp();
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "maxMainMemoryBytes", 16L * 1024 * 1024);
+    }
+
+    @Test
+    void detectsPdfByMagicBytes() throws Exception {
+        assertThat(service.isPdf(pdf("Invoice"))).isTrue();
+        assertThat(service.isPdf(DocumentContent.inMemory("Invoice".getBytes(StandardCharsets.UTF_8), "invoice.pdf", "application/pdf"))).isFalse();
+        assertThat(service.isPdf(DocumentContent.inMemory(new byte[3], "x.pdf", "application/pdf"))).isFalse();
+    }
+
+    @Test
+    void disabledFastPathNeverClaimsPdf() throws Exception {
+        ReflectionTestUtils.setField(service, "enabled", false);
+
+        assertThat(service.isPdf(pdf("Invoice"))).isFalse();
+    }
+
+    @Test
+    void extractsEveryPage() throws Exception {
+        String text = service.extractText(pdf("First page", "Second page"), 10_000, NO_DEADLINE);
+
+        assertThat(text).contains("First page").contains("Second page");
+    }
+
+    @Test
+    void stopsAtCharacterCap() throws Exception {
+        String text = service.extractText(pdf("First page text", "Second page text", "Third page text"), 10, NO_DEADLINE);
+
+        assertThat(text).hasSize(10).startsWith("First page");
+    }
+
+    @Test
+    void readsSpooledPdfFromFile() throws Exception {
+        Path file = tempDir.resolve("statement.pdf");
+        Files.write(file, TestDocuments.pdf("Spooled statement"));
+
+        try (DocumentContent content = DocumentContent.spooled(file, "statement.pdf", "application/pdf")) {
+            assertThat(service.extractText(content, 10_000, NO_DEADLINE)).contains("Spooled statement");
+        }
+    }
+
+    @Test
+    void passedDeadlineStopsBeforeNextPage() throws Exception {
+        DocumentContent content = pdf("First page", "Second page");
+
+        assertThatThrownBy(() -> service.extractText(content, 10_000, System.nanoTime() - 1))
+                .isInstanceOf(ExtractionTimeoutException.class)
+                .hasMessageContaining("page 1");
+    }
+
+    @Test
+    void interruptStopsExtraction() throws Exception {
+        DocumentContent content = pdf("First page");
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(() -> service.extractText(content, 10_000, NO_DEADLINE))
+                    .isInstanceOf(ExtractionTimeoutException.class);
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    private DocumentContent pdf(String... pages) throws Exception {
+        return DocumentContent.inMemory(TestDocuments.pdf(pages), "invoice.pdf", "application/pdf");
+    }
+}
@@ -0,0 +1,179 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
+import com.gourav.LedgerLens.Domain.Entity.Document;
+import com.gourav.LedgerLens.Domain.Entity.User;
+import com.gourav.LedgerLens.Domain.Enum.processingStatus;
+import com.gourav.LedgerLens.Helper.DocumentContent;
+import com.gourav.LedgerLens.Repository.DocumentRepository;
+import com.gourav.LedgerLens.Repository.UserRepository;
+import com.gourav.LedgerLens.Service.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * The Gemini call must run with no transaction open, so it never pins a pooled connection for
+ * the length of the model round trip. The persist step is checked too, to show the transaction
+ * manager in this context really does open transactions.
+ */
+@SpringJUnitConfig(ProcessDocumentServiceTransactionTest.Config.class)
+@TestPropertySource(properties = "cloudflare.r2.bucket=ledgerlens-test")
+class ProcessDocumentServiceTransactionTest {
+
+    @Configuration
+    @EnableTransactionManagement
+    @Import({ProcessDocumentServiceImp.class, DocumentPersistServiceImp.class})
+    static class Config {
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return new NoOpTransactionManager();
+        }
+    }
+
+    /**
+     * Opens and closes transactions without a database, so the synchronization state is real.
+     */
+    static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+
+    @Autowired
+    private ProcessDocumentService processDocumentService;
+
+    @MockitoBean
+    private DocumentRepository documentRepository;
+
+    @MockitoBean
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private NearDuplicateService nearDuplicateService;
+
+    @MockitoBean
+    private TextExtractService textExtractService;
+
+    @MockitoBean
+    private GeminiAiService geminiAiService;
+
+    @MockitoBean
+    private GeminiBatchService geminiBatchService;
+
+    @MockitoBean
+    private AiResponseParserService aiResponseParserService;
+
+    @MockitoBean
+    private TransactionService transactionService;
+
+    @MockitoBean
+    private LocalExtractionService localExtractionService;
+
+    @MockitoBean
+    private UploadStagingService uploadStagingService;
+
+    @MockitoBean
+    private ProcessingJobService processingJobService;
+
+    private final AtomicReference<Boolean> transactionDuringAiCall = new AtomicReference<>();
+    private final AtomicReference<Boolean> transactionDuringPersist = new AtomicReference<>();
+
+    private User user;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        user = User.builder()
+                .id(UUID.randomUUID())
+                .email("owner@example.com")
+                .fullname("Owner")
+                .build();
+
+        when(geminiAiService.extractTextToTransaction(anyString(), any(User.class))).thenAnswer(invocation -> {
+            transactionDuringAiCall.set(TransactionSynchronizationManager.isActualTransactionActive());
+            return "[{\"client\":\"Acme\"}]";
+        });
+        when(aiResponseParserService.parseTransactions(anyString())).thenReturn(List.of(new CreateTransactionDto()));
+    }
+
+    @Test
+    void processDocumentCallsGeminiOutsideTransaction() throws Exception {
+        Document document = Document.builder()
+                .id(UUID.randomUUID())
+                .s3Key("documents/invoice.pdf")
+                .originalFileName("invoice.pdf")
+                .user(user)
+                .status(processingStatus.UPLOADED)
+                .build();
+
+        when(documentRepository.findWithUserById(document.getId())).thenReturn(Optional.of(document));
+        when(textExtractService.extractTextFromS3File(anyString(), anyString())).thenReturn("Invoice text");
+        when(documentRepository.findByIdForUpdate(document.getId())).thenAnswer(invocation -> {
+            transactionDuringPersist.set(TransactionSynchronizationManager.isActualTransactionActive());
+            return Optional.of(document);
+        });
+
+        processDocumentService.processDocument(document.getId());
+
+        assertThat(transactionDuringAiCall.get()).isFalse();
+        assertThat(transactionDuringPersist.get()).isTrue();
+    }
+
+    @Test
+    void processAttachmentCallsGeminiOutsideTransaction() throws Exception {
+        DocumentContent content = DocumentContent.inMemory(
+                "Invoice text".getBytes(StandardCharsets.UTF_8), "invoice.pdf", "application/pdf");
+
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(textExtractService.extractText(content)).thenReturn("Invoice text");
+        when(uploadStagingService.store(any(DocumentContent.class), anyString())).thenReturn("documents/invoice.pdf");
+        when(documentRepository.saveAndFlush(any(Document.class))).thenAnswer(invocation -> {
+            transactionDuringPersist.set(TransactionSynchronizationManager.isActualTransactionActive());
+            return invocation.getArgument(0);
+        });
+
+        processDocumentService.processAttachment(content, user.getEmail(), "message-1");
+
+        assertThat(transactionDuringAiCall.get()).isFalse();
+        assertThat(transactionDuringPersist.get()).isTrue();
+    }
+}
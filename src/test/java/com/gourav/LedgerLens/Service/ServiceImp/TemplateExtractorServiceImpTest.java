@@ -0,0 +1,196 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gourav.LedgerLens.Domain.Dtos.CreateTransactionDto;
+import com.gourav.LedgerLens.Domain.Entity.ExtractionTemplate;
+import com.gourav.LedgerLens.Domain.Entity.User;
+import com.gourav.LedgerLens.Repository.ExtractionTemplateRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Learning a vendor layout from one AI result, confirming it with a different document,
+ * ignoring replays of the source document, and dropping it when the model disagrees.
+ */
+class TemplateExtractorServiceImpTest {
+
+    private final Map<String, ExtractionTemplate> stored = new HashMap<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final User owner = User.builder()
+            .id(UUID.randomUUID())
+            .email("owner@example.com")
+            .fullname("Owner")
+            .build();
+
+    private TemplateExtractorServiceImp extractor;
+
+    private final String september = invoice("INV-1001", "12/09/2025", "1,000.00", "180.00", "1,180.00");
+    private final String october = invoice("INV-1002", "13/10/2025", "1,100.00", "198.00", "1,298.00");
+    private final String november = invoice("INV-1003", "14/11/2025", "2,000.00", "360.00", "2,360.00");
+
+    @BeforeEach
+    void setUp() {
+        ExtractionTemplateRepository repository = mock(ExtractionTemplateRepository.class);
+        when(repository.findById(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(stored.get(invocation.<String>getArgument(0))));
+        when(repository.save(any(ExtractionTemplate.class))).thenAnswer(invocation -> {
+            ExtractionTemplate template = invocation.getArgument(0);
+            stored.put(template.getTemplateKey(), template);
+            return template;
+        });
+        doAnswer(invocation -> stored.remove(invocation.<String>getArgument(0))).when(repository).deleteById(anyString());
+
+        extractor = new TemplateExtractorServiceImp(repository, new ObjectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(extractor, "enabled", true);
+        ReflectionTestUtils.setField(extractor, "minConfirmations", 1);
+        ReflectionTestUtils.setField(extractor, "verifySampleRate", 0.0);
+        ReflectionTestUtils.setField(extractor, "layoutLines", 12);
+        ReflectionTestUtils.setField(extractor, "memorySize", 100L);
+        ReflectionTestUtils.setField(extractor, "memoryTtlMinutes", 10L);
+        extractor.init();
+    }
+
+    @Test
+    void learnStoresAnUnconfirmedTemplate() {
+        extractor.learn(september, owner, List.of(answer("1180.00", "1000.00", LocalDate.of(2025, 9, 12), "INV-1001")));
+
+        assertThat(stored).hasSize(1);
+        ExtractionTemplate template = stored.values().iterator().next();
+        assertThat(template.getConfirmations()).isZero();
+        assertThat(template.getClient()).isEqualTo("Acme Hosting");
+        assertThat(template.getAnchors()).contains("Total Due: ", "Invoice Date: ", "dd/MM/uuuu");
+        assertThat(events("learned")).isEqualTo(1);
+
+        // Not trusted until a different document agrees with it
+        assertThat(extractor.extract(october, owner)).isEmpty();
+    }
+
+    @Test
+    void replayOfTheSourceDocumentDoesNotConfirm() {
+        CreateTransactionDto answer = answer("1180.00", "1000.00", LocalDate.of(2025, 9, 12), "INV-1001");
+
+        extractor.learn(september, owner, List.of(answer));
+        extractor.learn(september, owner, List.of(answer));
+
+        assertThat(stored.values().iterator().next().getConfirmations()).isZero();
+        assertThat(events("repeated")).isEqualTo(1);
+        assertThat(extractor.extract(october, owner)).isEmpty();
+    }
+
+    @Test
+    void confirmedTemplateReadsTheNextDocument() {
+        extractor.learn(september, owner, List.of(answer("1180.00", "1000.00", LocalDate.of(2025, 9, 12), "INV-1001")));
+        extractor.learn(october, owner, List.of(answer("1298.00", "1100.00", LocalDate.of(2025, 10, 13), "INV-1002")));
+
+        assertThat(stored.values().iterator().next().getConfirmations()).isEqualTo(1);
+        assertThat(events("verified")).isEqualTo(1);
+
+        Optional<List<CreateTransactionDto>> result = extractor.extract(november, owner);
+
+        assertThat(result).isPresent();
+        CreateTransactionDto transaction = result.get().get(0);
+        assertThat(transaction.getAmountAfterTax()).isEqualByComparingTo("2360.00");
+        assertThat(transaction.getAmountBeforeTax()).isEqualByComparingTo("2000.00");
+        assertThat(transaction.getTxnDate()).isEqualTo(LocalDate.of(2025, 11, 14));
+        assertThat(transaction.getInvoiceNumber()).isEqualTo("INV-1003");
+        assertThat(transaction.getClient()).isEqualTo("Acme Hosting");
+        assertThat(transaction.getTransactionType()).isEqualTo("EXPENSE");
+    }
+
+    @Test
+    void disagreementInvalidatesAndRelearnsFromTheModel() {
+        extractor.learn(september, owner, List.of(answer("1180.00", "1000.00", LocalDate.of(2025, 9, 12), "INV-1001")));
+        extractor.learn(october, owner, List.of(answer("1298.00", "1100.00", LocalDate.of(2025, 10, 13), "INV-1002")));
+
+        // The model now reads the subtotal as the amount; the confirmed template reads the total
+        extractor.learn(november, owner, List.of(answer("2000.00", null, LocalDate.of(2025, 11, 14), "INV-1003")));
+
+        assertThat(events("invalidated")).isEqualTo(1);
+        assertThat(stored).hasSize(1);
+        ExtractionTemplate relearned = stored.values().iterator().next();
+        assertThat(relearned.getConfirmations()).isZero();
+        assertThat(relearned.getAnchors()).contains("Subtotal: ").doesNotContain("Total Due: ");
+        assertThat(extractor.extract(november, owner)).isEmpty();
+    }
+
+    @Test
+    void disagreementWithNothingToRelearnLeavesNoTemplate() {
+        extractor.learn(september, owner, List.of(answer("1180.00", "1000.00", LocalDate.of(2025, 9, 12), "INV-1001")));
+        extractor.learn(october, owner, List.of(answer("1298.00", "1100.00", LocalDate.of(2025, 10, 13), "INV-1002")));
+
+        extractor.learn(november, owner, List.of(answer("999.00", null, LocalDate.of(2025, 11, 14), "INV-1003")));
+
+        assertThat(events("invalidated")).isEqualTo(1);
+        assertThat(stored).isEmpty();
+        assertThat(extractor.extract(november, owner)).isEmpty();
+    }
+
+    @Test
+    void sampledDocumentsGoToTheModel() {
+        extractor.learn(september, owner, List.of(answer("1180.00", "1000.00", LocalDate.of(2025, 9, 12), "INV-1001")));
+        extractor.learn(october, owner, List.of(answer("1298.00", "1100.00", LocalDate.of(2025, 10, 13), "INV-1002")));
+        ReflectionTestUtils.setField(extractor, "verifySampleRate", 1.0);
+
+        assertThat(extractor.extract(november, owner)).isEmpty();
+        assertThat(events("sampled")).isEqualTo(1);
+    }
+
+    @Test
+    void multiTransactionResultsAreNotLearned() {
+        CreateTransactionDto answer = answer("1180.00", "1000.00", LocalDate.of(2025, 9, 12), "INV-1001");
+
+        extractor.learn(september, owner, List.of(answer, answer));
+
+        assertThat(stored).isEmpty();
+    }
+
+    private double events(String event) {
+        return meterRegistry.counter("ledgerlens.extraction_templates.events", "event", event).count();
+    }
+
+    private static String invoice(String number, String date, String subtotal, String tax, String total) {
+        return String.join("\n",
+                "Acme Hosting Pvt Ltd",
+                "Tax Invoice",
+                "Invoice No: " + number,
+                "Invoice Date: " + date,
+                "Subtotal: " + subtotal,
+                "GST: " + tax,
+                "Total Due: " + total,
+                "Thank you for your business");
+    }
+
+    private static CreateTransactionDto answer(String total, String subtotal, LocalDate date, String invoiceNumber) {
+        CreateTransactionDto transaction = new CreateTransactionDto();
+        transaction.setClient("Acme Hosting");
+        transaction.setTxnDate(date);
+        transaction.setAmountAfterTax(new BigDecimal(total));
+        transaction.setAmountBeforeTax(subtotal == null ? null : new BigDecimal(subtotal));
+        transaction.setCurrency("INR");
+        transaction.setCategory("SOFTWARE");
+        transaction.setTransactionType("EXPENSE");
+        transaction.setPaymentMethod("BANK_TRANSFER");
+        transaction.setInvoiceNumber(invoiceNumber);
+        return transaction;
+    }
+}
@@ -0,0 +1,105 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Helper.DocumentContent;
+import com.gourav.LedgerLens.Helper.TestDocuments;
+import com.gourav.LedgerLens.Helper.Timing;
+import com.gourav.LedgerLens.Service.ObjectCacheService;
+import com.gourav.LedgerLens.Service.S3KeyResolverService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.apache.tika.Tika;
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.WriteOutContentHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Per-document extraction overhead, before and after the shared parser:
+ * a new Tika facade per call (the old code), the shared pre-built AutoDetectParser, and the
+ * full TextExtractServiceImp path with the PDFBox fast path. Run with
+ * {@code mvn test -Dbenchmarks=true -Dtest=TextExtractBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = Timing.ENABLED_PROPERTY, matches = "true")
+class TextExtractBenchmarkTest {
+
+    private static final int MAX_CHARS = 100_000;
+
+    @Test
+    void perDocumentOverhead() throws Exception {
+        TikaConfig tikaConfig = TikaConfig.getDefaultConfig();
+        AutoDetectParser sharedParser = new AutoDetectParser(tikaConfig);
+        TextExtractServiceImp service = service(sharedParser, tikaConfig);
+
+        try {
+            for (int pages : new int[]{1, 10}) {
+                byte[] pdf = TestDocuments.invoicePdf(pages);
+                DocumentContent content = DocumentContent.inMemory(pdf, "invoice.pdf", "application/pdf");
+
+                assertThat(perCallTika(pdf)).contains("INV-1000");
+                assertThat(shared(sharedParser, pdf)).contains("INV-1000");
+                assertThat(service.extractText(content)).contains("INV-1000");
+
+                double perCall = Timing.measure("new-tika-per-call pages=" + pages, 20, 100, () -> perCallTika(pdf));
+                double sharedParse = Timing.measure("shared-parser pages=" + pages, 50, 500, () -> shared(sharedParser, pdf));
+                double servicePath = Timing.measure("service-path pages=" + pages, 50, 500, () -> service.extractText(content));
+
+                System.out.printf("pages=%d newTikaPerCall=%.2fms sharedParser=%.2fms servicePath=%.2fms%n",
+                        pages, perCall / 1_000_000, sharedParse / 1_000_000, servicePath / 1_000_000);
+            }
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    // What extractTextFromS3File and extractTextFromAttachment did before: parser discovery on every call
+    private String perCallTika(byte[] pdf) throws Exception {
+        return new Tika().parseToString(new ByteArrayInputStream(pdf));
+    }
+
+    private String shared(AutoDetectParser parser, byte[] pdf) throws Exception {
+        WriteOutContentHandler handler = new WriteOutContentHandler(MAX_CHARS);
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, parser);
+        parser.parse(new ByteArrayInputStream(pdf), new BodyContentHandler(handler), new Metadata(), context);
+        return handler.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private TextExtractServiceImp service(AutoDetectParser parser, TikaConfig tikaConfig) {
+        PdfTextExtractServiceImp pdfTextExtractService = new PdfTextExtractServiceImp();
+        ReflectionTestUtils.setField(pdfTextExtractService, "enabled", true);
+        ReflectionTestUtils.setField(pdfTextExtractService, "maxMainMemoryBytes", 16L * 1024 * 1024);
+
+        TextExtractServiceImp service = new TextExtractServiceImp(
+                mock(ObjectCacheService.class),
+                mock(S3KeyResolverService.class),
+                parser,
+                tikaConfig,
+                pdfTextExtractService,
+                new SimpleMeterRegistry(),
+                mock(ObjectProvider.class)
+        );
+        ReflectionTestUtils.setField(service, "maxStringLength", MAX_CHARS);
+        ReflectionTestUtils.setField(service, "timeoutMs", 60_000L);
+        ReflectionTestUtils.setField(service, "poolSize", 1);
+        ReflectionTestUtils.setField(service, "queueCapacity", 10);
+        ReflectionTestUtils.setField(service, "queueTimeoutMs", 30_000L);
+        ReflectionTestUtils.setField(service, "inlinePoolSize", 1);
+        ReflectionTestUtils.setField(service, "inlineQueueCapacity", 10);
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,209 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Exception.DocumentProcessingException;
+import com.gourav.LedgerLens.Exception.ExtractionTimeoutException;
+import com.gourav.LedgerLens.Exception.UnsupportedDocumentTypeException;
+import com.gourav.LedgerLens.Helper.DocumentContent;
+import com.gourav.LedgerLens.Service.ObjectCacheService;
+import com.gourav.LedgerLens.Service.PdfTextExtractService;
+import com.gourav.LedgerLens.Service.S3KeyResolverService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.parser.AutoDetectParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Extraction is bounded three ways: a character cap, a wall-clock deadline that starts when the
+ * parse starts, and a queue timeout that fails retryably when no worker picks the parse up.
+ * The PDF fast path is mocked to stand in for a slow or stalled parser.
+ */
+class TextExtractServiceImpTest {
+
+    private static TikaConfig tikaConfig;
+    private static AutoDetectParser autoDetectParser;
+
+    private final PdfTextExtractService pdfTextExtractService = mock(PdfTextExtractService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TextExtractServiceImp service;
+
+    @BeforeAll
+    static void loadInvoiceProfile() throws Exception {
+        try (InputStream in = TextExtractServiceImpTest.class.getResourceAsStream("/tika/tika-config-invoices.xml")) {
+            tikaConfig = new TikaConfig(in);
+        }
+        autoDetectParser = new AutoDetectParser(tikaConfig);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void stopsAtCharacterCap() throws Exception {
+        start(1, 20, 5_000, 5_000);
+
+        String text = service.extractText(text("notes.txt", "Line item ".repeat(1_000)));
+
+        assertThat(text.length()).isLessThanOrEqualTo(20);
+        assertThat(meterRegistry.counter("ledgerlens.extraction.truncated", "path", "tika").count()).isEqualTo(1);
+    }
+
+    @Test
+    void returnsPdfFastPathText() throws Exception {
+        start(1, 1_000, 5_000, 5_000);
+        DocumentContent pdf = pdf("invoice.pdf");
+        when(pdfTextExtractService.isPdf(pdf)).thenReturn(true);
+        when(pdfTextExtractService.extractText(any(DocumentContent.class), anyInt(), anyLong())).thenReturn("Invoice total 10.00");
+
+        assertThat(service.extractText(pdf)).isEqualTo("Invoice total 10.00");
+        assertThat(meterRegistry.counter("ledgerlens.extraction.documents", "path", "pdfbox").count()).isEqualTo(1);
+    }
+
+    @Test
+    void stalledParseTimesOutAndIsNotRetried() throws Exception {
+        start(1, 1_000, 200, 5_000);
+        DocumentContent pdf = pdf("stalled.pdf");
+        when(pdfTextExtractService.isPdf(pdf)).thenReturn(true);
+        when(pdfTextExtractService.extractText(any(DocumentContent.class), anyInt(), anyLong())).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return "never";
+        });
+
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> service.extractText(pdf))
+                .isInstanceOf(ExtractionTimeoutException.class)
+                .satisfies(e -> assertThat(((DocumentProcessingException) e).isRetryable()).isFalse());
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(5_000);
+        assertThat(meterRegistry.counter("ledgerlens.extraction.timeouts").count()).isEqualTo(1);
+    }
+
+    @Test
+    void queuedParseGetsItsFullTimeBudget() throws Exception {
+        // One worker: the second parse waits 600 ms in the queue, then needs 500 ms of a 1000 ms budget
+        start(1, 1_000, 1_000, 5_000);
+        DocumentContent first = pdf("first.pdf");
+        DocumentContent second = pdf("second.pdf");
+        when(pdfTextExtractService.isPdf(any(DocumentContent.class))).thenReturn(true);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        when(pdfTextExtractService.extractText(any(DocumentContent.class), anyInt(), anyLong())).thenAnswer(invocation -> {
+            DocumentContent content = invocation.getArgument(0);
+            if (content == first) {
+                firstStarted.countDown();
+                Thread.sleep(600);
+                return "first";
+            }
+            Thread.sleep(500);
+            return "second";
+        });
+
+        CompletableFuture<String> firstResult = CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.extractText(first);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(firstStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(service.extractText(second)).isEqualTo("second");
+        assertThat(firstResult.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+    }
+
+    @Test
+    void parseThatNeverStartsFailsRetryably() throws Exception {
+        start(1, 1_000, 5_000, 100);
+        DocumentContent blocking = pdf("blocking.pdf");
+        DocumentContent queued = pdf("queued.pdf");
+        when(pdfTextExtractService.isPdf(any(DocumentContent.class))).thenReturn(true);
+        CountDownLatch blockingStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(pdfTextExtractService.extractText(any(DocumentContent.class), anyInt(), anyLong())).thenAnswer(invocation -> {
+            blockingStarted.countDown();
+            release.await();
+            return "done";
+        });
+
+        CompletableFuture.runAsync(() -> {
+            try {
+                service.extractText(blocking);
+            } catch (Exception ignored) {
+                // Only here to occupy the single worker
+            }
+        });
+        assertThat(blockingStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            assertThatThrownBy(() -> service.extractText(queued))
+                    .isInstanceOf(DocumentProcessingException.class)
+                    .isNotInstanceOf(ExtractionTimeoutException.class)
+                    .hasMessageContaining("did not start")
+                    .satisfies(e -> assertThat(((DocumentProcessingException) e).isRetryable()).isTrue());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void rejectsTypeOutsideProfileBeforeParsing() {
+        start(1, 1_000, 5_000, 5_000);
+        byte[] elf = {0x7F, 'E', 'L', 'F', 2, 1, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+        assertThatThrownBy(() -> service.requireSupportedType(DocumentContent.inMemory(elf, "invoice.bin", null)))
+                .isInstanceOf(UnsupportedDocumentTypeException.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void start(int poolSize, int maxChars, long timeoutMs, long queueTimeoutMs) {
+        service = new TextExtractServiceImp(
+                mock(ObjectCacheService.class),
+                mock(S3KeyResolverService.class),
+                autoDetectParser,
+                tikaConfig,
+                pdfTextExtractService,
+                meterRegistry,
+                mock(ObjectProvider.class)
+        );
+        ReflectionTestUtils.setField(service, "maxStringLength", maxChars);
+        ReflectionTestUtils.setField(service, "timeoutMs", timeoutMs);
+        ReflectionTestUtils.setField(service, "poolSize", poolSize);
+        ReflectionTestUtils.setField(service, "queueCapacity", 10);
+        ReflectionTestUtils.setField(service, "queueTimeoutMs", queueTimeoutMs);
+        ReflectionTestUtils.setField(service, "inlinePoolSize", 1);
+        ReflectionTestUtils.setField(service, "inlineQueueCapacity", 10);
+        service.init();
+    }
+
+    private static DocumentContent text(String name, String text) {
+        return DocumentContent.inMemory(text.getBytes(StandardCharsets.UTF_8), name, "text/plain");
+    }
+
+    private static DocumentContent pdf(String name) {
+        // Content is never parsed: the mocked fast path answers for it
+        return DocumentContent.inMemory("%PDF-1.4 stub".getBytes(StandardCharsets.US_ASCII), name, "application/pdf");
+    }
+}
@@ -0,0 +1,222 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Helper.DocumentContent;
+import com.gourav.LedgerLens.Helper.Timing;
+import com.gourav.LedgerLens.Repository.DocumentRepository;
+import com.gourav.LedgerLens.Service.DocumentContentService;
+import com.gourav.LedgerLens.Service.S3KeyResolverService;
+import com.gourav.LedgerLens.Service.S3Service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.multipart.MultipartConfiguration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Upload and download throughput for 1 MB to 200 MB objects.
+ * The local run covers LocalStorageServiceImp (the local-storage backend) and write-back
+ * staging, which is what an upload waits for when storage.write-back.enabled is on. With
+ * -Dbenchmarks.s3.endpoint pointing at an S3-compatible store (MinIO, R2), S3ServiceImp's
+ * single synchronous putObject is compared with the async multipart path. Run with
+ * {@code mvn test -Dbenchmarks=true -Dtest=TransferBenchmarkTest}, adding
+ * -Dbenchmarks.s3.bucket, -Dbenchmarks.s3.access-key and -Dbenchmarks.s3.secret-key for the S3 run.
+ */
+@EnabledIfSystemProperty(named = Timing.ENABLED_PROPERTY, matches = "true")
+class TransferBenchmarkTest {
+
+    private static final int MB = 1024 * 1024;
+    private static final int[] SIZES_MB = {1, 16, 64, 200};
+    private static final int RUNS = 3;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void localStorageAndWriteBackStaging() throws Exception {
+        DocumentContentService documentContentService = spoolingContentService();
+
+        LocalStorageServiceImp localStorage = new LocalStorageServiceImp(documentContentService, mock(S3KeyResolverService.class));
+        Path storageDir = tempDir.resolve("storage");
+        ReflectionTestUtils.setField(localStorage, "rootDir", storageDir);
+
+        S3Service remote = mock(S3Service.class);
+        when(remote.keyFor(anyString())).thenAnswer(invocation -> "sha256/" + invocation.getArgument(0));
+        UploadStagingServiceImp staging = new UploadStagingServiceImp(remote, mock(DocumentRepository.class), new SimpleMeterRegistry());
+        Path stagingDir = tempDir.resolve("staging");
+        ReflectionTestUtils.setField(staging, "enabled", true);
+        ReflectionTestUtils.setField(staging, "stagingDir", stagingDir);
+        ReflectionTestUtils.setField(staging, "uploaderThreads", 1);
+        ReflectionTestUtils.setField(staging, "retryBaseSeconds", 30L);
+        ReflectionTestUtils.setField(staging, "retryMaxSeconds", 60L);
+
+        try {
+            for (int sizeMb : SIZES_MB) {
+                localStorage.init();
+                staging.init();
+                try (DocumentContent content = content(sizeMb)) {
+                    long upload = 0;
+                    long download = 0;
+                    long staged = 0;
+                    for (int run = 0; run < RUNS; run++) {
+                        String hash = randomHash();
+
+                        long started = System.nanoTime();
+                        String key = localStorage.uploadFile(content, hash);
+                        upload += System.nanoTime() - started;
+
+                        started = System.nanoTime();
+                        try (DocumentContent downloaded = localStorage.downloadFile(key, "bench.bin")) {
+                            assertThat(downloaded.getSize()).isEqualTo(content.getSize());
+                        }
+                        download += System.nanoTime() - started;
+
+                        started = System.nanoTime();
+                        staging.store(content, randomHash());
+                        staged += System.nanoTime() - started;
+                    }
+                    report("local-storage upload", sizeMb, upload);
+                    report("local-storage download", sizeMb, download);
+                    report("write-back stage", sizeMb, staged);
+                }
+                staging.shutdown();
+                FileSystemUtils.deleteRecursively(storageDir);
+                FileSystemUtils.deleteRecursively(stagingDir);
+            }
+        } finally {
+            staging.shutdown();
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks.s3.endpoint", matches = ".+")
+    void singlePutAgainstMultipartUpload() throws Exception {
+        URI endpoint = URI.create(System.getProperty("benchmarks.s3.endpoint"));
+        StaticCredentialsProvider credentials = StaticCredentialsProvider.create(AwsBasicCredentials.create(
+                System.getProperty("benchmarks.s3.access-key"), System.getProperty("benchmarks.s3.secret-key")));
+
+        // Same tuning as S3Config's defaults; path-style so local stand-ins need no wildcard DNS
+        try (S3Client s3Client = S3Client.builder()
+                .region(Region.of("auto"))
+                .endpointOverride(endpoint)
+                .credentialsProvider(credentials)
+                .forcePathStyle(true)
+                .build();
+             S3AsyncClient s3AsyncClient = S3AsyncClient.builder()
+                     .region(Region.of("auto"))
+                     .endpointOverride(endpoint)
+                     .credentialsProvider(credentials)
+                     .forcePathStyle(true)
+                     .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                             .maxConcurrency(64)
+                             .maxPendingConnectionAcquires(256)
+                             .connectionAcquisitionTimeout(Duration.ofSeconds(30))
+                             .readTimeout(Duration.ofSeconds(60))
+                             .writeTimeout(Duration.ofSeconds(60)))
+                     .multipartEnabled(true)
+                     .multipartConfiguration(MultipartConfiguration.builder()
+                             .thresholdInBytes(16L * MB)
+                             .minimumPartSizeInBytes(8L * MB)
+                             .apiCallBufferSizeInBytes(32L * MB)
+                             .build())
+                     .build()) {
+
+            DocumentContentService documentContentService = spoolingContentService();
+            S3ServiceImp singlePut = s3Service(s3Client, s3AsyncClient, documentContentService, Long.MAX_VALUE);
+            S3ServiceImp multipart = s3Service(s3Client, s3AsyncClient, documentContentService, 16L * MB);
+
+            for (int sizeMb : SIZES_MB) {
+                try (DocumentContent content = content(sizeMb)) {
+                    long single = 0;
+                    long parallel = 0;
+                    long download = 0;
+                    for (int run = 0; run < RUNS; run++) {
+                        long started = System.nanoTime();
+                        singlePut.uploadFile(content, randomHash());
+                        single += System.nanoTime() - started;
+
+                        started = System.nanoTime();
+                        String key = multipart.uploadFile(content, randomHash());
+                        parallel += System.nanoTime() - started;
+
+                        started = System.nanoTime();
+                        try (DocumentContent downloaded = multipart.downloadFile(key, "bench.bin")) {
+                            assertThat(downloaded.getSize()).isEqualTo(content.getSize());
+                        }
+                        download += System.nanoTime() - started;
+                    }
+                    report("s3 single put", sizeMb, single);
+                    report("s3 multipart upload", sizeMb, parallel);
+                    report("s3 async download", sizeMb, download);
+                }
+            }
+        }
+    }
+
+    private S3ServiceImp s3Service(S3Client s3Client, S3AsyncClient s3AsyncClient,
+                                   DocumentContentService documentContentService, long multipartThresholdBytes) {
+        S3ServiceImp service = new S3ServiceImp(s3Client, s3AsyncClient, documentContentService,
+                mock(S3Presigner.class), mock(S3KeyResolverService.class));
+        ReflectionTestUtils.setField(service, "bucketName", System.getProperty("benchmarks.s3.bucket", "ledgerlens-bench"));
+        ReflectionTestUtils.setField(service, "multipartThresholdBytes", multipartThresholdBytes);
+        return service;
+    }
+
+    private DocumentContentService spoolingContentService() throws IOException {
+        Path spoolDir = Files.createDirectories(tempDir.resolve("spool"));
+        DocumentContentService documentContentService = mock(DocumentContentService.class);
+        when(documentContentService.createSpoolFile()).thenAnswer(invocation -> Files.createTempFile(spoolDir, "bench-", ".spool"));
+        return documentContentService;
+    }
+
+    // Spooled like a large upload, so every path takes its file-backed branch
+    private DocumentContent content(int sizeMb) throws IOException {
+        byte[] block = new byte[MB];
+        new Random(sizeMb).nextBytes(block);
+        Path file = tempDir.resolve("content-" + sizeMb + ".bin");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int i = 0; i < sizeMb; i++) {
+                out.write(block);
+            }
+        }
+        return DocumentContent.spooled(file, "bench.bin", "application/pdf");
+    }
+
+    private static String randomHash() {
+        byte[] hash = new byte[32];
+        ThreadLocalRandom.current().nextBytes(hash);
+        return HexFormat.of().formatHex(hash);
+    }
+
+    private static void report(String path, int sizeMb, long totalNanos) {
+        double seconds = totalNanos / 1e9 / RUNS;
+        System.out.printf("path=%s size=%dMB mean=%.1fms throughput=%.1fMB/s%n",
+                path, sizeMb, seconds * 1_000, sizeMb / seconds);
+    }
+}
@@ -0,0 +1,225 @@
+package com.gourav.LedgerLens.Service.ServiceImp;
+
+import com.gourav.LedgerLens.Helper.ContentHasher;
+import com.gourav.LedgerLens.Helper.DocumentContent;
+import com.gourav.LedgerLens.Helper.StoredObjectInfo;
+import com.gourav.LedgerLens.Repository.DocumentRepository;
+import com.gourav.LedgerLens.Service.S3Service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Write-back staging against a temp directory, with storage mocked: what store leaves on disk,
+ * what a restart recovers, and how failed uploads are retried.
+ */
+class UploadStagingServiceImpTest {
+
+    private static final byte[] CONTENT = "%PDF-1.4 invoice".getBytes(StandardCharsets.US_ASCII);
+    private static final String HASH = ContentHasher.sha256Hex(CONTENT);
+
+    private final S3Service s3Service = mock(S3Service.class);
+    private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path stagingDir;
+
+    private UploadStagingServiceImp staging;
+
+    @BeforeEach
+    void setUp() {
+        when(s3Service.keyFor(anyString())).thenAnswer(invocation -> "documents/" + invocation.getArgument(0));
+
+        staging = new UploadStagingServiceImp(s3Service, documentRepository, meterRegistry);
+        ReflectionTestUtils.setField(staging, "enabled", true);
+        ReflectionTestUtils.setField(staging, "stagingDir", stagingDir);
+        ReflectionTestUtils.setField(staging, "uploaderThreads", 1);
+        ReflectionTestUtils.setField(staging, "retryBaseSeconds", 0L);
+        ReflectionTestUtils.setField(staging, "retryMaxSeconds", 60L);
+        ReflectionTestUtils.setField(staging, "reconcileWindowHours", 24L);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        staging.shutdown();
+    }
+
+    @Test
+    void storedObjectIsReadableUntilUploadedThenRemoved() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(s3Service.uploadFile(any(DocumentContent.class), eq(HASH))).thenAnswer(invocation -> {
+            release.await();
+            return "documents/" + HASH;
+        });
+        staging.init();
+
+        assertThat(staging.store(pdf(), HASH)).isEqualTo("documents/" + HASH);
+
+        try (DocumentContent staged = staging.openStaged("documents/" + HASH, "invoice.pdf").orElseThrow();
+             InputStream in = staged.openStream()) {
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+            assertThat(staged.getContentType()).isEqualTo("application/pdf");
+        }
+
+        release.countDown();
+        awaitUntil(() -> !Files.exists(stagingDir.resolve(HASH)) && !Files.exists(stagingDir.resolve(HASH + ".meta")));
+        assertThat(staging.openStaged("documents/" + HASH, "invoice.pdf")).isEmpty();
+        assertThat(meterRegistry.counter("ledgerlens.write_back.uploads", "result", "success").count()).isEqualTo(1);
+    }
+
+    @Test
+    void disabledStagingUploadsSynchronously() throws Exception {
+        ReflectionTestUtils.setField(staging, "enabled", false);
+        when(s3Service.uploadFile(any(DocumentContent.class), eq(HASH))).thenReturn("documents/" + HASH);
+        staging.init();
+
+        assertThat(staging.store(pdf(), HASH)).isEqualTo("documents/" + HASH);
+
+        verify(s3Service).uploadFile(any(DocumentContent.class), eq(HASH));
+        assertThat(staging.openStaged("documents/" + HASH, "invoice.pdf")).isEmpty();
+    }
+
+    @Test
+    void failedDataWriteLeavesNothingStaged() throws Exception {
+        staging.init();
+        Path spool = Files.write(stagingDir.resolve("upload.spool"), CONTENT);
+        DocumentContent vanished = DocumentContent.spooled(spool, "invoice.pdf", "application/pdf");
+        Files.delete(spool);
+
+        assertThatThrownBy(() -> staging.store(vanished, HASH)).isInstanceOf(IOException.class);
+
+        assertThat(stagedFiles()).isEmpty();
+        verify(s3Service, never()).uploadFile(any(DocumentContent.class), anyString());
+    }
+
+    @Test
+    void restartCleansPartialWritesAndUploadsWhatWasStaged() throws Exception {
+        Files.write(stagingDir.resolve(HASH), CONTENT);
+        Files.writeString(stagingDir.resolve(HASH + ".meta"), "application/pdf");
+        Files.write(stagingDir.resolve(HASH + ".1234.tmp"), CONTENT);
+        String orphan = "a".repeat(64);
+        Files.writeString(stagingDir.resolve(orphan + ".meta"), "application/pdf");
+        when(s3Service.uploadFile(any(DocumentContent.class), eq(HASH))).thenReturn("documents/" + HASH);
+
+        staging.init();
+
+        assertThat(stagedFiles()).containsExactlyInAnyOrder(HASH, HASH + ".meta");
+
+        staging.flushStaged();
+
+        verify(s3Service, timeout(5_000)).uploadFile(any(DocumentContent.class), eq(HASH));
+        awaitUntil(() -> stagedFiles().isEmpty());
+    }
+
+    @Test
+    void failedUploadStaysStagedAndIsRetried() throws Exception {
+        when(s3Service.uploadFile(any(DocumentContent.class), eq(HASH)))
+                .thenThrow(new IOException("R2 unavailable"))
+                .thenReturn("documents/" + HASH);
+        staging.init();
+
+        staging.store(pdf(), HASH);
+        awaitUntil(() -> meterRegistry.counter("ledgerlens.write_back.uploads", "result", "failure").count() == 1);
+        assertThat(stagingDir.resolve(HASH)).exists();
+
+        // Zero base delay, so the next scan retries straight away; scan until the failed attempt has let go
+        awaitUntil(() -> {
+            staging.flushStaged();
+            return !Files.exists(stagingDir.resolve(HASH));
+        });
+        verify(s3Service, timeout(5_000).times(2)).uploadFile(any(DocumentContent.class), eq(HASH));
+    }
+
+    @Test
+    void scanWaitsForBackoffBeforeRetrying() throws Exception {
+        ReflectionTestUtils.setField(staging, "retryBaseSeconds", 30L);
+        when(s3Service.uploadFile(any(DocumentContent.class), eq(HASH))).thenThrow(new IOException("R2 unavailable"));
+        staging.init();
+
+        staging.store(pdf(), HASH);
+        awaitUntil(() -> meterRegistry.counter("ledgerlens.write_back.uploads", "result", "failure").count() == 1);
+
+        staging.flushStaged();
+
+        verify(s3Service, after(300).times(1)).uploadFile(any(DocumentContent.class), eq(HASH));
+        assertThat(stagingDir.resolve(HASH)).exists();
+    }
+
+    @Test
+    void reconciliationFlagsObjectsNeitherStagedNorStored() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(s3Service.uploadFile(any(DocumentContent.class), eq(HASH))).thenAnswer(invocation -> {
+            release.await();
+            return "documents/" + HASH;
+        });
+        String stored = "b".repeat(64);
+        String lost = "c".repeat(64);
+        when(documentRepository.findS3KeysCreatedSince(any())).thenReturn(
+                List.of("documents/" + HASH, "documents/" + stored, "documents/" + lost));
+        when(s3Service.headFile("documents/" + stored)).thenReturn(Optional.of(StoredObjectInfo.builder().contentLength(10).build()));
+        when(s3Service.headFile("documents/" + lost)).thenReturn(Optional.empty());
+        staging.init();
+        staging.store(pdf(), HASH);
+
+        try {
+            staging.reconcileOnStartup();
+        } finally {
+            release.countDown();
+        }
+
+        verify(s3Service, never()).headFile("documents/" + HASH);
+        assertThat(meterRegistry.counter("ledgerlens.write_back.missing_objects").count()).isEqualTo(1);
+    }
+
+    private static DocumentContent pdf() {
+        return DocumentContent.inMemory(CONTENT, "invoice.pdf", "application/pdf");
+    }
+
+    private List<String> stagedFiles() {
+        try (Stream<Path> files = Files.list(stagingDir)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> !name.equals("readers"))
+                    .toList();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() - deadline).as("condition not met within 5 s").isNegative();
+            Thread.sleep(10);
+        }
+    }
+}